@@ -1,15 +1,21 @@
 package br.com.springboot.erp.config;
 
 import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 import org.springframework.orm.jpa.JpaVendorAdapter;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -18,26 +24,75 @@ import java.util.Properties;
 @Configuration
 public class DatabaseConfig {
 
+	@Value("${erp.jdbc.max-connections:50}")
+	private int maxConnections;
+
+	@Value("${erp.jdbc.acquire-timeout-ms:5000}")
+	private long acquireTimeoutMillis;
+
+	@Value("${erp.datasource.replica.enabled:false}")
+	private boolean replicaEnabled;
+
+	@Value("${erp.datasource.replica.max-lag-ms:1000}")
+	private long replicaMaxLagMillis;
+
+	@Value("${erp.datasource.replica.sync-interval-ms:200}")
+	private long replicaSyncIntervalMillis;
+
+	// show_sql escreve em System.out na thread da requisição; o padrão é o log amostrado (SqlStatementLogger)
+	@Value("${erp.sql-log.show-sql:false}")
+	private boolean showSql;
+
+	// recursos fora do bean exposto (réplica ligada), encerrados no shutdown
+	private final List<AutoCloseable> closeables = new ArrayList<>();
+
+	// Checkouts limitados por semáforo: com virtual threads a demanda por conexões deixa de ter teto
 	@Bean
 	public DataSource dataSource() {
-		return new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("testdb").build();
+		EmbeddedDatabase primary = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("testdb").build();
+		if (!replicaEnabled) {
+			return new ConnectionLimitingDataSource(primary, maxConnections, acquireTimeoutMillis);
+		}
+
+		// Réplica local mantida por cópia periódica; leituras somente leitura vão a ela
+		EmbeddedDatabase replica = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+				.setName("testdb_replica").build();
+		ReplicaSynchronizer synchronizer = new ReplicaSynchronizer(primary, replica, replicaSyncIntervalMillis);
+		ConnectionLimitingDataSource primaryPool = new ConnectionLimitingDataSource(primary, maxConnections,
+				acquireTimeoutMillis);
+		ConnectionLimitingDataSource replicaPool = new ConnectionLimitingDataSource(replica, maxConnections,
+				acquireTimeoutMillis);
+		closeables.add(synchronizer);
+		closeables.add(replicaPool);
+		closeables.add(primaryPool);
+		synchronizer.start();
+		return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primaryPool, replicaPool,
+				synchronizer::lagMillis, replicaMaxLagMillis));
+	}
+
+	@PreDestroy
+	public void close() throws Exception {
+		for (AutoCloseable closeable : closeables) {
+			closeable.close();
+		}
 	}
 
 	@Bean
-	public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+	public LocalContainerEntityManagerFactoryBean entityManagerFactory(SqlStatementLogger sqlStatementLogger) {
 		LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
 		em.setDataSource(dataSource());
-		em.setPackagesToScan("br.com.springboot.erp.model");
+		em.setPackagesToScan("br.com.springboot.erp.model.entity");
 		em.setPersistenceProviderClass(HibernatePersistenceProvider.class);
 		em.setJpaVendorAdapter(jpaVendorAdapter());
 		em.setJpaProperties(additionalProperties());
+		em.getJpaPropertyMap().put("hibernate.session_factory.statement_inspector", sqlStatementLogger);
 		return em;
 	}
 
 	@Bean
 	public JpaVendorAdapter jpaVendorAdapter() {
 		HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter();
-		adapter.setShowSql(true);
+		adapter.setShowSql(showSql);
 		adapter.setGenerateDdl(true);
 		return adapter;
 	}
@@ -48,7 +103,15 @@ public class DatabaseConfig {
 		properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
 
 		properties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
-		properties.setProperty("hibernate.format_sql", "true");
+		properties.setProperty("hibernate.format_sql", String.valueOf(showSql));
+
+		// Inserts/updates em lote (pedidos e itens usam sequência com alocação em blocos)
+		properties.setProperty("hibernate.jdbc.batch_size", "50");
+		properties.setProperty("hibernate.order_inserts", "true");
+		properties.setProperty("hibernate.order_updates", "true");
+
+		// listas IN completadas até a próxima potência de 2: poucos formatos de SQL no cache de planos
+		properties.setProperty("hibernate.query.in_clause_parameter_padding", "true");
 
 		return properties;
 	}
@@ -0,0 +1,33 @@
+package br.com.springboot.erp.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Modo de execução das threads da aplicação ({@code erp.execution.mode}).
+ *
+ * - {@code PLATFORM}: pools de threads de plataforma com tamanho fixo (padrão).
+ * - {@code VIRTUAL}: uma virtual thread por tarefa; chamadas JDBC bloqueantes não
+ *   prendem threads do sistema operacional, e a concorrência passa a ser limitada
+ *   pelas conexões do banco (ver {@link ConnectionLimitingDataSource}).
+ */
+public enum ExecutionMode {
+
+    PLATFORM,
+    VIRTUAL;
+
+    /**
+     * Cria um executor no modo corrente.
+     *
+     * @param threadPrefix  prefixo do nome das threads
+     * @param platformThreads tamanho do pool no modo {@code PLATFORM}
+     */
+    public ExecutorService newExecutor(String threadPrefix, int platformThreads) {
+        if (this == VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadPrefix, 0).factory());
+        }
+        return Executors.newFixedThreadPool(platformThreads, new CustomizableThreadFactory(threadPrefix));
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.springboot.erp.config;
+
+import java.util.Locale;
+
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Aplica o {@link ExecutionMode} ao Tomcat e aos executores assíncronos.
+ *
+ * No modo {@code VIRTUAL} cada requisição HTTP e cada tarefa {@code @Async}
+ * roda em uma virtual thread; no modo {@code PLATFORM} mantém-se o pool
+ * padrão do Tomcat ({@code server.tomcat.threads.max}).
+ */
+@Configuration
+@EnableAsync
+public class ExecutionModeConfig {
+
+    @Bean
+    public ExecutionMode executionMode(@Value("${erp.execution.mode:platform}") String mode) {
+        return ExecutionMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> tomcatExecutionModeCustomizer(
+            ExecutionMode executionMode) {
+        return factory -> {
+            if (executionMode == ExecutionMode.VIRTUAL) {
+                factory.addProtocolHandlerCustomizers(protocol -> {
+                    if (protocol instanceof AbstractProtocol<?> abstractProtocol) {
+                        abstractProtocol.setExecutor(executionMode.newExecutor("http-vt-", 0));
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Executor usado por {@code @Async} e pelas consultas paralelas dos serviços.
+     */
+    @Bean(name = { "applicationTaskExecutor", "taskExecutor" })
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutionMode executionMode,
+                                                     @Value("${erp.async.platform-threads:8}") int platformThreads) {
+        if (executionMode == ExecutionMode.VIRTUAL) {
+            return new TaskExecutorAdapter(executionMode.newExecutor("async-vt-", 0));
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(platformThreads);
+        executor.setMaxPoolSize(platformThreads);
+        executor.setThreadNamePrefix("async-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -3,11 +3,14 @@ package br.com.springboot.erp.config;
 import java.time.LocalDateTime;
 import java.util.NoSuchElementException;
 
+import javax.persistence.OptimisticLockException;
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.ConstraintViolationException;
 
 import org.springframework.core.Ordered;
 import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +24,9 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import br.com.springboot.erp.service.InsufficientStockException;
+import br.com.springboot.erp.service.OrderNotPendingException;
+
 @RestControllerAdvice
 @Order(Ordered.HIGHEST_PRECEDENCE)
 public class GlobalExceptionHandler {
@@ -101,6 +107,38 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(st).body(new ErrorResponse(st, ex.getMessage(), req.getRequestURI()));
     }
 
+    // 409 - conflito de versão (lock otimista) entre escritas concorrentes
+    @ExceptionHandler({ OptimisticLockingFailureException.class, OptimisticLockException.class })
+    public ResponseEntity<ErrorResponse> handleOptimisticLock(
+            Exception ex, HttpServletRequest req) {
+        HttpStatus st = HttpStatus.CONFLICT;
+        return ResponseEntity.status(st).body(new ErrorResponse(st, "O recurso foi alterado por outra requisição.", req.getRequestURI()));
+    }
+
+    // 409 - estoque (ou disponível para promessa) insuficiente
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<ErrorResponse> handleInsufficientStock(
+            InsufficientStockException ex, HttpServletRequest req) {
+        HttpStatus st = HttpStatus.CONFLICT;
+        return ResponseEntity.status(st).body(new ErrorResponse(st, ex.getMessage(), req.getRequestURI()));
+    }
+
+    // 409 - pedido já finalizado ou cancelado
+    @ExceptionHandler(OrderNotPendingException.class)
+    public ResponseEntity<ErrorResponse> handleOrderNotPending(
+            OrderNotPendingException ex, HttpServletRequest req) {
+        HttpStatus st = HttpStatus.CONFLICT;
+        return ResponseEntity.status(st).body(new ErrorResponse(st, ex.getMessage(), req.getRequestURI()));
+    }
+
+    // 503 - falha transitória de acesso a dados (prazo excedido, sem conexão disponível)
+    @ExceptionHandler(TransientDataAccessException.class)
+    public ResponseEntity<ErrorResponse> handleTransientDataAccess(
+            TransientDataAccessException ex, HttpServletRequest req) {
+        HttpStatus st = HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(st).body(new ErrorResponse(st, ex.getMessage(), req.getRequestURI()));
+    }
+
     // 405 / 415 (opcional)
     @ExceptionHandler({ HttpRequestMethodNotSupportedException.class, HttpMediaTypeNotSupportedException.class })
     public ResponseEntity<ErrorResponse> handleMethodOrMedia(
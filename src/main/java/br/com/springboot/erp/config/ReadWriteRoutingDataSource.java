@@ -0,0 +1,63 @@
+package br.com.springboot.erp.config;
+
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Envia transações somente leitura ({@code @Transactional(readOnly = true)}) à
+ * réplica e todo o resto ao primário.
+ *
+ * - Deve ficar atrás de um {@link LazyConnectionDataSourceProxy}: o gerenciador de
+ *   transações pede a conexão antes de marcar a transação como somente leitura, e
+ *   o proxy adia a escolha até o primeiro comando.
+ * - Réplica atrasada mais que {@code maxLagMillis} (ou nunca sincronizada) é
+ *   ignorada: a leitura vai ao primário.
+ * - {@link #pinToPrimary()} fixa a thread no primário (leia-suas-escritas), usado
+ *   por requisições com o cabeçalho {@code X-Read-Your-Writes: true}.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final LongSupplier replicaLagMillis;
+    private final long maxLagMillis;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, LongSupplier replicaLagMillis,
+                                      long maxLagMillis) {
+        this.replicaLagMillis = replicaLagMillis;
+        this.maxLagMillis = maxLagMillis;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    public static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        PINNED.remove();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentRoute();
+    }
+
+    public Route currentRoute() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PINNED.get() != null) {
+            return Route.PRIMARY;
+        }
+        return replicaLagMillis.getAsLong() <= maxLagMillis ? Route.REPLICA : Route.PRIMARY;
+    }
+}
@@ -0,0 +1,173 @@
+package br.com.springboot.erp.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Substituto simples de replicação entre dois bancos H2: a cada intervalo copia
+ * o conteúdo de todas as tabelas do primário para a réplica.
+ *
+ * A leitura do primário é feita em uma transação REPEATABLE READ (foto única) e a
+ * escrita na réplica em uma única transação, de modo que leitores da réplica veem
+ * sempre uma cópia completa. O esquema é copiado com {@code SCRIPT NODATA} na
+ * primeira sincronização e recriado se a cópia falhar. O atraso é medido a partir
+ * do início da última cópia concluída.
+ */
+public class ReplicaSynchronizer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaSynchronizer.class);
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final long intervalMillis;
+
+    private volatile long syncedAtMillis;
+    private volatile boolean schemaReady;
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaSynchronizer(DataSource primary, DataSource replica, long intervalMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("replica-sync-"));
+        scheduler.scheduleWithFixedDelay(this::syncQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Atraso da réplica em ms; {@link Long#MAX_VALUE} se nunca sincronizou.
+     */
+    public long lagMillis() {
+        long synced = syncedAtMillis;
+        return synced == 0 ? Long.MAX_VALUE : System.currentTimeMillis() - synced;
+    }
+
+    /**
+     * Copia o primário para a réplica.
+     */
+    public synchronized void sync() throws SQLException {
+        long startedAt = System.currentTimeMillis();
+        try (Connection source = primary.getConnection(); Connection target = replica.getConnection()) {
+            source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            source.setAutoCommit(false);
+            List<String> tables = tables(source);
+            if (tables.isEmpty()) {
+                return;
+            }
+            if (!schemaReady) {
+                copySchema(source, target);
+            }
+            try {
+                copyData(source, target, tables);
+            } catch (SQLException ex) {
+                schemaReady = false;
+                throw ex;
+            } finally {
+                source.commit();
+            }
+        }
+        syncedAtMillis = startedAt;
+    }
+
+    private void copySchema(Connection source, Connection target) throws SQLException {
+        try (Statement script = source.createStatement();
+             ResultSet statements = script.executeQuery("SCRIPT NODATA NOSETTINGS");
+             Statement ddl = target.createStatement()) {
+            ddl.execute("DROP ALL OBJECTS");
+            while (statements.next()) {
+                String sql = statements.getString(1);
+                // usuários e credenciais não fazem parte da cópia
+                if (!sql.startsWith("CREATE USER") && !sql.startsWith("--")) {
+                    ddl.execute(sql);
+                }
+            }
+            ddl.execute("SET REFERENTIAL_INTEGRITY FALSE");
+        }
+        schemaReady = true;
+    }
+
+    private static void copyData(Connection source, Connection target, List<String> tables) throws SQLException {
+        target.setAutoCommit(false);
+        try {
+            try (Statement delete = target.createStatement()) {
+                for (String table : tables) {
+                    delete.executeUpdate("DELETE FROM \"" + table + "\"");
+                }
+            }
+            for (String table : tables) {
+                copyTable(source, target, table);
+            }
+            target.commit();
+        } catch (SQLException | RuntimeException ex) {
+            target.rollback();
+            throw ex;
+        } finally {
+            target.setAutoCommit(true);
+        }
+    }
+
+    private static void copyTable(Connection source, Connection target, String table) throws SQLException {
+        try (Statement select = source.createStatement();
+             ResultSet rows = select.executeQuery("SELECT * FROM \"" + table + "\"")) {
+            int columns = rows.getMetaData().getColumnCount();
+            String placeholders = String.join(", ", Collections.nCopies(columns, "?"));
+            try (PreparedStatement insert = target.prepareStatement(
+                    "INSERT INTO \"" + table + "\" VALUES (" + placeholders + ")")) {
+                while (rows.next()) {
+                    for (int i = 1; i <= columns; i++) {
+                        insert.setObject(i, rows.getObject(i));
+                    }
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    private static List<String> tables(Connection connection) throws SQLException {
+        List<String> tables = new ArrayList<>();
+        try (ResultSet rs = connection.getMetaData().getTables(null, "PUBLIC", "%", new String[] { "BASE TABLE" })) {
+            while (rs.next()) {
+                tables.add(rs.getString("TABLE_NAME"));
+            }
+        }
+        return tables;
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (SQLException | RuntimeException ex) {
+            if (syncedAtMillis == 0) {
+                // esquema do primário ainda em criação na subida da aplicação
+                log.debug("Réplica ainda não sincronizada", ex);
+            } else {
+                log.warn("Falha ao sincronizar a réplica; leituras seguem no primário até a próxima cópia", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package br.com.springboot.erp.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import br.com.springboot.erp.model.dto.SqlLogCategoryDto;
+
+/**
+ * Log de SQL amostrado, no lugar do {@code show_sql} do Hibernate (que escreve
+ * cada comando em {@code System.out}, de forma síncrona, na thread da requisição).
+ *
+ * - Registrado como {@link StatementInspector}: vê cada comando antes do prepare.
+ * - Categorias {@code select, insert, update, delete, ddl, other}, cada uma com
+ *   logger próprio ({@code erp.sql.<categoria>}) e taxa de amostragem
+ *   ({@code erp.sql-log.<categoria>.sample-rate}: 1 em N; 0 desliga).
+ * - Mensagem em chave=valor, enviada ao appender assíncrono do logback.
+ * - Taxas alteráveis em tempo de execução ({@code PUT /api/logging/sql/{categoria}});
+ *   o nível do logger da categoria também desliga o log.
+ */
+@Component
+public class SqlStatementLogger implements StatementInspector {
+
+    public static final List<String> CATEGORIES = List.of("select", "insert", "update", "delete", "ddl", "other");
+
+    private static final Map<String, Integer> DEFAULT_RATES = Map.of(
+            "select", 100, "insert", 10, "update", 10, "delete", 1, "ddl", 1, "other", 1);
+
+    private final Map<String, Category> categories = new LinkedHashMap<>();
+
+    public SqlStatementLogger(Environment environment) {
+        for (String name : CATEGORIES) {
+            int rate = environment.getProperty("erp.sql-log." + name + ".sample-rate", Integer.class,
+                    DEFAULT_RATES.get(name));
+            categories.put(name, new Category(name, rate));
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Category category = categories.get(categoryOf(sql));
+        long seen = category.seen.incrementAndGet();
+        int rate = category.sampleRate;
+        if (rate > 0 && seen % rate == 0 && category.log.isInfoEnabled()) {
+            category.logged.incrementAndGet();
+            category.log.info("category={} seq={} sampleRate={} sql=\"{}\"", category.name, seen, rate,
+                    sql.replaceAll("\\s+", " ").trim());
+        }
+        return sql;
+    }
+
+    /**
+     * Altera a taxa de amostragem da categoria (1 em N; 0 desliga).
+     */
+    public SqlLogCategoryDto setSampleRate(String name, int sampleRate) {
+        if (sampleRate < 0) {
+            throw new IllegalArgumentException("Taxa de amostragem não pode ser negativa");
+        }
+        Category category = category(name);
+        category.sampleRate = sampleRate;
+        return category.toDto();
+    }
+
+    public List<SqlLogCategoryDto> stats() {
+        List<SqlLogCategoryDto> stats = new ArrayList<>();
+        categories.values().forEach(category -> stats.add(category.toDto()));
+        return stats;
+    }
+
+    private Category category(String name) {
+        Category category = name == null ? null : categories.get(name.toLowerCase(Locale.ROOT));
+        if (category == null) {
+            throw new IllegalArgumentException("Categoria de SQL inválida: " + name + " (use " + CATEGORIES + ")");
+        }
+        return category;
+    }
+
+    static String categoryOf(String sql) {
+        int start = 0;
+        int length = sql.length();
+        // pula espaços, parênteses e comentários iniciais (/* ... */ e -- até o fim da linha)
+        while (start < length && !Character.isLetter(sql.charAt(start))) {
+            if (sql.startsWith("/*", start)) {
+                int close = sql.indexOf("*/", start + 2);
+                start = close < 0 ? length : close + 2;
+            } else if (sql.startsWith("--", start)) {
+                int newline = sql.indexOf('\n', start);
+                start = newline < 0 ? length : newline + 1;
+            } else {
+                start++;
+            }
+        }
+        int end = start;
+        while (end < length && Character.isLetter(sql.charAt(end))) {
+            end++;
+        }
+        switch (sql.substring(start, end).toLowerCase(Locale.ROOT)) {
+            case "select":
+            case "with":
+                return "select";
+            case "insert":
+            case "merge":
+                return "insert";
+            case "update":
+                return "update";
+            case "delete":
+                return "delete";
+            case "create":
+            case "alter":
+            case "drop":
+            case "truncate":
+                return "ddl";
+            default:
+                return "other";
+        }
+    }
+
+    private static final class Category {
+        final String name;
+        final Logger log;
+        final AtomicLong seen = new AtomicLong();
+        final AtomicLong logged = new AtomicLong();
+        volatile int sampleRate;
+
+        Category(String name, int sampleRate) {
+            this.name = name;
+            this.log = LoggerFactory.getLogger("erp.sql." + name);
+            this.sampleRate = sampleRate;
+        }
+
+        SqlLogCategoryDto toDto() {
+            return new SqlLogCategoryDto(name, sampleRate, log.isInfoEnabled(), seen.get(), logged.get());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.springboot.erp.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Executores compartilhados pelos streams Server-Sent Events.
+ */
+@Configuration
+public class StreamingConfig {
+
+    // No modo VIRTUAL um envio lento (cliente com janela TCP cheia) não prende thread de plataforma
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService sseSenderExecutor(ExecutionMode executionMode,
+                                             @Value("${erp.sse.sender-threads:4}") int threads) {
+        return executionMode.newExecutor("sse-sender-", threads);
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService sseHeartbeatScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("sse-heartbeat-"));
+    }
+}
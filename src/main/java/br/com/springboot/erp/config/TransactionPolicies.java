@@ -0,0 +1,217 @@
+package br.com.springboot.erp.config;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.stream.Collectors;
+
+import javax.persistence.LockTimeoutException;
+import javax.persistence.PessimisticLockException;
+
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeEditor;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ClassUtils;
+
+import br.com.springboot.erp.model.dto.TransactionPolicyStatsDto;
+
+/**
+ * Política de transação por operação de serviço, configurada em um só lugar
+ * ({@code erp.tx.policy.<Interface>.<método>}) e com precedência sobre o
+ * {@code @Transactional} do método.
+ *
+ * O valor segue o formato do {@link TransactionAttributeEditor}
+ * ({@code PROPAGATION_REQUIRED,ISOLATION_READ_COMMITTED,readOnly,timeout_5}),
+ * mais {@code retries_N}: novas tentativas após deadlock ou espera de lock
+ * esgotada, somente quando a operação abre a própria transação.
+ *
+ * Também guarda as métricas de cada operação com política.
+ */
+public class TransactionPolicies {
+
+    private static final String RETRIES = "retries_";
+
+    private final Map<String, Policy> policies = new LinkedHashMap<>();
+    private final Map<Method, Map<Class<?>, Policy>> resolved = new ConcurrentHashMap<>();
+    private final Map<String, Metrics> metrics = new ConcurrentHashMap<>();
+
+    public TransactionPolicies(Map<String, String> definitions) {
+        definitions.forEach((operation, definition) -> policies.put(operation, parse(operation, definition)));
+    }
+
+    /**
+     * Fonte de atributos de transação com as políticas, para compor com a das anotações.
+     */
+    public TransactionAttributeSource attributeSource() {
+        return new TransactionAttributeSource() {
+            @Override
+            public boolean isCandidateClass(Class<?> targetClass) {
+                return policies.keySet().stream().anyMatch(operation -> matchesType(operation, targetClass));
+            }
+
+            @Override
+            public TransactionAttribute getTransactionAttribute(Method method, Class<?> targetClass) {
+                Policy policy = find(method, targetClass);
+                return policy != null ? policy.attribute() : null;
+            }
+        };
+    }
+
+    /**
+     * Política da operação, ou {@code null} se o método não tem política configurada.
+     */
+    public Policy find(Method method, Class<?> targetClass) {
+        if (targetClass == null) {
+            return null;
+        }
+        return resolved.computeIfAbsent(method, m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(targetClass, type -> lookup(method, type).orElse(Policy.NONE))
+                .orNull();
+    }
+
+    public List<TransactionPolicyStatsDto> stats() {
+        List<TransactionPolicyStatsDto> stats = new ArrayList<>();
+        policies.forEach((operation, policy) -> {
+            Metrics m = metrics.getOrDefault(operation, new Metrics());
+            long invocations = m.invocations.get();
+            stats.add(new TransactionPolicyStatsDto(operation, policy.definition(), invocations, m.failures.get(),
+                    m.lockTimeouts.get(), m.deadlocks.get(), m.retries.get(),
+                    invocations == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(m.totalNanos.get() / invocations),
+                    TimeUnit.NANOSECONDS.toMicros(m.maxNanos.get())));
+        });
+        return stats;
+    }
+
+    void recordInvocation(Policy policy, long nanos) {
+        Metrics m = metrics(policy);
+        m.invocations.incrementAndGet();
+        m.totalNanos.addAndGet(nanos);
+        m.maxNanos.accumulate(nanos);
+    }
+
+    void recordFailure(Policy policy, Throwable failure) {
+        Metrics m = metrics(policy);
+        m.failures.incrementAndGet();
+        if (isDeadlock(failure)) {
+            m.deadlocks.incrementAndGet();
+        } else if (isLockFailure(failure)) {
+            m.lockTimeouts.incrementAndGet();
+        }
+    }
+
+    void recordRetry(Policy policy) {
+        metrics(policy).retries.incrementAndGet();
+    }
+
+    static boolean isLockFailure(Throwable failure) {
+        return failure instanceof PessimisticLockingFailureException
+                || failure instanceof PessimisticLockException
+                || failure instanceof LockTimeoutException;
+    }
+
+    static boolean isDeadlock(Throwable failure) {
+        if (failure instanceof DeadlockLoserDataAccessException) {
+            return true;
+        }
+        // H2 e a maioria dos bancos: SQLState 40001 (deadlock / falha de serialização)
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && "40001".equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Metrics metrics(Policy policy) {
+        return metrics.computeIfAbsent(policy.operation(), operation -> new Metrics());
+    }
+
+    // "Interface.método" tem precedência sobre "Classe.método"
+    private Optional<Policy> lookup(Method method, Class<?> targetClass) {
+        List<Class<?>> types = new ArrayList<>(ClassUtils.getAllInterfacesForClassAsSet(targetClass));
+        types.add(ClassUtils.getUserClass(targetClass));
+        for (Class<?> type : types) {
+            if (!declares(type, method)) {
+                continue;
+            }
+            Policy policy = policies.get(type.getSimpleName() + "." + method.getName());
+            if (policy != null) {
+                return Optional.of(policy);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean declares(Class<?> type, Method method) {
+        return Arrays.stream(type.getMethods()).anyMatch(candidate -> candidate.getName().equals(method.getName())
+                && Arrays.equals(candidate.getParameterTypes(), method.getParameterTypes()));
+    }
+
+    private static boolean matchesType(String operation, Class<?> targetClass) {
+        String type = operation.substring(0, operation.lastIndexOf('.'));
+        if (ClassUtils.getUserClass(targetClass).getSimpleName().equals(type)) {
+            return true;
+        }
+        return ClassUtils.getAllInterfacesForClassAsSet(targetClass).stream()
+                .anyMatch(iface -> iface.getSimpleName().equals(type));
+    }
+
+    private static Policy parse(String operation, String definition) {
+        if (operation.indexOf('.') < 0) {
+            throw new IllegalArgumentException("Política de transação deve ser <Tipo>.<método>: " + operation);
+        }
+        int retries = 0;
+        List<String> tokens = new ArrayList<>();
+        for (String token : definition.split(",")) {
+            String trimmed = token.trim();
+            if (trimmed.startsWith(RETRIES)) {
+                retries = Integer.parseInt(trimmed.substring(RETRIES.length()));
+            } else if (!trimmed.isEmpty()) {
+                tokens.add(trimmed);
+            }
+        }
+        TransactionAttributeEditor editor = new TransactionAttributeEditor();
+        editor.setAsText(String.join(",", tokens));
+        TransactionAttribute attribute = (TransactionAttribute) editor.getValue();
+        if (attribute == null) {
+            throw new IllegalArgumentException("Política de transação vazia: " + operation);
+        }
+        return new Policy(operation, definition.trim(), attribute, retries);
+    }
+
+    @Override
+    public String toString() {
+        return policies.values().stream().map(p -> p.operation() + "=" + p.definition())
+                .collect(Collectors.joining(", ", "TransactionPolicies[", "]"));
+    }
+
+    public record Policy(String operation, String definition, TransactionAttribute attribute, int retries) {
+
+        private static final Policy NONE = new Policy(null, null, null, 0);
+
+        private Policy orNull() {
+            return this == NONE ? null : this;
+        }
+    }
+
+    private static final class Metrics {
+        final AtomicLong invocations = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong lockTimeouts = new AtomicLong();
+        final AtomicLong deadlocks = new AtomicLong();
+        final AtomicLong retries = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    }
+}
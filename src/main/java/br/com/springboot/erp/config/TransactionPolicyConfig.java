@@ -0,0 +1,82 @@
+package br.com.springboot.erp.config;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.transaction.config.TransactionManagementConfigUtils;
+import org.springframework.transaction.interceptor.CompositeTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+/**
+ * Aplica as {@link TransactionPolicies} ({@code erp.tx.policy.*}).
+ *
+ * A fonte de atributos do {@code @EnableTransactionManagement} é substituída por
+ * uma composição em que a política configurada vem antes da anotação; assim a
+ * política vale também para métodos sem {@code @Transactional}. Um advisor de
+ * maior precedência que o de transação mede as operações e faz as novas
+ * tentativas.
+ */
+@Configuration
+public class TransactionPolicyConfig {
+
+    private static final String TRANSACTION_ATTRIBUTE_SOURCE = "transactionAttributeSource";
+    private static final String ANNOTATION_ATTRIBUTE_SOURCE = "annotationTransactionAttributeSource";
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static TransactionPolicies transactionPolicies(Environment environment) {
+        Map<String, String> definitions = Binder.get(environment)
+                .bind("erp.tx.policy", Bindable.mapOf(String.class, String.class))
+                .orElse(Map.of());
+        return new TransactionPolicies(definitions);
+    }
+
+    // Troca a definição antes de qualquer bean ser criado: o advisor e o interceptor de transação recebem a composição
+    @Bean
+    public static BeanFactoryPostProcessor transactionPolicyAttributeSourceOverride() {
+        return beanFactory -> {
+            if (!(beanFactory instanceof BeanDefinitionRegistry registry)
+                    || !registry.containsBeanDefinition(TRANSACTION_ATTRIBUTE_SOURCE)
+                    || !registry.containsBeanDefinition(TransactionManagementConfigUtils.TRANSACTION_ADVISOR_BEAN_NAME)) {
+                return;
+            }
+            BeanDefinition annotations = registry.getBeanDefinition(TRANSACTION_ATTRIBUTE_SOURCE);
+            registry.removeBeanDefinition(TRANSACTION_ATTRIBUTE_SOURCE);
+            registry.registerBeanDefinition(ANNOTATION_ATTRIBUTE_SOURCE, annotations);
+
+            RootBeanDefinition composite = new RootBeanDefinition(TransactionAttributeSource.class,
+                    () -> new CompositeTransactionAttributeSource(
+                            beanFactory.getBean(TransactionPolicies.class).attributeSource(),
+                            beanFactory.getBean(ANNOTATION_ATTRIBUTE_SOURCE, TransactionAttributeSource.class)));
+            composite.setRole(BeanDefinition.ROLE_INFRASTRUCTURE);
+            registry.registerBeanDefinition(TRANSACTION_ATTRIBUTE_SOURCE, composite);
+        };
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static DefaultPointcutAdvisor transactionPolicyAdvisor(TransactionPolicies policies) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return policies.find(method, targetClass) != null;
+            }
+        };
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new TransactionPolicyInterceptor(policies));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
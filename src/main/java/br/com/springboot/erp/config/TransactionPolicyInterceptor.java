@@ -0,0 +1,56 @@
+package br.com.springboot.erp.config;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Envolve (por fora) a transação das operações com política: mede a duração,
+ * classifica as falhas de lock e repete a operação após deadlock ou espera de
+ * lock esgotada, até {@code retries_N} vezes.
+ *
+ * Só repete quando não havia transação ao entrar: dentro de uma transação
+ * externa a vítima é a transação inteira, e quem a abriu é quem pode repetir.
+ */
+class TransactionPolicyInterceptor implements MethodInterceptor {
+
+    private final TransactionPolicies policies;
+
+    TransactionPolicyInterceptor(TransactionPolicies policies) {
+        this.policies = policies;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Class<?> targetClass = invocation.getThis() != null ? invocation.getThis().getClass() : null;
+        TransactionPolicies.Policy policy = policies.find(invocation.getMethod(), targetClass);
+        if (policy == null) {
+            return invocation.proceed();
+        }
+
+        boolean retryable = policy.retries() > 0 && !TransactionSynchronizationManager.isActualTransactionActive()
+                && invocation instanceof ProxyMethodInvocation;
+        long start = System.nanoTime();
+        try {
+            for (int attempt = 0;; attempt++) {
+                MethodInvocation current = retryable ? ((ProxyMethodInvocation) invocation).invocableClone()
+                        : invocation;
+                try {
+                    return current.proceed();
+                } catch (RuntimeException ex) {
+                    policies.recordFailure(policy, ex);
+                    boolean lockFailure = TransactionPolicies.isDeadlock(ex) || TransactionPolicies.isLockFailure(ex);
+                    if (!retryable || !lockFailure || attempt >= policy.retries()) {
+                        throw ex;
+                    }
+                    policies.recordRetry(policy);
+                    // recuo curto e crescente: a transação vencedora termina antes da nova tentativa
+                    Thread.sleep(Math.min(5L << attempt, 100));
+                }
+            }
+        } finally {
+            policies.recordInvocation(policy, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package br.com.springboot.erp.controller;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.persistence.OptimisticLockException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.com.springboot.erp.model.dto.BatchOperation;
+import br.com.springboot.erp.model.dto.BatchRequest;
+import br.com.springboot.erp.model.dto.BatchResult;
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.model.entity.OrderItem;
+import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.service.ChunkedTransactionExecutor;
+
+/**
+ * Endpoint de lote: executa várias operações dos controllers de produtos,
+ * clientes e pedidos em uma única requisição HTTP.
+ *
+ * As operações rodam em ordem, agrupadas em transações de {@code chunkSize}
+ * operações (ver {@link ChunkedTransactionExecutor}); cada uma recebe seu
+ * próprio resultado (status, cabeçalhos e corpo). Com {@code parallelReads},
+ * GETs consecutivos são executados em paralelo.
+ */
+@RestController
+@RequestMapping("/api/batch")
+public class BatchController {
+
+    private static final TypeReference<List<OrderItem>> ORDER_ITEMS = new TypeReference<List<OrderItem>>() {
+    };
+
+    private final ChunkedTransactionExecutor chunkedExecutor;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final ConversionService conversion = DefaultConversionService.getSharedInstance();
+
+    private final List<Route> routes = new ArrayList<>();
+
+    private final int defaultChunkSize;
+
+    private final int maxOperations;
+
+    public BatchController(ProductController products, CustomerController customers, OrderController orders,
+                           ChunkedTransactionExecutor chunkedExecutor, ObjectProvider<ObjectMapper> objectMapper,
+                           ObjectProvider<Validator> validator,
+                           @Value("${erp.batch.chunk-size:100}") int defaultChunkSize,
+                           @Value("${erp.batch.max-operations:1000}") int maxOperations) {
+        this.chunkedExecutor = chunkedExecutor;
+        // fora do contexto web completo (ex.: testes de repositório) usa as configurações padrão
+        this.objectMapper = objectMapper.getIfAvailable(() -> Jackson2ObjectMapperBuilder.json().build());
+        this.validator = validator.getIfAvailable(() -> Validation.buildDefaultValidatorFactory().getValidator());
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxOperations = maxOperations;
+
+        // Produtos
+        get("/api/products/{id:\\d+}", call -> products.getProductById(call.longVar("id"), call.webRequest()));
+        get("/api/products/sku/{sku}", call -> products.getProductBySku(call.var("sku")));
+        write("POST", "/api/products", call -> products.createProduct(call.body(Product.class)));
+        write("PUT", "/api/products/{id:\\d+}", call -> products.updateProduct(call.longVar("id"),
+                call.body(Product.class), call.header(HttpHeaders.IF_MATCH)));
+        write("DELETE", "/api/products/{id:\\d+}", call -> products.deleteProduct(call.longVar("id")));
+        write("PUT", "/api/products/{id:\\d+}/stock", call -> products.updateStock(call.longVar("id"),
+                call.param("stock", Integer.class)));
+        write("PUT", "/api/products/{id:\\d+}/price", call -> products.updatePrice(call.longVar("id"),
+                call.param("price", BigDecimal.class)));
+
+        // Clientes
+        get("/api/customers/{id:\\d+}", call -> customers.getCustomerById(call.longVar("id"), call.webRequest()));
+        get("/api/customers/email/{email}", call -> customers.getCustomerByEmail(call.var("email")));
+        write("POST", "/api/customers", call -> customers.createCustomer(call.body(Customer.class)));
+        write("PUT", "/api/customers/{id:\\d+}", call -> customers.updateCustomer(call.longVar("id"),
+                call.validBody(Customer.class), call.header(HttpHeaders.IF_MATCH)));
+        write("DELETE", "/api/customers/{id:\\d+}", call -> customers.deleteCustomer(call.longVar("id")));
+
+        // Pedidos
+        get("/api/orders/{id:\\d+}", call -> orders.getOrderById(call.longVar("id"), call.webRequest()));
+        get("/api/orders/{id:\\d+}/total", call -> orders.calculateOrderTotal(call.longVar("id")));
+        write("POST", "/api/orders", call -> orders.createOrder(call.param("customerId", Long.class),
+                call.body(ORDER_ITEMS)));
+        write("POST", "/api/orders/{id:\\d+}/items", call -> orders.addItemToOrder(call.longVar("id"),
+                call.body(OrderItem.class)));
+        write("DELETE", "/api/orders/{id:\\d+}/items/{itemId:\\d+}", call -> orders.removeItemFromOrder(
+                call.longVar("id"), call.longVar("itemId")));
+        write("POST", "/api/orders/{id:\\d+}/finalize", call -> orders.finalizeOrder(call.longVar("id")));
+        write("POST", "/api/orders/{id:\\d+}/cancel", call -> orders.cancelOrder(call.longVar("id")));
+    }
+
+    @PostMapping
+    public ResponseEntity<List<BatchResult>> execute(@RequestBody BatchRequest batch, HttpServletRequest request) {
+        List<BatchOperation> operations = batch.operations() != null ? batch.operations() : List.of();
+        int chunkSize = batch.chunkSize() != null ? batch.chunkSize() : defaultChunkSize;
+        if (operations.size() > maxOperations) {
+            throw new IllegalArgumentException("Lote excede o limite de " + maxOperations + " operações");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize deve ser maior que zero");
+        }
+
+        List<Call> calls = new ArrayList<>(operations.size());
+        for (BatchOperation operation : operations) {
+            calls.add(resolve(operation, request));
+        }
+
+        List<BatchResult> results = new ArrayList<>(calls.size());
+        boolean parallelReads = Boolean.TRUE.equals(batch.parallelReads());
+        int from = 0;
+        while (from < calls.size()) {
+            // segmenta em sequências de leituras (paralelizáveis) e de escritas (em chunks)
+            boolean reads = parallelReads && calls.get(from).isRead();
+            int to = from;
+            while (to < calls.size() && (parallelReads && calls.get(to).isRead()) == reads) {
+                to++;
+            }
+            List<Call> segment = calls.subList(from, to);
+            results.addAll(reads
+                    ? chunkedExecutor.executeReadsInParallel(segment, Call::invoke, Call::failed)
+                    : chunkedExecutor.executeInChunks(segment, chunkSize, Call::invoke, Call::failed));
+            from = to;
+        }
+        return ResponseEntity.ok(results);
+    }
+
+    private Call resolve(BatchOperation operation, HttpServletRequest request) {
+        String method = operation.method() != null ? operation.method().toUpperCase(Locale.ROOT) : "GET";
+        UriComponents uri = UriComponentsBuilder.fromUriString(operation.path() != null ? operation.path() : "")
+                .build();
+        String path = uri.getPath() != null ? uri.getPath() : "";
+
+        Map<String, String> params = new LinkedHashMap<>(uri.getQueryParams().toSingleValueMap());
+        if (operation.params() != null) {
+            params.putAll(operation.params());
+        }
+
+        for (Route route : routes) {
+            if (route.method.equals(method) && route.template.matches(path)) {
+                return new Call(operation, route, route.template.match(path), params, request);
+            }
+        }
+        return new Call(operation, null, Map.of(), params, request);
+    }
+
+    private void get(String template, Function<Call, ResponseEntity<?>> handler) {
+        routes.add(new Route("GET", new UriTemplate(template), true, handler));
+    }
+
+    private void write(String method, String template, Function<Call, ResponseEntity<?>> handler) {
+        routes.add(new Route(method, new UriTemplate(template), false, handler));
+    }
+
+    private record Route(String method, UriTemplate template, boolean read,
+                         Function<Call, ResponseEntity<?>> handler) {
+    }
+
+    /**
+     * Sub-operação resolvida contra a tabela de rotas.
+     */
+    private final class Call {
+
+        private final BatchOperation operation;
+        private final Route route;
+        private final Map<String, String> pathVariables;
+        private final Map<String, String> params;
+        private final Map<String, String> headers = new LinkedCaseInsensitiveMap<>();
+        private final HttpServletRequest request;
+
+        Call(BatchOperation operation, Route route, Map<String, String> pathVariables, Map<String, String> params,
+             HttpServletRequest request) {
+            this.operation = operation;
+            this.route = route;
+            this.pathVariables = pathVariables;
+            this.params = params;
+            this.request = request;
+            if (operation.headers() != null) {
+                headers.putAll(operation.headers());
+            }
+        }
+
+        boolean isRead() {
+            return route != null && route.read;
+        }
+
+        BatchResult invoke() {
+            if (route == null) {
+                return error(HttpStatus.NOT_FOUND, "Operação não suportada no lote: " + operation.method() + " "
+                        + operation.path());
+            }
+            ResponseEntity<?> response = route.handler.apply(this);
+            Map<String, String> headers = new LinkedHashMap<>();
+            response.getHeaders().forEach((name, values) -> headers.put(name, String.join(",", values)));
+            return new BatchResult(operation.id(), response.getStatusCodeValue(), headers, response.getBody());
+        }
+
+        // mesmo mapeamento de status do GlobalExceptionHandler
+        BatchResult failed(RuntimeException ex) {
+            if (ex instanceof IllegalArgumentException) {
+                return error(HttpStatus.BAD_REQUEST, ex.getMessage());
+            }
+            if (ex instanceof NoSuchElementException) {
+                return error(HttpStatus.NOT_FOUND, ex.getMessage());
+            }
+            if (ex instanceof OptimisticLockingFailureException || ex instanceof OptimisticLockException) {
+                return error(HttpStatus.CONFLICT, "O recurso foi alterado por outra requisição.");
+            }
+            if (ex instanceof TransientDataAccessException) {
+                return error(HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+            }
+            return error(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage());
+        }
+
+        private BatchResult error(HttpStatus status, String message) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("error", status.getReasonPhrase());
+            body.put("message", message);
+            return new BatchResult(operation.id(), status.value(), Map.of(), body);
+        }
+
+        String var(String name) {
+            return pathVariables.get(name);
+        }
+
+        Long longVar(String name) {
+            return Long.valueOf(pathVariables.get(name));
+        }
+
+        <T> T param(String name, Class<T> type) {
+            String value = params.get(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Parâmetro obrigatório ausente: " + name);
+            }
+            return conversion.convert(value, type);
+        }
+
+        String header(String name) {
+            return headers.get(name);
+        }
+
+        <T> T body(Class<T> type) {
+            if (operation.body() == null || operation.body().isNull()) {
+                throw new IllegalArgumentException("Corpo obrigatório ausente");
+            }
+            return objectMapper.convertValue(operation.body(), type);
+        }
+
+        <T> T body(TypeReference<T> type) {
+            if (operation.body() == null || operation.body().isNull()) {
+                throw new IllegalArgumentException("Corpo obrigatório ausente");
+            }
+            return objectMapper.convertValue(operation.body(), type);
+        }
+
+        // equivalente ao @Valid do endpoint original
+        <T> T validBody(Class<T> type) {
+            T body = body(type);
+            Set<ConstraintViolation<T>> violations = validator.validate(body);
+            if (!violations.isEmpty()) {
+                ConstraintViolation<T> first = violations.iterator().next();
+                throw new IllegalArgumentException(first.getPropertyPath() + ": " + first.getMessage());
+            }
+            return body;
+        }
+
+        // GETs condicionais usam apenas os cabeçalhos da própria sub-operação
+        WebRequest webRequest() {
+            return new ServletWebRequest(new HttpServletRequestWrapper(request) {
+                @Override
+                public String getHeader(String name) {
+                    return header(name);
+                }
+
+                @Override
+                public Enumeration<String> getHeaders(String name) {
+                    String value = header(name);
+                    return value != null ? Collections.enumeration(List.of(value)) : Collections.emptyEnumeration();
+                }
+
+                @Override
+                public Enumeration<String> getHeaderNames() {
+                    return Collections.enumeration(headers.keySet());
+                }
+
+                @Override
+                public String getMethod() {
+                    return "GET";
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package br.com.springboot.erp.controller;
+
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import br.com.springboot.erp.model.dto.EntityVersion;
+
+/**
+ * Suporte a requisições condicionais (ETag / Last-Modified) baseadas na coluna de versão das entidades.
+ *
+ * - GET com {@code If-None-Match}/{@code If-Modified-Since}: a versão é consultada antes
+ *   de carregar a entidade, permitindo responder 304 sem hidratá-la.
+ * - PUT com {@code If-Match}: a versão informada é usada no merge, delegando ao
+ *   lock otimista do Hibernate a detecção de escritas concorrentes.
+ * - PATCH com {@code If-Match}: a versão exigida é conferida na transação do patch
+ *   (alteração concorrente entre as duas leituras resulta em 409).
+ */
+final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Indica se o cliente enviou cabeçalhos de validação de cache.
+     */
+    static boolean isConditional(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+
+    /**
+     * Resolve o GET condicional a partir da versão atual; retorna 304 quando o cliente já tem a versão corrente.
+     */
+    static <T> Optional<ResponseEntity<T>> notModified(WebRequest request, EntityVersion current) {
+        if (request.checkNotModified(current.eTag(), current.lastModified())) {
+            return Optional.of(ResponseEntity.status(HttpStatus.NOT_MODIFIED).build());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Resposta 200 com ETag e Last-Modified da versão informada.
+     */
+    static <T> ResponseEntity<T> ok(T body, EntityVersion version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (version.eTag() != null) {
+            builder.eTag(version.eTag());
+        }
+        if (version.lastModified() >= 0) {
+            builder.lastModified(version.lastModified());
+        }
+        return builder.body(body);
+    }
+
+    /**
+     * Verifica o {@code If-Match} contra a versão atual ({@code *} aceita qualquer versão).
+     */
+    static boolean matches(String ifMatch, Long currentVersion) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return true;
+        }
+        String expected = new EntityVersion(currentVersion, null).eTag();
+        for (String tag : ifMatch.split(",")) {
+            // If-Match usa comparação forte: ETags fracos nunca casam
+            if (tag.trim().equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Versão exigida pelo {@code If-Match}, ou {@code null} quando não há precondição (ausente ou {@code *}).
+     */
+    static Long expectedVersion(String ifMatch, Long currentVersion) {
+        return ifMatch == null || ifMatch.trim().equals("*") ? null : currentVersion;
+    }
+
+    static <T> ResponseEntity<T> preconditionFailed() {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+}
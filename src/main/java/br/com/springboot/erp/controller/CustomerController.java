@@ -1,24 +1,34 @@
 package br.com.springboot.erp.controller;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import br.com.springboot.erp.model.dto.CustomerDto;
+import br.com.springboot.erp.model.dto.CustomerOverviewDto;
+import br.com.springboot.erp.model.dto.EntityVersion;
 import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.service.CustomerOverviewService;
 import br.com.springboot.erp.service.CustomerService;
 
 /**
@@ -30,8 +40,11 @@ public class CustomerController {
 
     private final CustomerService customerService;
 
-    public CustomerController(CustomerService customerService) {
+    private final CustomerOverviewService customerOverviewService;
+
+    public CustomerController(CustomerService customerService, CustomerOverviewService customerOverviewService) {
         this.customerService = customerService;
+        this.customerOverviewService = customerOverviewService;
     }
 
 
@@ -46,13 +59,30 @@ public class CustomerController {
     
 
     @GetMapping("/{id}")
-    public ResponseEntity<CustomerDto> getCustomerById(@PathVariable Long id) {
+    public ResponseEntity<CustomerDto> getCustomerById(@PathVariable Long id, WebRequest request) {
+        if (ConditionalRequests.isConditional(request)) {
+            EntityVersion current = customerService.findCustomerVersion(id).orElse(null);
+            if (current == null) {
+                return ResponseEntity.notFound().build();
+            }
+            Optional<ResponseEntity<CustomerDto>> notModified = ConditionalRequests.notModified(request, current);
+            if (notModified.isPresent()) {
+                return notModified.get();
+            }
+        }
         return customerService.findCustomerById(id)
-                .map(CustomerDto::from)
-                .map(ResponseEntity::ok)
+                .map(customer -> ConditionalRequests.ok(CustomerDto.from(customer),
+                        new EntityVersion(customer.getVersion(), customer.getUpdatedAt())))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Visão 360: cliente + página de pedidos com totais + lifetime value em uma chamada
+    @GetMapping("/{id}/overview")
+    public ResponseEntity<CustomerOverviewDto> getCustomerOverview(@PathVariable Long id,
+            @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(customerOverviewService.getOverview(id, page, size));
+    }
+
     @GetMapping("/email/{email}")
     public ResponseEntity<CustomerDto> getCustomerByEmail(@PathVariable String email) {
         return customerService.findCustomerByEmail(email)
@@ -77,16 +107,39 @@ public class CustomerController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<CustomerDto> updateCustomer(@PathVariable Long id, @RequestBody @Valid Customer customer) {
+    public ResponseEntity<CustomerDto> updateCustomer(@PathVariable Long id, @RequestBody @Valid Customer customer,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         return customerService.findCustomerById(id)
                 .map(existing -> {
+                    if (!ConditionalRequests.matches(ifMatch, existing.getVersion())) {
+                        return ConditionalRequests.<CustomerDto>preconditionFailed();
+                    }
                     customer.setId(id);
+                    customer.setVersion(existing.getVersion());
                     Customer updated = customerService.updateCustomer(customer);
-                    return ResponseEntity.ok(CustomerDto.from(updated));
+                    return ConditionalRequests.ok(CustomerDto.from(updated),
+                            new EntityVersion(updated.getVersion(), updated.getUpdatedAt()));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // JSON Merge Patch (RFC 7396): só os campos enviados mudam (null apaga) e só eles vão ao UPDATE
+    @PatchMapping(path = "/{id}", consumes = { "application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<CustomerDto> patchCustomer(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        EntityVersion current = customerService.findCustomerVersion(id).orElse(null);
+        if (current == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!ConditionalRequests.matches(ifMatch, current.version())) {
+            return ConditionalRequests.preconditionFailed();
+        }
+        return customerService.patchCustomer(id, ConditionalRequests.expectedVersion(ifMatch, current.version()), patch)
+                .map(customer -> ConditionalRequests.ok(CustomerDto.from(customer),
+                        new EntityVersion(customer.getVersion(), customer.getUpdatedAt())))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCustomer(@PathVariable Long id) {
         customerService.deleteCustomer(id);
@@ -3,9 +3,11 @@ package br.com.springboot.erp.controller;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,11 +18,17 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import br.com.springboot.erp.model.dto.EntityVersion;
 import br.com.springboot.erp.model.dto.OrderDto;
+import br.com.springboot.erp.model.dto.OrderArchiveStatsDto;
+import br.com.springboot.erp.model.dto.PendingOrderSweepStatsDto;
 import br.com.springboot.erp.model.entity.Order;
 import br.com.springboot.erp.model.entity.OrderItem;
 import br.com.springboot.erp.service.OrderService;
+import br.com.springboot.erp.service.OrderStatusNotificationService;
 
 /**
  * Controller para gerenciamento de pedidos.
@@ -30,9 +38,12 @@ import br.com.springboot.erp.service.OrderService;
 public class OrderController {
 
     private final OrderService orderService;
+
+    private final OrderStatusNotificationService statusNotificationService;
     
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, OrderStatusNotificationService statusNotificationService) {
         this.orderService = orderService;
+        this.statusNotificationService = statusNotificationService;
     }
 
     // Lista todos (resumo)
@@ -45,12 +56,22 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
-    // Busca por ID (resumo)
+    // Busca por ID (resumo), com suporte a GET condicional via ETag/Last-Modified
     @GetMapping("/{id}")
-    public ResponseEntity<OrderDto> getOrderById(@PathVariable Long id) {
+    public ResponseEntity<OrderDto> getOrderById(@PathVariable Long id, WebRequest request) {
+        if (ConditionalRequests.isConditional(request)) {
+            EntityVersion current = orderService.findOrderVersion(id).orElse(null);
+            if (current == null) {
+                return ResponseEntity.notFound().build();
+            }
+            Optional<ResponseEntity<OrderDto>> notModified = ConditionalRequests.notModified(request, current);
+            if (notModified.isPresent()) {
+                return notModified.get();
+            }
+        }
         return orderService.findOrderById(id)
-                .map(OrderDto::from)
-                .map(ResponseEntity::ok)
+                .map(order -> ConditionalRequests.ok(OrderDto.from(order),
+                        new EntityVersion(order.getVersion(), order.getUpdatedAt())))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -82,6 +103,20 @@ public class OrderController {
         return ResponseEntity.ok(orders);
     }
 
+    // Stream SSE com as mudanças de status de um pedido (snapshot inicial + eventos)
+    @GetMapping(path = "/{id}/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderStatus(@PathVariable Long id) {
+        return statusNotificationService.subscribeToOrder(id, () -> orderService.findOrderById(id).map(OrderDto::from))
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Stream SSE com as mudanças de status dos pedidos de um cliente
+    @GetMapping(path = "/customer/{customerId}/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamCustomerOrderStatus(@PathVariable Long customerId) {
+        return statusNotificationService.subscribeToCustomer(customerId);
+    }
+
     // Criar pedido (retorna detalhes com itens)
     @PostMapping
     public ResponseEntity<OrderDto> createOrder(@RequestParam Long customerId, @RequestBody List<OrderItem> items) {
@@ -99,10 +134,18 @@ public class OrderController {
     // Remover item
     @DeleteMapping("/{orderId}/items/{itemId}")
     public ResponseEntity<Void> removeItemFromOrder(@PathVariable Long orderId, @PathVariable Long itemId) {
-        orderService.removeItemFromOrder(orderId, itemId);
+        if (!orderService.removeItemFromOrder(orderId, itemId)) {
+            return ResponseEntity.notFound().build();
+        }
         return ResponseEntity.ok().build();
     }
 
+    // DELETE /api/orders/{id}/items?ids=1,2,3 → quantidade removida, sem carregar os itens do pedido
+    @DeleteMapping(path = "/{orderId}/items", params = "ids")
+    public ResponseEntity<Integer> removeItemsFromOrder(@PathVariable Long orderId, @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(orderService.removeItemsFromOrder(orderId, ids));
+    }
+
     // Atualizar item
     @PutMapping("/{orderId}/items")
     public ResponseEntity<Void> updateOrderItem(@PathVariable Long orderId, @RequestBody OrderItem item) {
@@ -131,6 +174,18 @@ public class OrderController {
         return ResponseEntity.ok().build();
     }
 
+    // Métricas da varredura de pedidos pendentes abandonados
+    @GetMapping("/pending-sweep")
+    public ResponseEntity<PendingOrderSweepStatsDto> getPendingSweepStats() {
+        return ResponseEntity.ok(orderService.getPendingSweepStats());
+    }
+
+    // Métricas do arquivamento de pedidos encerrados
+    @GetMapping("/archive")
+    public ResponseEntity<OrderArchiveStatsDto> getArchiveStats() {
+        return ResponseEntity.ok(orderService.getArchiveStats());
+    }
+
     // Validação simples
     @PostMapping("/{orderId}/validate")
     public ResponseEntity<Map<String, Boolean>> validateOrder(@PathVariable Long orderId) {
@@ -2,23 +2,41 @@ package br.com.springboot.erp.controller;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import br.com.springboot.erp.model.dto.BulkPriceUpdateRequest;
+import br.com.springboot.erp.model.dto.BulkStockUpdateRequest;
+import br.com.springboot.erp.model.dto.BulkUpdateResultDto;
+import br.com.springboot.erp.model.dto.EntityVersion;
+import br.com.springboot.erp.model.dto.ProductChangesDto;
 import br.com.springboot.erp.model.dto.ProductDto;
+import br.com.springboot.erp.model.dto.StockAvailabilityDto;
+import br.com.springboot.erp.model.dto.StockBufferStatsDto;
+import br.com.springboot.erp.model.dto.StockMovementDto;
 import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.service.LowStockAlertService;
 import br.com.springboot.erp.service.ProductService;
+import br.com.springboot.erp.service.StockReservationService;
 
 /**
  * Controller para gerenciamento de produtos.
@@ -29,8 +47,15 @@ public class ProductController {
 
     private final ProductService productService;
 
-    public ProductController(ProductService productService) {
+    private final LowStockAlertService lowStockAlertService;
+
+    private final StockReservationService stockReservations;
+
+    public ProductController(ProductService productService, LowStockAlertService lowStockAlertService,
+                             StockReservationService stockReservations) {
         this.productService = productService;
+        this.lowStockAlertService = lowStockAlertService;
+        this.stockReservations = stockReservations;
     }
 
     @GetMapping
@@ -42,11 +67,44 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    // GET /api/products?ids=1,2,3 → um round trip para o carrinho inteiro, na ordem pedida
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<ProductDto>> getProductsByIds(@RequestParam List<Long> ids) {
+        List<ProductDto> products = productService.findProductsByIds(ids)
+                .stream()
+                .map(ProductDto::from)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(products);
+    }
+
+    @GetMapping(params = "skus")
+    public ResponseEntity<List<ProductDto>> getProductsBySkus(@RequestParam List<String> skus) {
+        List<ProductDto> products = productService.findProductsBySkus(skus)
+                .stream()
+                .map(ProductDto::from)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(products);
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDto> getProductById(@PathVariable Long id) {
+    public ResponseEntity<ProductDto> getProductById(@PathVariable Long id, WebRequest request) {
+        if (ConditionalRequests.isConditional(request)) {
+            // 304 respondido apenas com a consulta de versão, sem carregar o produto
+            EntityVersion current = productService.findProductVersion(id).orElse(null);
+            if (current == null) {
+                return ResponseEntity.notFound().build();
+            }
+            // estoque ainda não consolidado não muda a versão: nesse caso não há 304
+            Optional<ResponseEntity<ProductDto>> notModified = productService.isVersionCurrent(id)
+                    ? ConditionalRequests.notModified(request, current)
+                    : Optional.empty();
+            if (notModified.isPresent()) {
+                return notModified.get();
+            }
+        }
         return productService.findProductById(id)
-                .map(ProductDto::from)
-                .map(ResponseEntity::ok)
+                .map(product -> ConditionalRequests.ok(ProductDto.from(product),
+                        new EntityVersion(product.getVersion(), product.getUpdatedAt())))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -65,31 +123,64 @@ public class ProductController {
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<ProductDto> updateProduct(@PathVariable Long id, @RequestBody Product product) {
+    public ResponseEntity<ProductDto> updateProduct(@PathVariable Long id, @RequestBody Product product,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         return productService.findProductById(id)
                 .map(existingProduct -> {
+                    if (!ConditionalRequests.matches(ifMatch, existingProduct.getVersion())) {
+                        return ConditionalRequests.<ProductDto>preconditionFailed();
+                    }
                     product.setId(id);
+                    product.setVersion(existingProduct.getVersion());
                     Product updatedProduct = productService.saveProduct(product);
-                    return ResponseEntity.ok(ProductDto.from(updatedProduct));
+                    return ConditionalRequests.ok(ProductDto.from(updatedProduct),
+                            new EntityVersion(updatedProduct.getVersion(), updatedProduct.getUpdatedAt()));
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // JSON Merge Patch (RFC 7396): só os campos enviados mudam (null apaga) e só eles vão ao UPDATE
+    @PatchMapping(path = "/{id}", consumes = { "application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<ProductDto> patchProduct(@PathVariable Long id, @RequestBody Map<String, Object> patch,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        EntityVersion current = productService.findProductVersion(id).orElse(null);
+        if (current == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!ConditionalRequests.matches(ifMatch, current.version())) {
+            return ConditionalRequests.preconditionFailed();
+        }
+        return productService.patchProduct(id, ConditionalRequests.expectedVersion(ifMatch, current.version()), patch)
+                .map(product -> ConditionalRequests.ok(ProductDto.from(product),
+                        new EntityVersion(product.getVersion(), product.getUpdatedAt())))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
-        if (!productService.findProductById(id).isPresent()) {
+        if (!productService.deleteProduct(id)) {
             return ResponseEntity.notFound().build();
         }
-        productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
 
+    // DELETE /api/products?ids=1,2,3 → quantidade removida (400 acima do limite de ids por chamada)
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<Integer> deleteProducts(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(productService.deleteProducts(ids));
+    }
+
     @PutMapping("/{id}/stock")
     public ResponseEntity<Void> updateStock(@PathVariable Long id, @RequestParam Integer stock) {
         if (stock < 0) {
             return ResponseEntity.badRequest().build();
         }
-        productService.updateProductStock(id, stock);
+        // com o livro de estoque o ajuste vai ao group commit, sem abrir transação por requisição
+        if (productService.isStockLedgerEnabled()) {
+            productService.recordStockLevel(id, stock);
+        } else {
+            productService.updateProductStock(id, stock);
+        }
         return ResponseEntity.ok().build();
     }
 
@@ -102,6 +193,16 @@ public class ProductController {
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/bulk/price")
+    public ResponseEntity<BulkUpdateResultDto> updatePrices(@RequestBody BulkPriceUpdateRequest request) {
+        return ResponseEntity.ok(productService.updatePrices(request));
+    }
+
+    @PostMapping("/bulk/stock")
+    public ResponseEntity<BulkUpdateResultDto> adjustStocks(@RequestBody BulkStockUpdateRequest request) {
+        return ResponseEntity.ok(productService.adjustStocks(request));
+    }
+
     @GetMapping("/low-stock")
     public ResponseEntity<List<ProductDto>> getProductsWithLowStock() {
         List<ProductDto> products = productService.findProductsWithLowStock()
@@ -111,6 +212,51 @@ public class ProductController {
         return ResponseEntity.ok(products);
     }
 
+    // Sincronização incremental: inserções/alterações e exclusões desde a sequência informada
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChangesDto> getProductChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (since < 0 || limit < 1 || limit > 1000) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.findProductChanges(since, limit));
+    }
+
+    // Stream SSE: snapshot inicial + eventos quando um produto cruza o limite de estoque baixo
+    @GetMapping(path = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStock() {
+        return lowStockAlertService.subscribe(productService::findProductsWithLowStock);
+    }
+
+    // Estado do buffer de escrita adiada de estoque (pendências e atraso de gravação)
+    @GetMapping("/stock-buffer")
+    public ResponseEntity<StockBufferStatsDto> getStockBufferStats() {
+        return ResponseEntity.ok(productService.getStockBufferStats());
+    }
+
+    // Disponível para promessa (estoque − reservas de pedidos pendentes), respondido da memória
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<StockAvailabilityDto> getAvailability(@PathVariable Long id) {
+        return stockReservations.availability(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Livro de estoque: movimentações mais recentes do produto
+    @GetMapping("/{id}/stock-movements")
+    public ResponseEntity<List<StockMovementDto>> getStockMovements(@PathVariable Long id,
+            @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > 1000) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<StockMovementDto> movements = productService.findStockMovements(id, limit)
+                .stream()
+                .map(StockMovementDto::from)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(movements);
+    }
+
     @GetMapping("/inventory-value")
     public ResponseEntity<BigDecimal> getInventoryValue() {
         BigDecimal value = productService.calculateInventoryValue();
@@ -0,0 +1,39 @@
+package br.com.springboot.erp.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.springboot.erp.config.SqlStatementLogger;
+import br.com.springboot.erp.model.dto.SqlLogCategoryDto;
+
+/**
+ * Log de SQL amostrado: contadores por categoria e ajuste da amostragem em tempo de execução.
+ */
+@RestController
+@RequestMapping("/api/logging/sql")
+public class SqlLogController {
+
+    private final SqlStatementLogger sqlStatementLogger;
+
+    public SqlLogController(SqlStatementLogger sqlStatementLogger) {
+        this.sqlStatementLogger = sqlStatementLogger;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<SqlLogCategoryDto>> getCategories() {
+        return ResponseEntity.ok(sqlStatementLogger.stats());
+    }
+
+    @PutMapping("/{category}")
+    public ResponseEntity<SqlLogCategoryDto> setSampleRate(@PathVariable String category,
+                                                           @RequestParam int sampleRate) {
+        return ResponseEntity.ok(sqlStatementLogger.setSampleRate(category, sampleRate));
+    }
+}
@@ -0,0 +1,36 @@
+package br.com.springboot.erp.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.springboot.erp.model.dto.EntityCountsDto;
+import br.com.springboot.erp.service.EntityCountService;
+
+/**
+ * Estatísticas para as telas administrativas: contagens respondidas da memória.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final EntityCountService entityCountService;
+
+    public StatsController(EntityCountService entityCountService) {
+        this.entityCountService = entityCountService;
+    }
+
+    @GetMapping("/counts")
+    public ResponseEntity<EntityCountsDto> getCounts() {
+        return ResponseEntity.ok(entityCountService.counts());
+    }
+
+    // Conferência imediata com o banco (ex.: após carga de dados por SQL)
+    @PostMapping("/counts/reconcile")
+    public ResponseEntity<EntityCountsDto> reconcileCounts() {
+        entityCountService.reconcile();
+        return ResponseEntity.ok(entityCountService.counts());
+    }
+}
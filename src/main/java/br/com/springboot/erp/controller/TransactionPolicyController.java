@@ -0,0 +1,30 @@
+package br.com.springboot.erp.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import br.com.springboot.erp.config.TransactionPolicies;
+import br.com.springboot.erp.model.dto.TransactionPolicyStatsDto;
+
+/**
+ * Políticas de transação por operação e métricas de lock/novas tentativas.
+ */
+@RestController
+@RequestMapping("/api/transactions")
+public class TransactionPolicyController {
+
+    private final TransactionPolicies transactionPolicies;
+
+    public TransactionPolicyController(TransactionPolicies transactionPolicies) {
+        this.transactionPolicies = transactionPolicies;
+    }
+
+    @GetMapping("/policies")
+    public ResponseEntity<List<TransactionPolicyStatsDto>> getPolicies() {
+        return ResponseEntity.ok(transactionPolicies.stats());
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Sub-operação de um lote: uma chamada a um endpoint existente da API.
+ *
+ * Ex.: {@code {"id": "a1", "method": "PUT", "path": "/api/products/7/stock", "params": {"stock": "40"}}}
+ * (os parâmetros também podem vir na query string de {@code path}).
+ */
+public record BatchOperation(
+        String id,
+        String method,
+        String path,
+        Map<String, String> params,
+        Map<String, String> headers,
+        JsonNode body
+) implements Serializable {
+}
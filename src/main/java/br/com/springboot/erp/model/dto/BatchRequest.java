@@ -0,0 +1,18 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Lote de sub-operações para {@code POST /api/batch}.
+ *
+ * - {@code chunkSize}: operações por transação (padrão {@code erp.batch.chunk-size}).
+ * - {@code parallelReads}: executa em paralelo sequências de GETs consecutivos;
+ *   escritas continuam sequenciais e funcionam como barreira.
+ */
+public record BatchRequest(
+        List<BatchOperation> operations,
+        Integer chunkSize,
+        Boolean parallelReads
+) implements Serializable {
+}
@@ -0,0 +1,18 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de uma sub-operação do lote, na mesma posição da requisição.
+ */
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public record BatchResult(
+        String id,
+        int status,
+        Map<String, String> headers,
+        Object body
+) implements Serializable {
+}
@@ -0,0 +1,22 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Reajuste de preço em massa para {@code POST /api/products/bulk/price}.
+ *
+ * - {@code PERCENT}: {@code value} em percentual (10 = +10%, -5 = -5%), arredondado a 2 casas.
+ * - {@code ABSOLUTE}: {@code value} somado ao preço atual.
+ */
+public record BulkPriceUpdateRequest(
+        Mode mode,
+        BigDecimal value,
+        ProductBulkFilter filter
+) implements Serializable {
+
+    public enum Mode {
+        PERCENT,
+        ABSOLUTE
+    }
+}
@@ -0,0 +1,12 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+
+/**
+ * Ajuste de estoque em massa para {@code POST /api/products/bulk/stock}: {@code delta} somado ao estoque atual.
+ */
+public record BulkStockUpdateRequest(
+        Integer delta,
+        ProductBulkFilter filter
+) implements Serializable {
+}
@@ -0,0 +1,17 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+
+/**
+ * Resultado de uma atualização em massa.
+ *
+ * {@code updated} é a contagem de linhas do UPDATE; produtos do filtro que
+ * ficariam com preço não positivo ou estoque negativo não são alterados.
+ * {@code changeSeq} é a sequência gravada nos produtos alterados
+ * ({@code null} quando nada mudou ou quando o ajuste virou movimentações do livro de estoque).
+ */
+public record BulkUpdateResultDto(
+        int updated,
+        Long changeSeq
+) implements Serializable {
+}
@@ -0,0 +1,21 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Visão 360 do cliente: dados cadastrais, uma página de pedidos com totais e o
+ * valor acumulado (lifetime value) — em uma única requisição.
+ *
+ * {@code lifetimeValue} soma os itens dos pedidos {@code FINALIZADO}.
+ */
+public record CustomerOverviewDto(
+        CustomerDto customer,
+        List<OrderSummaryDto> orders,
+        int page,
+        int size,
+        long totalOrders,
+        BigDecimal lifetimeValue
+) implements Serializable {
+}
@@ -0,0 +1,25 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import br.com.springboot.erp.model.entity.Status;
+
+/**
+ * Contagens de produtos, clientes e pedidos (total e por status), mantidas em memória.
+ *
+ * {@code lastDrift} é a diferença corrigida na última conferência com o banco;
+ * {@code skippedReconciliations} conta as conferências adiadas por escritas concorrentes.
+ */
+public record EntityCountsDto(
+        long products,
+        long customers,
+        long orders,
+        Map<Status, Long> ordersByStatus,
+        LocalDateTime reconciledAt,
+        long lastDrift,
+        long reconciliations,
+        long skippedReconciliations
+) implements Serializable {
+}
@@ -0,0 +1,26 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Versão de uma entidade (coluna {@code version} + {@code updated_at}),
+ * consultada sem carregar a entidade completa para responder GETs condicionais.
+ */
+public record EntityVersion(Long version, LocalDateTime updatedAt) implements Serializable {
+
+    /**
+     * ETag forte derivado da versão, ou {@code null} quando a entidade ainda não tem versão.
+     */
+    public String eTag() {
+        return version != null ? "\"" + version + "\"" : null;
+    }
+
+    /**
+     * Instante da última alteração em milissegundos, ou {@code -1} quando desconhecido.
+     */
+    public long lastModified() {
+        return updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+}
@@ -0,0 +1,24 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Métricas do arquivamento de pedidos encerrados.
+ *
+ * {@code archiveHits} conta as buscas por id/número que não acharam o pedido na
+ * tabela quente e foram respondidas pelo arquivo.
+ */
+public record OrderArchiveStatsDto(
+        boolean enabled,
+        int afterDays,
+        long runs,
+        long batches,
+        long archivedOrders,
+        long archivedItems,
+        long archiveHits,
+        LocalDateTime lastRunAt,
+        long lastRunArchived,
+        long lastRunDurationMillis
+) implements Serializable {
+}
@@ -12,7 +12,8 @@ public record OrderDto(
         String orderNumber,
         LocalDateTime orderDate,
         Status status,
-        BigDecimal totalAmount
+        BigDecimal totalAmount,
+        Integer itemCount
 ) implements Serializable {
 
     public static OrderDto from(Order order) {
@@ -21,7 +22,8 @@ public record OrderDto(
                 order.getOrderNumber(),
                 order.getOrderDate(),
                 order.getStatus(),
-                order.getTotalAmount()
+                order.getTotalAmount(),
+                order.getItemCount()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import br.com.springboot.erp.model.entity.Status;
+
+/**
+ * Resumo de pedido com total e quantidade de itens lidos das colunas mantidas
+ * em {@code orders} (sem ler {@code order_items}).
+ */
+public record OrderSummaryDto(
+        Long id,
+        String orderNumber,
+        LocalDateTime orderDate,
+        Status status,
+        BigDecimal itemsTotal,
+        Long itemCount
+) implements Serializable {
+
+    public OrderSummaryDto {
+        // pedido gravado sem passar pelo serviço pode ter as colunas nulas
+        itemsTotal = itemsTotal != null ? itemsTotal : BigDecimal.ZERO;
+        itemCount = itemCount != null ? itemCount : 0L;
+    }
+
+    // construtor da consulta JPQL: item_count é inteiro na entidade
+    public OrderSummaryDto(Long id, String orderNumber, LocalDateTime orderDate, Status status,
+                           BigDecimal itemsTotal, Integer itemCount) {
+        this(id, orderNumber, orderDate, status, itemsTotal, itemCount != null ? itemCount.longValue() : null);
+    }
+}
@@ -0,0 +1,23 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Métricas da varredura de pedidos pendentes abandonados.
+ *
+ * {@code throttledPauses} conta as esperas extras feitas porque o pool de
+ * conexões estava ocupado com tráfego de primeiro plano.
+ */
+public record PendingOrderSweepStatsDto(
+        boolean enabled,
+        long maxAgeMillis,
+        long runs,
+        long batches,
+        long cancelledOrders,
+        long throttledPauses,
+        LocalDateTime lastRunAt,
+        long lastRunCancelled,
+        long lastRunDurationMillis
+) implements Serializable {
+}
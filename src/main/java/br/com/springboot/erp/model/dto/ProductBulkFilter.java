@@ -0,0 +1,27 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Seleção de produtos das atualizações em massa; critérios informados são combinados com E.
+ *
+ * - {@code minPrice}/{@code maxPrice}: faixa de preço (inclusiva).
+ * - {@code skuPrefix}: SKUs que começam com o prefixo.
+ * - {@code ids}: lista explícita de produtos.
+ */
+public record ProductBulkFilter(
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        String skuPrefix,
+        List<Long> ids
+) implements Serializable {
+
+    /**
+     * Nenhum critério informado: a operação alcançaria o catálogo inteiro.
+     */
+    public boolean isEmpty() {
+        return minPrice == null && maxPrice == null && (skuPrefix == null || skuPrefix.isEmpty()) && ids == null;
+    }
+}
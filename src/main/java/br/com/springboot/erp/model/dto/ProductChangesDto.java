@@ -0,0 +1,19 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Página de alterações do catálogo desde uma sequência.
+ *
+ * O cliente guarda {@code nextSince} e o envia na próxima consulta; enquanto
+ * {@code hasMore} for verdadeiro, há novas páginas disponíveis imediatamente.
+ */
+public record ProductChangesDto(
+        long since,
+        long nextSince,
+        boolean hasMore,
+        List<ProductDto> upserts,
+        List<Long> deletedIds
+) implements Serializable {
+}
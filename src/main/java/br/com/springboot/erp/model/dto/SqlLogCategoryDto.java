@@ -0,0 +1,19 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+
+/**
+ * Categoria do log de SQL amostrado.
+ *
+ * {@code sampleRate} registra 1 comando a cada N (0 = desligado);
+ * {@code loggerEnabled} indica se o logger {@code erp.sql.<categoria>} aceita INFO.
+ * {@code seen} e {@code logged} contam os comandos vistos e os registrados.
+ */
+public record SqlLogCategoryDto(
+        String category,
+        int sampleRate,
+        boolean loggerEnabled,
+        long seen,
+        long logged
+) implements Serializable {
+}
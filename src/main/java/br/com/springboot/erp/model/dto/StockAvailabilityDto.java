@@ -0,0 +1,14 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+
+/**
+ * Disponível para promessa de um produto: estoque físico menos o reservado por pedidos pendentes.
+ */
+public record StockAvailabilityDto(
+        Long productId,
+        int onHand,
+        int reserved,
+        int available
+) implements Serializable {
+}
@@ -0,0 +1,20 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+
+/**
+ * Estado do buffer de escrita adiada de estoque.
+ *
+ * {@code flushLagMillis} é a idade da alteração pendente mais antiga, ou seja,
+ * quanto o banco está atrasado em relação ao valor já visível nas leituras.
+ */
+public record StockBufferStatsDto(
+        boolean enabled,
+        int pendingProducts,
+        long flushLagMillis,
+        long coalescedUpdates,
+        long flushedRows,
+        long flushes,
+        long lastFlushDurationMillis
+) implements Serializable {
+}
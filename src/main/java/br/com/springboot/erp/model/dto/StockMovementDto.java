@@ -0,0 +1,28 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+import br.com.springboot.erp.model.entity.StockMovement;
+import br.com.springboot.erp.model.entity.StockMovementReason;
+
+public record StockMovementDto(
+        Long id,
+        Long productId,
+        Integer delta,
+        StockMovementReason reason,
+        Long orderId,
+        LocalDateTime createdAt
+) implements Serializable {
+
+    public static StockMovementDto from(StockMovement movement) {
+        return new StockMovementDto(
+                movement.getId(),
+                movement.getProductId(),
+                movement.getDelta(),
+                movement.getReason(),
+                movement.getOrderId(),
+                movement.getCreatedAt()
+        );
+    }
+}
@@ -0,0 +1,23 @@
+package br.com.springboot.erp.model.dto;
+
+import java.io.Serializable;
+
+/**
+ * Política de transação de uma operação e suas métricas.
+ *
+ * {@code lockTimeouts} conta esperas de lock esgotadas e {@code deadlocks} as
+ * transações escolhidas como vítima; {@code retries} as novas tentativas feitas
+ * após essas falhas. Tempos em microssegundos, incluindo as novas tentativas.
+ */
+public record TransactionPolicyStatsDto(
+        String operation,
+        String policy,
+        long invocations,
+        long failures,
+        long lockTimeouts,
+        long deadlocks,
+        long retries,
+        long avgMicros,
+        long maxMicros
+) implements Serializable {
+}
@@ -1,5 +1,6 @@
 package br.com.springboot.erp.model.entity;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,11 +10,17 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 
+import org.hibernate.annotations.DynamicUpdate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import lombok.Data;
@@ -21,8 +28,11 @@ import lombok.NoArgsConstructor;
 
 /**
  * Entidade que representa um cliente.
+ *
+ * {@code @DynamicUpdate}: o UPDATE inclui só as colunas alteradas.
  */
 @Entity
+@DynamicUpdate
 @Table(name = "customers")
 @Data
 @NoArgsConstructor
@@ -48,4 +58,20 @@ public class Customer {
     @JsonManagedReference
     private List<Order> orders = new ArrayList<>();
 
+    // Controle de concorrência otimista; exposta aos clientes via ETag
+    @Version
+    @JsonIgnore
+    @Column(name = "version")
+    private Long version;
+
+    @JsonIgnore
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
 }
\ No newline at end of file
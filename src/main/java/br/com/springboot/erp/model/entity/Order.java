@@ -12,11 +12,17 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -25,13 +31,15 @@ import lombok.NoArgsConstructor;
  * Entidade que representa um pedido.
  */
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_status_id", columnList = "status, id"))
 @Data
 @NoArgsConstructor
 public class Order {
 
+    // Sequência com alocação em blocos: ids sem ida ao banco e inserts em lote (IDENTITY impede o batch)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "order_number", unique = true)
@@ -50,9 +58,23 @@ public class Order {
     @OneToMany(mappedBy = "order")
     private List<OrderItem> items = new ArrayList<>();
 
+    // total e quantidade de itens mantidos a cada alteração de item: listagens não leem order_items
     @Column(name = "total_amount")
     private BigDecimal totalAmount;
 
+    @Column(name = "item_count")
+    private Integer itemCount = 0;
+
+    // Controle de concorrência otimista; exposta aos clientes via ETag
+    @Version
+    @JsonIgnore
+    @Column(name = "version")
+    private Long version;
+
+    @JsonIgnore
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     public BigDecimal calculateTotal() {
         // Não considera descontos ou impostos
         BigDecimal total = BigDecimal.ZERO;
@@ -73,4 +95,10 @@ public class Order {
     public Status getStatus() {
         return status;
     }
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
 }
\ No newline at end of file
@@ -1,18 +1,26 @@
 package br.com.springboot.erp.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * Entidade que representa um produto.
+ *
+ * {@code @DynamicUpdate}: o UPDATE inclui só as colunas alteradas (PATCH de um
+ * campo não reescreve a linha inteira).
  */
 @Entity
-@Table(name = "products")
+@DynamicUpdate
+@Table(name = "products", indexes = @Index(name = "idx_products_change_seq", columnList = "change_seq"))
 @Data
 @NoArgsConstructor
 public class Product {
@@ -38,10 +46,35 @@ public class Product {
     @Column(name = "sku", unique = true)
     private String sku;
 
+    // Limite de estoque baixo específico do produto (nulo = limite global)
+    @Column(name = "low_stock_threshold")
+    private Integer lowStockThreshold;
+
+    // Controle de concorrência otimista; exposta aos clientes via ETag
+    @Version
+    @JsonIgnore
+    @Column(name = "version")
+    private Long version;
+
+    @JsonIgnore
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // Sequência da última escrita (sincronização incremental do catálogo)
+    @JsonIgnore
+    @Column(name = "change_seq")
+    private Long changeSeq;
+
     public BigDecimal calculateTotalValue() {
         if (stock == null || price == null) {
             return BigDecimal.ZERO;
         }
         return price.multiply(new BigDecimal(stock));
     }
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
 }
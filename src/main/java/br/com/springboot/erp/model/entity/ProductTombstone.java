@@ -0,0 +1,36 @@
+package br.com.springboot.erp.model.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Registro de exclusão de produto, mantido para que clientes em sincronização
+ * incremental saibam quais itens remover.
+ */
+@Entity
+@Table(name = "product_tombstones", indexes = @Index(name = "idx_tombstones_change_seq", columnList = "change_seq"))
+@Data
+@NoArgsConstructor
+public class ProductTombstone {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "sku")
+    private String sku;
+
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,47 @@
+package br.com.springboot.erp.model.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Movimentação de estoque: variação com sinal, nunca alterada depois de gravada.
+ *
+ * O identificador é atribuído pelo {@code StockLedger} (sequência monotônica),
+ * o que permite que os snapshots registrem até qual movimentação já somaram.
+ */
+@Entity
+@Table(name = "stock_movements", indexes = @Index(name = "idx_stock_movements_product", columnList = "product_id, id"))
+@Data
+@NoArgsConstructor
+public class StockMovement {
+
+    @Id
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "delta", nullable = false)
+    private Integer delta;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reason", nullable = false)
+    private StockMovementReason reason;
+
+    // Pedido que originou a movimentação (vendas)
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
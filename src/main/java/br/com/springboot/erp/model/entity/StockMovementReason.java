@@ -0,0 +1,11 @@
+package br.com.springboot.erp.model.entity;
+
+/**
+ * Motivo de uma movimentação de estoque.
+ */
+public enum StockMovementReason {
+
+    SALDO_INICIAL,
+    AJUSTE,
+    VENDA;
+}
@@ -0,0 +1,35 @@
+package br.com.springboot.erp.model.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Saldo consolidado de um produto até a movimentação {@code lastMovementId}.
+ * Estoque atual = saldo do snapshot + soma das movimentações posteriores.
+ */
+@Entity
+@Table(name = "stock_snapshots")
+@Data
+@NoArgsConstructor
+public class StockSnapshot {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "stock", nullable = false)
+    private Integer stock;
+
+    @Column(name = "last_movement_id", nullable = false)
+    private Long lastMovementId;
+
+    @Column(name = "taken_at")
+    private LocalDateTime takenAt;
+}
@@ -0,0 +1,19 @@
+package br.com.springboot.erp.model.event;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Evento emitido quando o estoque de um produto cruza o limite mínimo,
+ * para baixo ({@code low = true}) ou de volta para cima ({@code low = false}).
+ */
+public record LowStockEvent(
+        Long productId,
+        String sku,
+        String name,
+        Integer stock,
+        int threshold,
+        boolean low,
+        LocalDateTime occurredAt
+) implements Serializable {
+}
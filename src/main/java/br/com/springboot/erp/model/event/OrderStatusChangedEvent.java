@@ -0,0 +1,21 @@
+package br.com.springboot.erp.model.event;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import br.com.springboot.erp.model.entity.Status;
+
+/**
+ * Evento emitido quando um pedido muda de status (ex.: {@code PENDENTE} → {@code FINALIZADO}).
+ */
+public record OrderStatusChangedEvent(
+        Long orderId,
+        String orderNumber,
+        Long customerId,
+        Status previousStatus,
+        Status status,
+        BigDecimal totalAmount,
+        LocalDateTime occurredAt
+) implements Serializable {
+}
@@ -1,5 +1,6 @@
 package br.com.springboot.erp.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,12 +16,41 @@ public interface BaseRepository<T, ID> {
     Optional<T> findById(ID id);
     
     List<T> findAll();
+
+    /**
+     * Busca várias entidades, na ordem dos ids informados (ids inexistentes são ignorados).
+     * Entidades já no contexto de persistência não são consultadas; as demais vêm em
+     * consultas {@code IN} por blocos.
+     */
+    List<T> findAllById(Collection<ID> ids);
     
     void delete(T entity);
     
+    /**
+     * Remove por um DELETE JPQL direto, sem carregar a entidade. Por não passar pelo
+     * contexto de persistência, não aplica cascatas ({@code CascadeType.REMOVE},
+     * {@code orphanRemoval}), não chama listeners nem callbacks ({@code @PreRemove},
+     * {@code @PostRemove}) e não checa a versão.
+     */
     void deleteById(ID id);
-    
+
+    /**
+     * Remove os ids com DELETEs em blocos de até {@code IN_CHUNK_SIZE}, sem carregar as
+     * entidades (mesmas ressalvas de {@link #deleteById(Object)}).
+     *
+     * @return linhas removidas
+     */
+    int deleteAllByIdInBatch(Collection<ID> ids);
+
+    /**
+     * Verifica a existência com {@code SELECT 1}, sem carregar a entidade.
+     */
     boolean existsById(ID id);
     
     long count();
+
+    /**
+     * Sincroniza o contexto de persistência com o banco (versão e colunas geradas ficam atualizadas).
+     */
+    void flush();
 }
\ No newline at end of file
@@ -1,17 +1,29 @@
 package br.com.springboot.erp.repository;
 
+import java.io.Serializable;
 import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EntityType;
 
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -20,11 +32,20 @@ import org.springframework.transaction.annotation.Transactional;
  * @param <ID> Tipo do identificador da entidade
  */
 public abstract class BaseRepositoryImpl<T, ID> implements BaseRepository<T, ID> {
+
+    /**
+     * Parâmetros por consulta {@code IN}; com o padding do Hibernate cada bloco tem
+     * no máximo log2(512) + 1 formatos diferentes.
+     */
+    protected static final int IN_CHUNK_SIZE = 512;
     
     @PersistenceContext
     protected EntityManager entityManager;
     
     private final Class<T> entityClass;
+
+    // nome da entidade e do atributo id para as consultas JPQL, resolvidos no primeiro uso
+    private volatile EntityNames names;
     
     @SuppressWarnings("unchecked")
     public BaseRepositoryImpl() {
@@ -53,6 +74,49 @@ public abstract class BaseRepositoryImpl<T, ID> implements BaseRepository<T, ID>
         return query.getResultList();
     }
     
+    @Override
+    public List<T> findAllById(Collection<ID> ids) {
+        Set<ID> distinct = new LinkedHashSet<>(ids);
+        distinct.remove(null);
+        Map<Object, T> found = new HashMap<>();
+        List<ID> misses = new ArrayList<>();
+        SharedSessionContractImplementor session = currentSession();
+        EntityPersister persister = session != null
+                ? session.getFactory().getMetamodel().entityPersister(entityClass)
+                : null;
+        for (ID id : distinct) {
+            Object managed = session != null ? session.getPersistenceContextInternal()
+                    .getEntity(session.generateEntityKey((Serializable) id, persister)) : null;
+            if (managed != null) {
+                found.put(id, entityClass.cast(managed));
+            } else {
+                misses.add(id);
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            EntityNames names = names();
+            String jpql = "SELECT e FROM " + names.entity() + " e WHERE e." + names.id() + " IN (:ids)";
+            EntityManagerFactory factory = entityManager.getEntityManagerFactory();
+            for (List<ID> chunk : chunks(misses)) {
+                TypedQuery<T> query = entityManager.createQuery(jpql, entityClass);
+                query.setParameter("ids", chunk);
+                for (T entity : query.getResultList()) {
+                    found.put(factory.getPersistenceUnitUtil().getIdentifier(entity), entity);
+                }
+            }
+        }
+
+        List<T> result = new ArrayList<>(found.size());
+        for (ID id : distinct) {
+            T entity = found.get(id);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+    
     @Override
     @Transactional
     public void delete(T entity) {
@@ -62,12 +126,39 @@ public abstract class BaseRepositoryImpl<T, ID> implements BaseRepository<T, ID>
     @Override
     @Transactional
     public void deleteById(ID id) {
-        findById(id).ifPresent(this::delete);
+        deleteAllByIdInBatch(List.of(id));
+    }
+
+    @Override
+    @Transactional
+    public int deleteAllByIdInBatch(Collection<ID> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        EntityNames names = names();
+        String jpql = "DELETE FROM " + names.entity() + " e WHERE e." + names.id() + " IN (:ids)";
+        int deleted = 0;
+        for (List<ID> chunk : chunks(new ArrayList<>(ids))) {
+            deleted += entityManager.createQuery(jpql)
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+        // o DELETE não passa pelo contexto de persistência: instâncias já gerenciadas sairiam velhas
+        for (ID id : ids) {
+            entityManager.detach(entityManager.getReference(entityClass, id));
+        }
+        return deleted;
     }
     
     @Override
     public boolean existsById(ID id) {
-        return findById(id).isPresent();
+        EntityNames names = names();
+        return !entityManager.createQuery(
+                "SELECT 1 FROM " + names.entity() + " e WHERE e." + names.id() + " = :id", Integer.class)
+                .setParameter("id", id)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
     }
     
     @Override
@@ -77,4 +168,42 @@ public abstract class BaseRepositoryImpl<T, ID> implements BaseRepository<T, ID>
         cq.select(cb.count(cq.from(entityClass)));
         return entityManager.createQuery(cq).getSingleResult();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void flush() {
+        entityManager.flush();
+    }
+
+    /**
+     * Divide os valores em blocos de até {@link #IN_CHUNK_SIZE} para consultas {@code IN}.
+     */
+    protected static <V> List<List<V>> chunks(List<V> values) {
+        List<List<V>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(values.subList(from, Math.min(from + IN_CHUNK_SIZE, values.size())));
+        }
+        return chunks;
+    }
+
+    // sessão da transação corrente; fora dela cada consulta usa um contexto novo (vazio)
+    private SharedSessionContractImplementor currentSession() {
+        EntityManagerFactory factory = entityManager.getEntityManagerFactory();
+        EntityManager current = factory != null
+                ? EntityManagerFactoryUtils.getTransactionalEntityManager(factory)
+                : null;
+        return current != null ? current.unwrap(SharedSessionContractImplementor.class) : null;
+    }
+
+    private EntityNames names() {
+        EntityNames resolved = names;
+        if (resolved == null) {
+            EntityType<T> type = entityManager.getMetamodel().entity(entityClass);
+            resolved = new EntityNames(type.getName(), type.getId(type.getIdType().getJavaType()).getName());
+            names = resolved;
+        }
+        return resolved;
+    }
+
+    private record EntityNames(String entity, String id) {
+    }
+}
@@ -5,6 +5,7 @@ import java.util.Optional;
 
 import org.springframework.stereotype.Repository;
 
+import br.com.springboot.erp.model.dto.EntityVersion;
 import br.com.springboot.erp.model.entity.Customer;
 
 /**
@@ -18,5 +19,7 @@ public interface CustomerRepository extends BaseRepository<Customer, Long> {
     List<Customer> findByNameContaining(String name);
     
     List<Customer> findCustomersWithOrders();
+
+    Optional<EntityVersion> findVersionById(Long id);
        
 }
\ No newline at end of file
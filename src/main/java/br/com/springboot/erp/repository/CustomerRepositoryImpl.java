@@ -8,6 +8,7 @@ import javax.persistence.TypedQuery;
 
 import org.springframework.stereotype.Repository;
 
+import br.com.springboot.erp.model.dto.EntityVersion;
 import br.com.springboot.erp.model.entity.Customer;
 
 /**
@@ -47,4 +48,13 @@ public class CustomerRepositoryImpl extends BaseRepositoryImpl<Customer, Long> i
 		return allCustomers.stream().filter(c -> c.getOrders() != null && !c.getOrders().isEmpty()).distinct()
 				.collect(Collectors.toList());
 	}
+
+	@Override
+	public Optional<EntityVersion> findVersionById(Long id) {
+		TypedQuery<EntityVersion> query = entityManager.createQuery(
+				"SELECT new br.com.springboot.erp.model.dto.EntityVersion(c.version, c.updatedAt) "
+						+ "FROM Customer c WHERE c.id = :id", EntityVersion.class);
+		query.setParameter("id", id);
+		return query.getResultList().stream().findFirst();
+	}
 }
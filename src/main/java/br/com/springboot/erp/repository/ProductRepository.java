@@ -2,10 +2,15 @@ package br.com.springboot.erp.repository;
 
 import org.springframework.stereotype.Repository;
 
+import br.com.springboot.erp.model.dto.EntityVersion;
+import br.com.springboot.erp.model.dto.ProductBulkFilter;
 import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.ProductTombstone;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -16,10 +21,56 @@ public interface ProductRepository extends BaseRepository<Product, Long> {
 
     Optional<Product> findBySku(String sku);
 
+    /**
+     * Busca vários produtos pelo SKU, na ordem informada, em consultas {@code IN} por blocos.
+     */
+    List<Product> findBySkus(Collection<String> skus);
+
     List<Product> findByPriceGreaterThan(BigDecimal minPrice);
 
     List<Product> searchByName(String name);
 
     List<Product> findProductsWithLowStock(Integer minStock);
 
+    Optional<EntityVersion> findVersionById(Long id);
+
+    List<Product> findChangedBetween(long since, long upTo, int limit);
+
+    List<ProductTombstone> findTombstonesBetween(long since, long upTo, int limit);
+
+    void saveTombstone(ProductTombstone tombstone);
+
+    /**
+     * SKU dos produtos existentes entre os ids, em uma consulta (o SKU pode ser {@code null}).
+     */
+    Map<Long, String> findSkusByIds(Collection<Long> ids);
+
+    /**
+     * Multiplica o preço dos produtos do filtro por {@code factor} (arredondado a 2 casas) em um único UPDATE.
+     * Produtos cujo preço deixaria de ser positivo não são alterados.
+     *
+     * @return linhas alteradas
+     */
+    int scalePrices(ProductBulkFilter filter, BigDecimal factor, long changeSeq);
+
+    /**
+     * Soma {@code amount} ao preço dos produtos do filtro em um único UPDATE (mesma restrição de {@link #scalePrices}).
+     */
+    int shiftPrices(ProductBulkFilter filter, BigDecimal amount, long changeSeq);
+
+    /**
+     * Soma {@code delta} ao estoque dos produtos do filtro em um único UPDATE;
+     * produtos que ficariam com estoque negativo não são alterados.
+     */
+    int adjustStocks(ProductBulkFilter filter, int delta, long changeSeq);
+
+    List<Product> findByBulkFilter(ProductBulkFilter filter);
+
+    List<Long> findIdsByChangeSeq(long changeSeq);
+
+    /**
+     * Produtos alterados com a sequência cujo estoque cruzou o limite de estoque baixo com o ajuste {@code delta}.
+     */
+    List<Product> findLowStockCrossings(long changeSeq, int delta, Integer minStock);
+
 }
@@ -1,13 +1,23 @@
 package br.com.springboot.erp.repository;
 
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import br.com.springboot.erp.model.dto.EntityVersion;
+import br.com.springboot.erp.model.dto.ProductBulkFilter;
 import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.ProductTombstone;
 
 import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -29,6 +39,27 @@ public class ProductRepositoryImpl extends BaseRepositoryImpl<Product, Long> imp
         }
     }
 
+    @Override
+    public List<Product> findBySkus(Collection<String> skus) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(skus));
+        distinct.remove(null);
+        Map<String, Product> found = new HashMap<>();
+        for (List<String> chunk : chunks(distinct)) {
+            TypedQuery<Product> query = entityManager.createQuery(
+                    "SELECT p FROM Product p WHERE p.sku IN (:skus)", Product.class);
+            query.setParameter("skus", chunk);
+            query.getResultList().forEach(product -> found.put(product.getSku(), product));
+        }
+        List<Product> products = new ArrayList<>(found.size());
+        for (String sku : distinct) {
+            Product product = found.get(sku);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
     @Override
     public List<Product> findByPriceGreaterThan(BigDecimal minPrice) {
         TypedQuery<Product> query = entityManager.createQuery(
@@ -48,8 +79,157 @@ public class ProductRepositoryImpl extends BaseRepositoryImpl<Product, Long> imp
     @Override
     public List<Product> findProductsWithLowStock(Integer minStock) {
         TypedQuery<Product> query = entityManager.createQuery(
-                "SELECT p FROM Product p WHERE p.stock < :minStock", Product.class);
+                "SELECT p FROM Product p WHERE p.stock < COALESCE(p.lowStockThreshold, :minStock)", Product.class);
         query.setParameter("minStock", minStock);
         return query.getResultList();
     }
+
+    @Override
+    public Optional<EntityVersion> findVersionById(Long id) {
+        TypedQuery<EntityVersion> query = entityManager.createQuery(
+                "SELECT new br.com.springboot.erp.model.dto.EntityVersion(p.version, p.updatedAt) "
+                        + "FROM Product p WHERE p.id = :id", EntityVersion.class);
+        query.setParameter("id", id);
+        return query.getResultList().stream().findFirst();
+    }
+
+    @Override
+    public List<Product> findChangedBetween(long since, long upTo, int limit) {
+        TypedQuery<Product> query = entityManager.createQuery(
+                "SELECT p FROM Product p WHERE p.changeSeq > :since AND p.changeSeq <= :upTo "
+                        + "ORDER BY p.changeSeq", Product.class);
+        query.setParameter("since", since);
+        query.setParameter("upTo", upTo);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<ProductTombstone> findTombstonesBetween(long since, long upTo, int limit) {
+        TypedQuery<ProductTombstone> query = entityManager.createQuery(
+                "SELECT t FROM ProductTombstone t WHERE t.changeSeq > :since AND t.changeSeq <= :upTo "
+                        + "ORDER BY t.changeSeq", ProductTombstone.class);
+        query.setParameter("since", since);
+        query.setParameter("upTo", upTo);
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+
+    @Override
+    @Transactional
+    public void saveTombstone(ProductTombstone tombstone) {
+        entityManager.merge(tombstone);
+    }
+
+    @Override
+    public Map<Long, String> findSkusByIds(Collection<Long> ids) {
+        Map<Long, String> skus = new HashMap<>();
+        if (ids.isEmpty()) {
+            return skus;
+        }
+        for (List<Long> chunk : chunks(new ArrayList<>(ids))) {
+            TypedQuery<Object[]> query = entityManager.createQuery(
+                    "SELECT p.id, p.sku FROM Product p WHERE p.id IN (:ids)", Object[].class);
+            query.setParameter("ids", chunk);
+            for (Object[] row : query.getResultList()) {
+                skus.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return skus;
+    }
+
+    @Override
+    public int scalePrices(ProductBulkFilter filter, BigDecimal factor, long changeSeq) {
+        return bulkUpdate("price = ROUND(price * :value, 2)", "ROUND(price * :value, 2) > 0", filter, factor,
+                changeSeq);
+    }
+
+    @Override
+    public int shiftPrices(ProductBulkFilter filter, BigDecimal amount, long changeSeq) {
+        return bulkUpdate("price = price + :value", "price + :value > 0", filter, amount, changeSeq);
+    }
+
+    @Override
+    public int adjustStocks(ProductBulkFilter filter, int delta, long changeSeq) {
+        return bulkUpdate("stock = stock + :value", "stock + :value >= 0", filter, delta, changeSeq);
+    }
+
+    @Override
+    public List<Product> findByBulkFilter(ProductBulkFilter filter) {
+        TypedQuery<Product> query = entityManager.createQuery(
+                "SELECT p FROM Product p WHERE " + filterClause(filter, "p.") + " ORDER BY p.id", Product.class);
+        bindFilter(query, filter);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Long> findIdsByChangeSeq(long changeSeq) {
+        TypedQuery<Long> query = entityManager.createQuery(
+                "SELECT p.id FROM Product p WHERE p.changeSeq = :changeSeq", Long.class);
+        query.setParameter("changeSeq", changeSeq);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<Product> findLowStockCrossings(long changeSeq, int delta, Integer minStock) {
+        TypedQuery<Product> query = entityManager.createQuery(
+                "SELECT p FROM Product p WHERE p.changeSeq = :changeSeq AND ("
+                        + "(p.stock < COALESCE(p.lowStockThreshold, :minStock) "
+                        + "AND p.stock - :delta >= COALESCE(p.lowStockThreshold, :minStock)) OR "
+                        + "(p.stock >= COALESCE(p.lowStockThreshold, :minStock) "
+                        + "AND p.stock - :delta < COALESCE(p.lowStockThreshold, :minStock)))", Product.class);
+        query.setParameter("changeSeq", changeSeq);
+        query.setParameter("delta", delta);
+        query.setParameter("minStock", minStock);
+        return query.getResultList();
+    }
+
+    // UPDATE direto no banco: o contexto é gravado antes e limpo depois, para não guardar entidades velhas
+    private int bulkUpdate(String assignment, String guard, ProductBulkFilter filter, Object value, long changeSeq) {
+        entityManager.flush();
+        Query query = entityManager.createNativeQuery("UPDATE products SET " + assignment
+                + ", change_seq = :changeSeq, version = COALESCE(version, 0) + 1, updated_at = :now"
+                + " WHERE " + guard + " AND " + filterClause(filter, ""));
+        query.setParameter("value", value);
+        query.setParameter("changeSeq", changeSeq);
+        query.setParameter("now", LocalDateTime.now());
+        bindFilter(query, filter);
+        int updated = query.executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+
+    // id, price e sku têm o mesmo nome na entidade e na tabela: a cláusula serve a JPQL ("p.") e a SQL ("")
+    private static String filterClause(ProductBulkFilter filter, String alias) {
+        StringBuilder clause = new StringBuilder("1 = 1");
+        if (filter.minPrice() != null) {
+            clause.append(" AND ").append(alias).append("price >= :minPrice");
+        }
+        if (filter.maxPrice() != null) {
+            clause.append(" AND ").append(alias).append("price <= :maxPrice");
+        }
+        if (filter.skuPrefix() != null && !filter.skuPrefix().isEmpty()) {
+            clause.append(" AND ").append(alias).append("sku LIKE :skuPrefix ESCAPE '\\'");
+        }
+        if (filter.ids() != null) {
+            clause.append(" AND ").append(alias).append("id IN (:ids)");
+        }
+        return clause.toString();
+    }
+
+    private static void bindFilter(Query query, ProductBulkFilter filter) {
+        if (filter.minPrice() != null) {
+            query.setParameter("minPrice", filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            query.setParameter("maxPrice", filter.maxPrice());
+        }
+        if (filter.skuPrefix() != null && !filter.skuPrefix().isEmpty()) {
+            String escaped = filter.skuPrefix().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            query.setParameter("skuPrefix", escaped + "%");
+        }
+        if (filter.ids() != null) {
+            query.setParameter("ids", filter.ids());
+        }
+    }
 }
@@ -0,0 +1,149 @@
+package br.com.springboot.erp.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Executa listas de operações agrupadas em transações ("chunks").
+ *
+ * Cada chunk roda em uma única transação. Se uma operação falhar, o chunk é
+ * desfeito e reexecutado item a item, cada um em sua transação, isolando a
+ * falha sem perder as demais operações do chunk.
+ */
+@Component
+public class ChunkedTransactionExecutor {
+
+    private final TransactionTemplate tx;
+
+    private final TransactionTemplate readOnlyTx;
+
+    private final AsyncTaskExecutor executor;
+
+    private final int readParallelism;
+
+    public ChunkedTransactionExecutor(PlatformTransactionManager transactionManager,
+                                      @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+                                      @Value("${erp.batch.read-parallelism:8}") int readParallelism) {
+        this.tx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.executor = executor;
+        this.readParallelism = readParallelism;
+    }
+
+    /**
+     * Executa os itens em chunks de {@code chunkSize}; {@code onFailure} converte a exceção de um item em resultado.
+     */
+    public <T, R> List<R> executeInChunks(List<T> items, int chunkSize, Function<T, R> action,
+                                          BiFunction<T, RuntimeException, R> onFailure) {
+        List<R> results = new ArrayList<>(items.size());
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+            try {
+                results.addAll(tx.execute(status -> {
+                    List<R> chunkResults = new ArrayList<>(chunk.size());
+                    for (T item : chunk) {
+                        chunkResults.add(action.apply(item));
+                    }
+                    return chunkResults;
+                }));
+            } catch (RuntimeException chunkFailure) {
+                for (T item : chunk) {
+                    results.add(executeOne(item, action, onFailure));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Executa leituras independentes em paralelo, cada uma em transação somente leitura,
+     * limitadas a {@code erp.batch.read-parallelism} simultâneas. A falha de uma leitura
+     * (inclusive interrupção) vira o resultado de {@code onFailure}, sem abortar as demais.
+     */
+    public <T, R> List<R> executeReadsInParallel(List<T> items, Function<T, R> action,
+                                                 BiFunction<T, RuntimeException, R> onFailure) {
+        // a permissão é tomada antes do envio: leituras em espera não ocupam threads do executor
+        Semaphore permits = new Semaphore(readParallelism);
+        List<Future<R>> futures = new ArrayList<>(items.size());
+        boolean interrupted = false;
+        for (T item : items) {
+            if (!interrupted) {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    interrupted = true;
+                }
+            }
+            // interrompido: os itens restantes não são enviados
+            futures.add(interrupted ? null : submitRead(item, action, onFailure, permits));
+        }
+
+        List<R> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            results.add(await(items.get(i), futures.get(i), onFailure));
+        }
+        return results;
+    }
+
+    private <T, R> Future<R> submitRead(T item, Function<T, R> action, BiFunction<T, RuntimeException, R> onFailure,
+                                        Semaphore permits) {
+        try {
+            return executor.submit(() -> {
+                try {
+                    return readOnlyTx.execute(status -> action.apply(item));
+                } catch (RuntimeException ex) {
+                    return onFailure.apply(item, ex);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException rejected) {
+            permits.release();
+            return CompletableFuture.completedFuture(onFailure.apply(item, rejected));
+        }
+    }
+
+    // leitura que falhou, foi cancelada ou não chegou a rodar vira resultado de falha
+    private <T, R> R await(T item, Future<R> future, BiFunction<T, RuntimeException, R> onFailure) {
+        if (future == null) {
+            return onFailure.apply(item, new CancellationException("Lote interrompido"));
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return onFailure.apply(item, new CancellationException("Lote interrompido"));
+        } catch (CancellationException ex) {
+            return onFailure.apply(item, ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            return onFailure.apply(item, cause instanceof RuntimeException runtime ? runtime
+                    : new IllegalStateException(cause));
+        }
+    }
+
+    private <T, R> R executeOne(T item, Function<T, R> action, BiFunction<T, RuntimeException, R> onFailure) {
+        try {
+            return tx.execute(status -> action.apply(item));
+        } catch (RuntimeException ex) {
+            return onFailure.apply(item, ex);
+        }
+    }
+}
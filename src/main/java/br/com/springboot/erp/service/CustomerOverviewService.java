@@ -0,0 +1,15 @@
+package br.com.springboot.erp.service;
+
+import br.com.springboot.erp.model.dto.CustomerOverviewDto;
+
+/**
+ * Serviço de leitura agregada do cliente (cliente + pedidos + totais).
+ */
+public interface CustomerOverviewService {
+
+    /**
+     * Monta a visão do cliente; lança {@link java.util.NoSuchElementException} se o cliente não existir
+     * e {@link org.springframework.dao.QueryTimeoutException} se o prazo for excedido.
+     */
+    CustomerOverviewDto getOverview(Long customerId, int page, int size);
+}
@@ -0,0 +1,150 @@
+package br.com.springboot.erp.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.model.dto.CustomerDto;
+import br.com.springboot.erp.model.dto.CustomerOverviewDto;
+import br.com.springboot.erp.model.dto.OrderSummaryDto;
+import br.com.springboot.erp.model.entity.Status;
+import br.com.springboot.erp.repository.CustomerRepository;
+
+/**
+ * Implementação da visão 360 do cliente.
+ *
+ * As consultas independentes (cliente, página de pedidos, contagem e lifetime
+ * value) rodam em paralelo no executor assíncrono — virtual threads no modo
+ * {@code VIRTUAL} — dentro de um {@link SubtaskScope} com prazo. Cada subtarefa
+ * usa sua própria transação somente leitura. Os totais da página vêm das
+ * colunas {@code total_amount}/{@code item_count} do pedido e o lifetime value
+ * de um SUM no banco, em vez de {@code Order.calculateTotal()} por pedido.
+ * Página, contagem e lifetime value incluem os pedidos arquivados
+ * ({@code orders_archive}/{@code order_items_archive}).
+ */
+@Service
+public class CustomerOverviewServiceImpl implements CustomerOverviewService {
+
+    static final int MAX_PAGE_SIZE = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final CustomerRepository customerRepository;
+
+    private final AsyncTaskExecutor executor;
+
+    private final TransactionTemplate readOnlyTx;
+
+    private final Duration deadline;
+
+    public CustomerOverviewServiceImpl(CustomerRepository customerRepository,
+                                       @Qualifier("applicationTaskExecutor") AsyncTaskExecutor executor,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${erp.customer-overview.deadline-ms:2000}") long deadlineMillis) {
+        this.customerRepository = customerRepository;
+        this.executor = executor;
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.deadline = Duration.ofMillis(deadlineMillis);
+    }
+
+    @Override
+    public CustomerOverviewDto getOverview(Long customerId, int page, int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Parâmetros de paginação inválidos (page >= 0, 1 <= size <= "
+                    + MAX_PAGE_SIZE + ")");
+        }
+
+        try (SubtaskScope scope = new SubtaskScope(executor)) {
+            Future<CustomerDto> customer = scope.fork(() -> readOnly(() -> customerRepository.findById(customerId)
+                    .map(CustomerDto::from)
+                    .orElseThrow(() -> new NoSuchElementException("Cliente não encontrado: " + customerId))));
+            Future<List<OrderSummaryDto>> orders = scope.fork(() -> readOnly(() -> findOrderPage(customerId, page, size)));
+            Future<Long> totalOrders = scope.fork(() -> readOnly(() -> countOrders(customerId)));
+            Future<BigDecimal> lifetimeValue = scope.fork(() -> readOnly(() -> sumFinalizedItems(customerId)));
+
+            scope.join(deadline);
+
+            return new CustomerOverviewDto(customer.get(), orders.get(), page, size, totalOrders.get(),
+                    lifetimeValue.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Consulta interrompida", ex);
+        } catch (ExecutionException ex) {
+            // não ocorre: join() já repassou as falhas
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    // tabela quente e arquivo na mesma instrução (UNION ALL): um arquivamento concorrente
+    // não faz o pedido aparecer duas vezes nem sumir
+    @SuppressWarnings("unchecked")
+    private List<OrderSummaryDto> findOrderPage(Long customerId, int page, int size) {
+        List<Object[]> rows = entityManager.createNativeQuery(
+                "SELECT id, order_number, order_date, status, total_amount, item_count FROM ("
+                        + "SELECT id, order_number, order_date, status, total_amount, item_count FROM orders "
+                        + "WHERE customer_id = :customerId UNION ALL "
+                        + "SELECT id, order_number, order_date, status, total_amount, item_count FROM orders_archive "
+                        + "WHERE customer_id = :customerId) o "
+                        + "ORDER BY order_date DESC, id DESC")
+                .setParameter("customerId", customerId)
+                .setFirstResult(page * size)
+                .setMaxResults(size)
+                .getResultList();
+        return rows.stream().map(CustomerOverviewServiceImpl::toSummary).toList();
+    }
+
+    private Long countOrders(Long customerId) {
+        Number count = (Number) entityManager.createNativeQuery(
+                "SELECT COUNT(*) FROM ("
+                        + "SELECT id FROM orders WHERE customer_id = :customerId UNION ALL "
+                        + "SELECT id FROM orders_archive WHERE customer_id = :customerId) o")
+                .setParameter("customerId", customerId)
+                .getSingleResult();
+        return count.longValue();
+    }
+
+    private BigDecimal sumFinalizedItems(Long customerId) {
+        Number total = (Number) entityManager.createNativeQuery(
+                "SELECT SUM(subtotal) FROM ("
+                        + "SELECT i.subtotal FROM order_items i JOIN orders o ON o.id = i.order_id "
+                        + "WHERE o.customer_id = :customerId AND o.status = :status UNION ALL "
+                        + "SELECT i.subtotal FROM order_items_archive i JOIN orders_archive o ON o.id = i.order_id "
+                        + "WHERE o.customer_id = :customerId AND o.status = :status) t")
+                .setParameter("customerId", customerId)
+                .setParameter("status", Status.FINALIZADO.name())
+                .getSingleResult();
+        if (total == null) {
+            return BigDecimal.ZERO;
+        }
+        return total instanceof BigDecimal decimal ? decimal : new BigDecimal(total.toString());
+    }
+
+    private static OrderSummaryDto toSummary(Object[] row) {
+        Timestamp orderDate = (Timestamp) row[2];
+        return new OrderSummaryDto(((Number) row[0]).longValue(), (String) row[1],
+                orderDate != null ? orderDate.toLocalDateTime() : null,
+                row[3] != null ? Status.valueOf((String) row[3]) : null, (BigDecimal) row[4],
+                row[5] != null ? ((Number) row[5]).longValue() : null);
+    }
+
+    private <T> T readOnly(Supplier<T> query) {
+        return readOnlyTx.execute(status -> query.get());
+    }
+}
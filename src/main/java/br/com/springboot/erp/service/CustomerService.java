@@ -1,8 +1,10 @@
 package br.com.springboot.erp.service;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import br.com.springboot.erp.model.dto.EntityVersion;
 import br.com.springboot.erp.model.entity.Customer;
 
 /**
@@ -14,6 +16,8 @@ public interface CustomerService {
     
     Optional<Customer> findCustomerById(Long id);
     
+    Optional<EntityVersion> findCustomerVersion(Long id);
+    
     Optional<Customer> findCustomerByEmail(String email);
     
     List<Customer> findAllCustomers();
@@ -21,6 +25,14 @@ public interface CustomerService {
     List<Customer> searchCustomersByName(String name);
     
     Customer updateCustomer(Customer customer);
+
+    /**
+     * Aplica um JSON Merge Patch (RFC 7396) ao cliente; o UPDATE inclui só as colunas alteradas.
+     *
+     * @param expectedVersion versão exigida pelo {@code If-Match} ({@code null} = sem precondição)
+     * @return cliente atualizado, ou vazio se não existir
+     */
+    Optional<Customer> patchCustomer(Long customerId, Long expectedVersion, Map<String, Object> changes);
     
     void deleteCustomer(Long customerId);
     
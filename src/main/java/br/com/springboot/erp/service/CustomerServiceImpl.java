@@ -1,18 +1,26 @@
 package br.com.springboot.erp.service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.regex.Pattern;
 
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import br.com.springboot.erp.model.dto.EntityVersion;
 import br.com.springboot.erp.model.entity.Customer;
 import br.com.springboot.erp.repository.CustomerRepository;
 
 /**
  * Implementação do serviço para gerenciamento de clientes.
+ *
+ * Isolamento, propagação e novas tentativas das operações vêm de
+ * {@code erp.tx.policy.CustomerService.*} quando configurados
+ * (ver {@link br.com.springboot.erp.config.TransactionPolicies}).
  */
 @Service
 public class CustomerServiceImpl implements CustomerService {
@@ -21,22 +29,38 @@ public class CustomerServiceImpl implements CustomerService {
     
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
 
-    public CustomerServiceImpl(CustomerRepository customerRepository) {
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("name", "email", "phone");
+
+    private final EntityCountService entityCounts;
+
+    public CustomerServiceImpl(CustomerRepository customerRepository, EntityCountService entityCounts) {
         this.customerRepository = customerRepository;
+        this.entityCounts = entityCounts;
     }
 
     @Override
     @Transactional
     public Customer saveCustomer(Customer customer) {
-        return customerRepository.save(customer);
+        boolean created = customer.getId() == null;
+        Customer saved = customerRepository.save(customer);
+        if (created && saved != null) {
+            entityCounts.onCustomersChanged(1);
+        }
+        return saved;
     }
 
     @Override
-    @Transactional(readOnly = true, isolation = Isolation.SERIALIZABLE)
+    @Transactional(readOnly = true)
     public Optional<Customer> findCustomerById(Long id) {
         return customerRepository.findById(id);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<EntityVersion> findCustomerVersion(Long id) {
+        return customerRepository.findVersionById(id);
+    }
+
     @Override
     public Optional<Customer> findCustomerByEmail(String email) {
         return customerRepository.findByEmail(email);
@@ -55,10 +79,42 @@ public class CustomerServiceImpl implements CustomerService {
     }
 
     @Override
+    @Transactional
     public Customer updateCustomer(Customer customer) {   	
         return customerRepository.save(customer);        
     }
 
+    // entidade gerenciada + @DynamicUpdate: sem merge, o UPDATE leva só o que mudou (e a versão)
+    @Override
+    @Transactional
+    public Optional<Customer> patchCustomer(Long customerId, Long expectedVersion, Map<String, Object> changes) {
+        MergePatch patch = new MergePatch(changes, PATCHABLE_FIELDS);
+        Optional<Customer> customerOpt = customerRepository.findById(customerId);
+        if (customerOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        Customer customer = customerOpt.get();
+        if (expectedVersion != null && !expectedVersion.equals(customer.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Customer.class, customerId);
+        }
+        if (patch.has("name")) {
+            customer.setName(patch.text("name"));
+        }
+        if (patch.has("email")) {
+            String email = patch.text("email");
+            if (!Objects.equals(email, customer.getEmail()) && !validateCustomerEmail(email)) {
+                throw new IllegalArgumentException("E-mail inválido");
+            }
+            customer.setEmail(email);
+        }
+        if (patch.has("phone")) {
+            customer.setPhone(patch.text("phone"));
+        }
+        // Bean Validation roda no flush; a nova versão já sai na resposta
+        customerRepository.flush();
+        return Optional.of(customer);
+    }
+
     @Override
     @Transactional
     public void deleteCustomer(Long customerId) {
@@ -66,6 +122,7 @@ public class CustomerServiceImpl implements CustomerService {
         if (customerOpt.isPresent()) {
             Customer customer = customerOpt.get();
             customerRepository.delete(customer);
+            entityCounts.onCustomersChanged(-1);
         }
     }
 
@@ -0,0 +1,282 @@
+package br.com.springboot.erp.service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.model.dto.EntityCountsDto;
+import br.com.springboot.erp.model.entity.Status;
+import br.com.springboot.erp.model.event.OrderStatusChangedEvent;
+
+/**
+ * Contadores de produtos, clientes e pedidos por status, lidos da memória
+ * ({@code GET /api/stats/counts}) no lugar de um {@code SELECT COUNT(*)} por tela.
+ *
+ * - Criações, exclusões e mudanças de status registram um delta na transação
+ *   corrente; o delta só é aplicado após o commit (rollback o descarta).
+ * - Mudanças de status chegam pelo {@link OrderStatusChangedEvent}, ainda dentro
+ *   da transação que as publicou.
+ * - A cada {@code erp.counts.reconcile-interval-ms} os contadores são conferidos
+ *   com o banco (escritas fora dos serviços, como SQL manual, são corrigidas aí).
+ *   A conferência só sobrescreve os contadores se nenhum delta estava pendente
+ *   ou foi aplicado durante as consultas; caso contrário tenta de novo e, no
+ *   limite, fica para a próxima rodada.
+ * - Pedidos contam só a tabela quente ({@code orders}): o arquivamento desconta
+ *   os pedidos movidos para {@code orders_archive}.
+ */
+@Component
+public class EntityCountService {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityCountService.class);
+
+    private static final int RECONCILE_ATTEMPTS = 3;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate reconcileTx;
+    private final long reconcileIntervalMillis;
+
+    private final AtomicLong products = new AtomicLong();
+    private final AtomicLong customers = new AtomicLong();
+    private final Map<Status, AtomicLong> orders = new EnumMap<>(Status.class);
+
+    // deltas registrados em transações ainda abertas e deltas já aplicados
+    private final AtomicLong pendingDeltas = new AtomicLong();
+    private final AtomicLong appliedDeltas = new AtomicLong();
+    // deltas aplicam sob a leitura; a conferência troca os valores sob a escrita
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final AtomicLong reconciliations = new AtomicLong();
+    private final AtomicLong skippedReconciliations = new AtomicLong();
+    private volatile LocalDateTime reconciledAt;
+    private volatile long lastDrift;
+
+    private ScheduledExecutorService scheduler;
+
+    public EntityCountService(PlatformTransactionManager transactionManager,
+                              @Value("${erp.counts.reconcile-interval-ms:300000}") long reconcileIntervalMillis) {
+        // transação de escrita: uma somente leitura iria à réplica, possivelmente atrasada
+        this.reconcileTx = new TransactionTemplate(transactionManager);
+        this.reconcileTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reconcileIntervalMillis = reconcileIntervalMillis;
+        for (Status status : Status.values()) {
+            orders.put(status, new AtomicLong());
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (reconcileIntervalMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("entity-counts-"));
+            scheduler.scheduleWithFixedDelay(this::reconcileQuietly, 0, reconcileIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Produtos criados (delta positivo) ou excluídos (negativo) na transação corrente.
+     */
+    public void onProductsChanged(long delta) {
+        if (delta != 0) {
+            register(() -> products.addAndGet(delta));
+        }
+    }
+
+    /**
+     * Clientes criados (delta positivo) ou excluídos (negativo) na transação corrente.
+     */
+    public void onCustomersChanged(long delta) {
+        if (delta != 0) {
+            register(() -> customers.addAndGet(delta));
+        }
+    }
+
+    /**
+     * Pedidos que passaram de {@code previous} para {@code status} na transação
+     * corrente; {@code null} em {@code previous} é criação e em {@code status} é remoção.
+     */
+    public void onOrdersChanged(Status previous, Status status, long count) {
+        if (count == 0 || previous == status) {
+            return;
+        }
+        register(() -> {
+            if (previous != null) {
+                orders.get(previous).addAndGet(-count);
+            }
+            if (status != null) {
+                orders.get(status).addAndGet(count);
+            }
+        });
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        onOrdersChanged(event.previousStatus(), event.status(), 1);
+    }
+
+    /**
+     * Contagens atuais, lidas da memória (a primeira chamada antes de qualquer
+     * conferência consulta o banco).
+     */
+    public EntityCountsDto counts() {
+        if (reconciledAt == null) {
+            reconcile();
+        }
+        Map<Status, Long> byStatus = new EnumMap<>(Status.class);
+        long totalOrders = 0;
+        for (Map.Entry<Status, AtomicLong> entry : orders.entrySet()) {
+            long count = entry.getValue().get();
+            byStatus.put(entry.getKey(), count);
+            totalOrders += count;
+        }
+        return new EntityCountsDto(products.get(), customers.get(), totalOrders,
+                Collections.unmodifiableMap(byStatus), reconciledAt, lastDrift, reconciliations.get(),
+                skippedReconciliations.get());
+    }
+
+    /**
+     * Confere os contadores com o banco.
+     *
+     * @return {@code false} se escritas concorrentes impediram a conferência
+     */
+    public boolean reconcile() {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            long applied = appliedDeltas.get();
+            if (pendingDeltas.get() == 0) {
+                Snapshot snapshot = reconcileTx.execute(status -> load());
+                lock.writeLock().lock();
+                try {
+                    if (snapshot != null && pendingDeltas.get() == 0 && appliedDeltas.get() == applied) {
+                        replace(snapshot);
+                        return true;
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            if (attempt + 1 < RECONCILE_ATTEMPTS && !sleep(10L << attempt)) {
+                break;
+            }
+        }
+        skippedReconciliations.incrementAndGet();
+        return false;
+    }
+
+    private Snapshot load() {
+        long productCount = entityManager.createQuery("SELECT COUNT(p) FROM Product p", Long.class)
+                .getSingleResult();
+        long customerCount = entityManager.createQuery("SELECT COUNT(c) FROM Customer c", Long.class)
+                .getSingleResult();
+        Map<Status, Long> byStatus = new EnumMap<>(Status.class);
+        List<Object[]> rows = entityManager.createQuery(
+                "SELECT o.status, COUNT(o) FROM Order o GROUP BY o.status", Object[].class).getResultList();
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                byStatus.put((Status) row[0], (Long) row[1]);
+            }
+        }
+        return new Snapshot(productCount, customerCount, byStatus);
+    }
+
+    // chamado sob a trava de escrita
+    private void replace(Snapshot snapshot) {
+        long drift = Math.abs(products.getAndSet(snapshot.products()) - snapshot.products())
+                + Math.abs(customers.getAndSet(snapshot.customers()) - snapshot.customers());
+        for (Map.Entry<Status, AtomicLong> entry : orders.entrySet()) {
+            long count = snapshot.orders().getOrDefault(entry.getKey(), 0L);
+            drift += Math.abs(entry.getValue().getAndSet(count) - count);
+        }
+        boolean first = reconciledAt == null;
+        lastDrift = drift;
+        reconciledAt = LocalDateTime.now();
+        reconciliations.incrementAndGet();
+        if (drift > 0 && !first) {
+            log.info("Contadores de entidades corrigidos na conferência com o banco (diferença {})", drift);
+        }
+    }
+
+    // aplica o delta após o commit; sem transação, na hora
+    private void register(Runnable delta) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(delta);
+            return;
+        }
+        pendingDeltas.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        apply(delta);
+                    }
+                } finally {
+                    pendingDeltas.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    private void apply(Runnable delta) {
+        lock.readLock().lock();
+        try {
+            delta.run();
+            appliedDeltas.incrementAndGet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException ex) {
+            log.error("Falha ao conferir os contadores de entidades", ex);
+        }
+    }
+
+    private record Snapshot(long products, long customers, Map<Status, Long> orders) {
+    }
+}
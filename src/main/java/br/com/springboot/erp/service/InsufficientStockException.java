@@ -0,0 +1,13 @@
+package br.com.springboot.erp.service;
+
+/**
+ * Estoque (ou disponível para promessa) insuficiente para atender a quantidade pedida.
+ */
+public class InsufficientStockException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,103 @@
+package br.com.springboot.erp.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import br.com.springboot.erp.model.dto.ProductDto;
+import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.event.LowStockEvent;
+import br.com.springboot.erp.stream.SseBroadcaster;
+
+/**
+ * Alertas de estoque baixo.
+ *
+ * Os caminhos que alteram estoque informam o valor anterior e o novo; quando o
+ * estoque cruza o limite (do produto ou o global {@code erp.stock.low-threshold})
+ * um {@link LowStockEvent} é publicado e, após o commit, enviado aos assinantes
+ * do stream SSE — dispensando o polling de {@code /api/products/low-stock}.
+ */
+@Service
+public class LowStockAlertService {
+
+    private final int defaultThreshold;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final SseBroadcaster<LowStockEvent> broadcaster;
+
+    public LowStockAlertService(ApplicationEventPublisher eventPublisher,
+                                @Value("${erp.stock.low-threshold:10}") int defaultThreshold,
+                                @Value("${erp.sse.buffer-size:256}") int bufferSize,
+                                @Value("${erp.sse.timeout-ms:0}") long timeoutMillis,
+                                @Value("${erp.sse.heartbeat-ms:15000}") long heartbeatMillis,
+                                @Qualifier("sseSenderExecutor") ExecutorService sender,
+                                @Qualifier("sseHeartbeatScheduler") ScheduledExecutorService scheduler) {
+        this.eventPublisher = eventPublisher;
+        this.defaultThreshold = defaultThreshold;
+        this.broadcaster = new SseBroadcaster<>("low-stock", bufferSize, timeoutMillis, sender, scheduler,
+                heartbeatMillis);
+    }
+
+    public int thresholdFor(Product product) {
+        return product.getLowStockThreshold() != null ? product.getLowStockThreshold() : defaultThreshold;
+    }
+
+    /**
+     * Verifica se a alteração de estoque cruzou o limite e, em caso positivo, publica o evento.
+     *
+     * @param previousStock estoque antes da alteração ({@code null} para produto novo)
+     */
+    public void onStockChange(Product product, Integer previousStock) {
+        onStockChange(product, previousStock, product.getStock());
+    }
+
+    /**
+     * Variante em que o novo estoque ainda não foi aplicado à entidade (ex.: escrita adiada).
+     */
+    public void onStockChange(Product product, Integer previousStock, Integer stock) {
+        if (stock == null || stock.equals(previousStock)) {
+            return;
+        }
+        int threshold = thresholdFor(product);
+        boolean wasLow = previousStock != null && previousStock < threshold;
+        boolean isLow = stock < threshold;
+        // produto novo só gera evento se já nascer abaixo do limite
+        if (isLow != wasLow && (previousStock != null || isLow)) {
+            eventPublisher.publishEvent(new LowStockEvent(product.getId(), product.getSku(), product.getName(),
+                    stock, threshold, isLow, LocalDateTime.now()));
+        }
+    }
+
+    /**
+     * Entrega aos assinantes somente após o commit: rollback não gera alerta.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void broadcast(LowStockEvent event) {
+        broadcaster.publish(event.low() ? "low-stock" : "stock-recovered", event);
+    }
+
+    /**
+     * Abre um stream para o cliente, enviando primeiro os produtos atualmente abaixo do limite.
+     * A lista é lida depois da assinatura: um cruzamento confirmado durante a leitura chega logo
+     * após o snapshot.
+     */
+    public SseEmitter subscribe(Supplier<List<Product>> currentlyLow) {
+        return broadcaster.subscribe(event -> true, "snapshot",
+                () -> currentlyLow.get().stream().map(ProductDto::from).collect(Collectors.toList()));
+    }
+
+    public int subscriberCount() {
+        return broadcaster.subscriberCount();
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.springboot.erp.service;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Leitura dos campos de um JSON Merge Patch (RFC 7396) já desserializado.
+ *
+ * - Campo ausente não é alterado; campo com {@code null} é apagado.
+ * - Só campos simples: objetos aninhados e campos fora da lista permitida
+ *   resultam em {@link IllegalArgumentException} (400).
+ */
+final class MergePatch {
+
+    private final Map<String, Object> changes;
+
+    MergePatch(Map<String, Object> changes, Set<String> allowedFields) {
+        if (changes == null) {
+            throw new IllegalArgumentException("Corpo do patch é obrigatório");
+        }
+        for (String field : changes.keySet()) {
+            if (!allowedFields.contains(field)) {
+                throw new IllegalArgumentException("Campo não pode ser alterado via patch: " + field);
+            }
+        }
+        this.changes = changes;
+    }
+
+    boolean has(String field) {
+        return changes.containsKey(field);
+    }
+
+    String text(String field) {
+        Object value = changes.get(field);
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        throw invalid(field);
+    }
+
+    Integer integer(String field) {
+        Object value = changes.get(field);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short) {
+            long number = ((Number) value).longValue();
+            if (number >= Integer.MIN_VALUE && number <= Integer.MAX_VALUE) {
+                return (int) number;
+            }
+        }
+        throw invalid(field);
+    }
+
+    BigDecimal decimal(String field) {
+        Object value = changes.get(field);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof Number || value instanceof String) {
+            try {
+                // toString preserva a escala escrita no JSON (10.1 e não 10.0999...)
+                return new BigDecimal(value.toString());
+            } catch (NumberFormatException ex) {
+                throw invalid(field);
+            }
+        }
+        throw invalid(field);
+    }
+
+    private static IllegalArgumentException invalid(String field) {
+        return new IllegalArgumentException("Valor inválido para o campo: " + field);
+    }
+}
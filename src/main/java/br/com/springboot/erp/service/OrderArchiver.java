@@ -0,0 +1,310 @@
+package br.com.springboot.erp.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.config.ConnectionLimitingDataSource;
+import br.com.springboot.erp.model.dto.EntityVersion;
+import br.com.springboot.erp.model.dto.OrderArchiveStatsDto;
+import br.com.springboot.erp.model.entity.ArchivedOrder;
+import br.com.springboot.erp.model.entity.ArchivedOrderItem;
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.model.entity.Order;
+import br.com.springboot.erp.model.entity.OrderItem;
+import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.Status;
+
+/**
+ * Move pedidos encerrados ({@code FINALIZADO}/{@code CANCELADO}) sem alteração há
+ * mais de {@code erp.orders.archive.after-days} dias para {@code orders_archive}
+ * e {@code order_items_archive} ({@code erp.orders.archive.enabled}).
+ *
+ * - Lotes por chave (índice {@code status, id}), cada um em transação própria:
+ *   linhas travadas, copiadas com INSERT ... SELECT e apagadas das tabelas quentes.
+ * - Cede ao tráfego de primeiro plano como o {@link PendingOrderSweeper}.
+ * - {@code findOrderById}, {@code findOrderByNumber} e {@code findOrderVersion}
+ *   caem no arquivo quando o pedido não está na tabela quente. O pedido devolvido
+ *   é montado a partir do arquivo e não é gerenciado: pedidos arquivados não são
+ *   alterados. Listagens continuam lendo só a tabela quente.
+ */
+@Component
+public class OrderArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private static final List<Status> CLOSED = List.of(Status.FINALIZADO, Status.CANCELADO);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean enabled;
+    private final int afterDays;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final int busyConnections;
+
+    // null quando o DataSource não é limitado (ex.: testes)
+    private final ConnectionLimitingDataSource pool;
+    private final TransactionTemplate batchTx;
+    private final EntityCountService entityCounts;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong archivedOrders = new AtomicLong();
+    private final AtomicLong archivedItems = new AtomicLong();
+    private final AtomicLong archiveHits = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunArchived;
+    private volatile long lastRunMillis;
+
+    private ScheduledExecutorService scheduler;
+
+    public OrderArchiver(DataSource dataSource, PlatformTransactionManager transactionManager,
+                         EntityCountService entityCounts,
+                         @Value("${erp.orders.archive.enabled:true}") boolean enabled,
+                         @Value("${erp.orders.archive.after-days:90}") int afterDays,
+                         @Value("${erp.orders.archive.interval-ms:3600000}") long intervalMillis,
+                         @Value("${erp.orders.archive.batch-size:500}") int batchSize,
+                         @Value("${erp.orders.archive.pause-ms:50}") long pauseMillis,
+                         @Value("${erp.orders.archive.busy-connections:25}") int busyConnections) {
+        this.pool = ConnectionLimitingDataSource.find(dataSource);
+        this.batchTx = new TransactionTemplate(transactionManager);
+        this.batchTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.entityCounts = entityCounts;
+        this.enabled = enabled;
+        this.afterDays = afterDays;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.busyConnections = busyConnections;
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("order-archiver-"));
+            scheduler.scheduleWithFixedDelay(this::archiveQuietly, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Executa um arquivamento completo; chamadas concorrentes retornam sem fazer nada.
+     *
+     * @return quantidade de pedidos arquivados
+     */
+    public long archive() {
+        if (!runLock.tryLock()) {
+            return 0;
+        }
+        try {
+            long start = System.nanoTime();
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+            long lastId = 0;
+            long archived = 0;
+            while (throttle()) {
+                long afterId = lastId;
+                BatchResult batch = batchTx.execute(status -> archiveBatch(afterId, cutoff));
+                if (batch == null || batch.orders() == 0) {
+                    break;
+                }
+                batches.incrementAndGet();
+                lastId = batch.lastId();
+                archived += batch.orders();
+                archivedItems.addAndGet(batch.items());
+                if (batch.orders() < batchSize || !sleep(pauseMillis)) {
+                    break;
+                }
+            }
+            runs.incrementAndGet();
+            archivedOrders.addAndGet(archived);
+            lastRunAt = LocalDateTime.now();
+            lastRunArchived = archived;
+            lastRunMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (archived > 0) {
+                log.info("{} pedidos encerrados arquivados em {} ms", archived, lastRunMillis);
+            }
+            return archived;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Order> findOrder(Long id) {
+        return Optional.ofNullable(entityManager.find(ArchivedOrder.class, id)).map(this::toOrder);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<Order> findOrderByNumber(String orderNumber) {
+        return entityManager.createQuery("SELECT a FROM ArchivedOrder a WHERE a.orderNumber = :orderNumber",
+                        ArchivedOrder.class)
+                .setParameter("orderNumber", orderNumber)
+                .getResultList().stream().findFirst().map(this::toOrder);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<EntityVersion> findVersion(Long id) {
+        return entityManager.createQuery(
+                        "SELECT new br.com.springboot.erp.model.dto.EntityVersion(a.version, a.updatedAt) "
+                                + "FROM ArchivedOrder a WHERE a.id = :id", EntityVersion.class)
+                .setParameter("id", id)
+                .getResultList().stream().findFirst();
+    }
+
+    public OrderArchiveStatsDto stats() {
+        return new OrderArchiveStatsDto(enabled, afterDays, runs.get(), batches.get(), archivedOrders.get(),
+                archivedItems.get(), archiveHits.get(), lastRunAt, lastRunArchived, lastRunMillis);
+    }
+
+    private BatchResult archiveBatch(long afterId, LocalDateTime cutoff) {
+        List<Object[]> rows = entityManager.createQuery(
+                "SELECT o.id, o.status FROM Order o WHERE o.status IN :closed AND o.id > :afterId "
+                        + "AND COALESCE(o.updatedAt, o.orderDate) < :cutoff ORDER BY o.id", Object[].class)
+                .setParameter("closed", CLOSED)
+                .setParameter("afterId", afterId)
+                .setParameter("cutoff", cutoff)
+                .setMaxResults(batchSize)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return new BatchResult(0, afterId, 0);
+        }
+        List<Long> ids = rows.stream().map(row -> (Long) row[0]).toList();
+
+        int items = entityManager.createNativeQuery(
+                "INSERT INTO order_items_archive (id, order_id, product_id, quantity, unit_price, subtotal) "
+                        + "SELECT id, order_id, product_id, quantity, unit_price, subtotal FROM order_items "
+                        + "WHERE order_id IN (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.createNativeQuery(
+                "INSERT INTO orders_archive (id, order_number, order_date, customer_id, status, total_amount, "
+                        + "item_count, version, updated_at, archived_at) "
+                        + "SELECT id, order_number, order_date, customer_id, status, total_amount, item_count, "
+                        + "version, updated_at, :now FROM orders WHERE id IN (:ids)")
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("ids", ids)
+                .executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM order_items WHERE order_id IN (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        int orders = entityManager.createNativeQuery("DELETE FROM orders WHERE id IN (:ids)")
+                .setParameter("ids", ids)
+                .executeUpdate();
+        // as linhas estão travadas: o status lido é o que sai da tabela quente
+        rows.stream()
+                .collect(Collectors.groupingBy(row -> (Status) row[1], Collectors.counting()))
+                .forEach((status, count) -> entityCounts.onOrdersChanged(status, null, count));
+        return new BatchResult(orders, ids.get(ids.size() - 1), items);
+    }
+
+    // Monta um pedido (não gerenciado) com cliente e produtos ainda existentes
+    private Order toOrder(ArchivedOrder archived) {
+        archiveHits.incrementAndGet();
+        Order order = new Order();
+        order.setId(archived.getId());
+        order.setOrderNumber(archived.getOrderNumber());
+        order.setOrderDate(archived.getOrderDate());
+        order.setStatus(archived.getStatus());
+        order.setTotalAmount(archived.getTotalAmount());
+        order.setItemCount(archived.getItemCount());
+        order.setVersion(archived.getVersion());
+        order.setUpdatedAt(archived.getUpdatedAt());
+        if (archived.getCustomerId() != null) {
+            order.setCustomer(entityManager.find(Customer.class, archived.getCustomerId()));
+        }
+
+        List<ArchivedOrderItem> items = entityManager.createQuery(
+                        "SELECT i FROM ArchivedOrderItem i WHERE i.orderId = :orderId ORDER BY i.id",
+                        ArchivedOrderItem.class)
+                .setParameter("orderId", archived.getId())
+                .getResultList();
+        List<Long> productIds = items.stream().map(ArchivedOrderItem::getProductId).distinct().toList();
+        Map<Long, Product> products = productIds.isEmpty() ? Map.of()
+                : entityManager.createQuery("SELECT p FROM Product p WHERE p.id IN :ids", Product.class)
+                        .setParameter("ids", productIds)
+                        .getResultStream()
+                        .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (ArchivedOrderItem archivedItem : items) {
+            OrderItem item = new OrderItem();
+            item.setId(archivedItem.getId());
+            item.setOrder(order);
+            item.setProduct(products.get(archivedItem.getProductId()));
+            item.setQuantity(archivedItem.getQuantity());
+            item.setUnitPrice(archivedItem.getUnitPrice());
+            item.setSubtotal(archivedItem.getSubtotal());
+            order.getItems().add(item);
+        }
+        return order;
+    }
+
+    // espera enquanto o pool está disputado; false se a thread foi interrompida
+    private boolean throttle() {
+        if (pool != null) {
+            while (pool.waitingThreads() > 0 || pool.activeConnections() >= busyConnections) {
+                if (!sleep(Math.max(pauseMillis, 1) * 10)) {
+                    return false;
+                }
+            }
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (RuntimeException ex) {
+            log.error("Falha no arquivamento de pedidos; nova tentativa no próximo ciclo", ex);
+        }
+    }
+
+    private record BatchResult(int orders, long lastId, int items) {
+    }
+}
@@ -0,0 +1,13 @@
+package br.com.springboot.erp.service;
+
+/**
+ * Operação que só vale para pedidos pendentes recebeu um pedido já finalizado ou cancelado.
+ */
+public class OrderNotPendingException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public OrderNotPendingException(String message) {
+        super(message);
+    }
+}
@@ -1,9 +1,13 @@
 package br.com.springboot.erp.service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import br.com.springboot.erp.model.dto.EntityVersion;
+import br.com.springboot.erp.model.dto.OrderArchiveStatsDto;
+import br.com.springboot.erp.model.dto.PendingOrderSweepStatsDto;
 import br.com.springboot.erp.model.entity.Order;
 import br.com.springboot.erp.model.entity.OrderItem;
 
@@ -16,16 +20,49 @@ public interface OrderService {
     
     Optional<Order> findOrderById(Long id);
     
+    Optional<EntityVersion> findOrderVersion(Long id);
+    
     Optional<Order> findOrderByNumber(String orderNumber);
     
     List<Order> findAllOrders();
     
     List<Order> findOrdersByCustomerId(Long customerId);
     
+    /**
+     * Inclui um item no pedido pendente. Preço e subtotal vêm do cadastro do produto (como na
+     * criação); total, contagem de itens e reserva de estoque acompanham a inclusão.
+     *
+     * @throws IllegalArgumentException se o pedido ou o produto não existe, ou quantidade inválida
+     * @throws OrderNotPendingException se o pedido já foi finalizado ou cancelado
+     */
     void addItemToOrder(Long orderId, OrderItem item);
     
-    void removeItemFromOrder(Long orderId, Long itemId);
+    /**
+     * Remove um item do pedido pendente, ajustando o total.
+     *
+     * @return {@code false} se o item não existe ou não pertence ao pedido
+     * @throws IllegalArgumentException se o pedido não existe
+     * @throws OrderNotPendingException se o pedido já foi finalizado ou cancelado
+     */
+    boolean removeItemFromOrder(Long orderId, Long itemId);
+
+    /**
+     * Remove vários itens do pedido de uma vez, ajustando o total.
+     * Ids que não pertencem ao pedido são ignorados.
+     *
+     * @return quantidade de itens removidos
+     * @throws IllegalArgumentException se o pedido não existe
+     * @throws OrderNotPendingException se o pedido já foi finalizado ou cancelado
+     */
+    int removeItemsFromOrder(Long orderId, Collection<Long> itemIds);
     
+    /**
+     * Altera quantidade e/ou produto de um item do pedido pendente. Preço e subtotal vêm do
+     * cadastro do produto (como na criação); total e reserva de estoque acompanham a diferença.
+     *
+     * @throws IllegalArgumentException se o pedido, o item ou o produto não existe, ou quantidade inválida
+     * @throws OrderNotPendingException se o pedido já foi finalizado ou cancelado
+     */
     void updateOrderItem(Long orderId, OrderItem item);
     
     BigDecimal calculateOrderTotal(Long orderId);
@@ -33,4 +70,14 @@ public interface OrderService {
     void finalizeOrder(Long orderId);
     
     void cancelOrder(Long orderId);
+
+    /**
+     * Métricas da varredura que cancela pedidos pendentes abandonados.
+     */
+    PendingOrderSweepStatsDto getPendingSweepStats();
+
+    /**
+     * Métricas do arquivamento de pedidos encerrados.
+     */
+    OrderArchiveStatsDto getArchiveStats();
 }
\ No newline at end of file
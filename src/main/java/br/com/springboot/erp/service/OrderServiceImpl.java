@@ -3,22 +3,37 @@ package br.com.springboot.erp.service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import br.com.springboot.erp.model.dto.EntityVersion;
+import br.com.springboot.erp.model.dto.OrderArchiveStatsDto;
+import br.com.springboot.erp.model.dto.PendingOrderSweepStatsDto;
 import br.com.springboot.erp.model.entity.Customer;
 import br.com.springboot.erp.model.entity.Order;
 import br.com.springboot.erp.model.entity.OrderItem;
 import br.com.springboot.erp.model.entity.Product;
 import br.com.springboot.erp.model.entity.Status;
+import br.com.springboot.erp.model.entity.StockMovementReason;
+import br.com.springboot.erp.model.event.OrderStatusChangedEvent;
 import br.com.springboot.erp.repository.CustomerRepository;
 import br.com.springboot.erp.repository.ProductRepository;
 
@@ -32,11 +47,50 @@ public class OrderServiceImpl implements OrderService {
     private EntityManager entityManager;
 
     private final CustomerRepository customerRepository;
+
+    private final ProductRepository productRepository;
+
+    private final ProductChangeTracker productChangeTracker;
+
+    private final LowStockAlertService lowStockAlertService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final StockWriteBehindBuffer stockBuffer;
+
+    private final StockLedger stockLedger;
+
+    private final StockReservationService stockReservations;
+
+    private final PendingOrderSweeper pendingOrderSweeper;
+
+    private final OrderArchiver orderArchiver;
+
+    private final EntityCountService entityCounts;
     
     public OrderServiceImpl(CustomerRepository customerRepository, 
                            ProductRepository productRepository,
-                           ProductService productService) {
+                           ProductService productService,
+                           ProductChangeTracker productChangeTracker,
+                           LowStockAlertService lowStockAlertService,
+                           ApplicationEventPublisher eventPublisher,
+                           StockWriteBehindBuffer stockBuffer,
+                           StockLedger stockLedger,
+                           StockReservationService stockReservations,
+                           PendingOrderSweeper pendingOrderSweeper,
+                           OrderArchiver orderArchiver,
+                           EntityCountService entityCounts) {
         this.customerRepository = customerRepository;
+        this.productRepository = productRepository;
+        this.productChangeTracker = productChangeTracker;
+        this.lowStockAlertService = lowStockAlertService;
+        this.eventPublisher = eventPublisher;
+        this.stockBuffer = stockBuffer;
+        this.stockLedger = stockLedger;
+        this.stockReservations = stockReservations;
+        this.pendingOrderSweeper = pendingOrderSweeper;
+        this.orderArchiver = orderArchiver;
+        this.entityCounts = entityCounts;
     }
 
     @Override
@@ -57,9 +111,11 @@ public class OrderServiceImpl implements OrderService {
 
         // Persiste o pedido antes de adicionar os itens
         entityManager.persist(order);
+        entityCounts.onOrdersChanged(null, order.getStatus(), 1);
 
         // Adiciona os itens ao pedido
         if (items != null && !items.isEmpty()) {
+            order.setTotalAmount(priceItems(items));
             for (OrderItem item : items) {
 
                 // Associa o item ao pedido
@@ -70,9 +126,14 @@ public class OrderServiceImpl implements OrderService {
                 entityManager.persist(item);
 
             }
+            order.setItemCount(items.size());
+            // reserva já na criação: pedidos pendentes não disputam as mesmas unidades
+            stockReservations.reserve(order.getId(), quantitiesByProduct(items));
         }
 
-        // order.updateTotalAmount();
+        if (order.getTotalAmount() == null) {
+            order.setTotalAmount(BigDecimal.ZERO);
+        }
 
         return order;
     }
@@ -80,7 +141,19 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(readOnly = true)
     public Optional<Order> findOrderById(Long id) {
-        return Optional.ofNullable(entityManager.find(Order.class, id));
+        Optional<Order> order = findLiveOrder(id);
+        return order.isPresent() ? order : orderArchiver.findOrder(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<EntityVersion> findOrderVersion(Long id) {
+        TypedQuery<EntityVersion> query = entityManager.createQuery(
+                "SELECT new br.com.springboot.erp.model.dto.EntityVersion(o.version, o.updatedAt) "
+                        + "FROM Order o WHERE o.id = :id", EntityVersion.class);
+        query.setParameter("id", id);
+        Optional<EntityVersion> version = query.getResultList().stream().findFirst();
+        return version.isPresent() ? version : orderArchiver.findVersion(id);
     }
 
     @Override
@@ -93,15 +166,16 @@ public class OrderServiceImpl implements OrderService {
         try {
             return Optional.of(query.getSingleResult());
         } catch (Exception e) {
-            return Optional.empty();
+            return orderArchiver.findOrderByNumber(orderNumber);
         }
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<Order> findAllOrders() {
+        // cliente na mesma consulta: sem um SELECT extra por cliente (ManyToOne EAGER)
         TypedQuery<Order> query = entityManager.createQuery(
-                "SELECT o FROM Order o", Order.class);
+                "SELECT o FROM Order o LEFT JOIN FETCH o.customer ORDER BY o.id", Order.class);
         return query.getResultList();
     }
 
@@ -117,16 +191,12 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional(propagation = Propagation.REQUIRED)
     public void addItemToOrder(Long orderId, OrderItem item) {
-    	
-        if (item!=null&& item.getQuantity()<=0) {
-            throw new IllegalArgumentException("A quantidade deve ser maior que zero");
-        }    	
-        Optional<Order> orderOpt = findOrderById(orderId);
-        if (!orderOpt.isPresent()) {
-            throw new IllegalArgumentException("Pedido não encontrado");
+        if (item == null) {
+            throw new IllegalArgumentException("Item do pedido é obrigatório");
         }
-
-        Order order = orderOpt.get();
+        Order order = lockPendingOrder(orderId);
+        // mesmo passo da criação: quantidade, produto e preço do cadastro
+        BigDecimal subtotal = priceItems(List.of(item));
 
         // Associa o item ao pedido
         item.setOrder(order);
@@ -134,54 +204,132 @@ public class OrderServiceImpl implements OrderService {
         // Adiciona explicitamente na lista de itens do pedido
         order.getItems().add(item);        
         
+        // total sem total anterior (pedido legado) é recalculado com os itens já carregados acima
+        order.setTotalAmount(order.getTotalAmount() != null ? order.getTotalAmount().add(subtotal)
+                : order.calculateTotal());
+        order.setItemCount(order.getItemCount() != null ? order.getItemCount() + 1 : order.getItems().size());
+
         // Persiste o item
         entityManager.persist(item);
         entityManager.flush();
+
+        stockReservations.reserve(orderId, quantitiesByProduct(List.of(item)));
     }
 
     @Override
     @Transactional
-    public void removeItemFromOrder(Long orderId, Long itemId) {
-        Optional<Order> orderOpt = findOrderById(orderId);
-        if (!orderOpt.isPresent()) {
+    public boolean removeItemFromOrder(Long orderId, Long itemId) {
+        return removeItemsFromOrder(orderId, List.of(itemId)) > 0;
+    }
+
+    // Sem carregar o pedido nem a coleção de itens: os itens são travados, apagados
+    // com um DELETE e o total do pedido é ajustado com um UPDATE
+    @Override
+    @Transactional
+    public int removeItemsFromOrder(Long orderId, Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return 0;
+        }
+        // alterações pendentes vão ao banco antes dos comandos diretos
+        entityManager.flush();
+        // só o status do pedido, travado: finalização, cancelamento e varredura esperam
+        List<Status> status = entityManager.createQuery(
+                "SELECT o.status FROM Order o WHERE o.id = :orderId", Status.class)
+                .setParameter("orderId", orderId)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (status.isEmpty()) {
             throw new IllegalArgumentException("Pedido não encontrado");
         }
+        requirePending(status.get(0));
+
+        List<Object[]> rows = entityManager.createQuery(
+                "SELECT i.id, i.product.id, i.quantity, i.subtotal FROM OrderItem i "
+                        + "WHERE i.order.id = :orderId AND i.id IN :itemIds", Object[].class)
+                .setParameter("orderId", orderId)
+                .setParameter("itemIds", itemIds)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return 0;
+        }
 
-        Order order = orderOpt.get();
-
-        OrderItem itemToRemove = null;
-        for (OrderItem item : order.getItems()) {
-            if (item.getId().equals(itemId)) {
-                itemToRemove = item;
-                break;
+        List<Long> ids = new ArrayList<>();
+        Map<Long, Integer> quantities = new HashMap<>();
+        BigDecimal removedTotal = BigDecimal.ZERO;
+        for (Object[] row : rows) {
+            ids.add((Long) row[0]);
+            if (row[1] != null && row[2] != null) {
+                quantities.merge((Long) row[1], (Integer) row[2], Integer::sum);
+            }
+            if (row[3] != null) {
+                removedTotal = removedTotal.add((BigDecimal) row[3]);
             }
         }
 
-        if (itemToRemove != null) {
-            // Remove da lista da entidade Order
-            order.getItems().remove(itemToRemove);
-
-            // Remove do banco de dados
-            entityManager.remove(itemToRemove);
-
-            // Sincroniza imediatamente
-            entityManager.flush();
+        int removed = entityManager.createQuery(
+                "DELETE FROM OrderItem i WHERE i.order.id = :orderId AND i.id IN :ids")
+                .setParameter("orderId", orderId)
+                .setParameter("ids", ids)
+                .executeUpdate();
+        // total nulo (pedido legado) continua nulo
+        entityManager.createQuery("UPDATE Order o SET o.totalAmount = o.totalAmount - :removed, "
+                        + "o.itemCount = o.itemCount - :count, o.version = COALESCE(o.version, 0) + 1, "
+                        + "o.updatedAt = :now WHERE o.id = :orderId")
+                .setParameter("removed", removedTotal)
+                .setParameter("count", removed)
+                .setParameter("now", LocalDateTime.now())
+                .setParameter("orderId", orderId)
+                .executeUpdate();
+
+        // os comandos não passam pelo contexto de persistência: instâncias já gerenciadas sairiam velhas
+        for (Long id : ids) {
+            entityManager.detach(entityManager.getReference(OrderItem.class, id));
         }
+        entityManager.detach(entityManager.getReference(Order.class, orderId));
+
+        stockReservations.release(orderId, quantities);
+        return removed;
     }
 
     @Override
     @Transactional
     public void updateOrderItem(Long orderId, OrderItem item) {
-        Optional<Order> orderOpt = findOrderById(orderId);
-        if (!orderOpt.isPresent()) {
-            throw new IllegalArgumentException("Pedido não encontrado");
+        if (item == null || item.getId() == null) {
+            throw new IllegalArgumentException("Item do pedido é obrigatório");
         }
+        Order order = lockPendingOrder(orderId);
+        // produto, quantidade e subtotal gravados, lidos sem flush: o item recebido pode ser
+        // a própria instância gerenciada, já alterada
+        List<Object[]> stored = entityManager.createQuery(
+                "SELECT i.product.id, i.quantity, i.subtotal FROM OrderItem i "
+                        + "WHERE i.id = :itemId AND i.order.id = :orderId", Object[].class)
+                .setParameter("itemId", item.getId())
+                .setParameter("orderId", orderId)
+                .setFlushMode(FlushModeType.COMMIT)
+                .getResultList();
+        if (stored.isEmpty()) {
+            throw new IllegalArgumentException("Item não encontrado no pedido");
+        }
+        Long previousProductId = (Long) stored.get(0)[0];
+        int previousQuantity = stored.get(0)[1] != null ? (Integer) stored.get(0)[1] : 0;
+        BigDecimal previousSubtotal = stored.get(0)[2] != null ? (BigDecimal) stored.get(0)[2] : BigDecimal.ZERO;
 
-        // item.updateSubtotal();
-
+        // só a quantidade informada: o item continua com o produto gravado
+        if ((item.getProduct() == null || item.getProduct().getId() == null) && previousProductId != null) {
+            item.setProduct(entityManager.getReference(Product.class, previousProductId));
+        }
+        // mesmo passo de criação e inclusão: quantidade, produto e preço do cadastro
+        BigDecimal subtotal = priceItems(List.of(item));
+        item.setOrder(order);
         entityManager.merge(item);
 
-        // orderOpt.get().updateTotalAmount();
+        order.setTotalAmount(order.getTotalAmount() != null
+                ? order.getTotalAmount().add(subtotal.subtract(previousSubtotal))
+                : order.calculateTotal());
+
+        adjustReservation(orderId, previousProductId, previousQuantity, item.getProduct().getId(),
+                item.getQuantity());
     }
 
     @Override
@@ -200,45 +348,186 @@ public class OrderServiceImpl implements OrderService {
     @Override
     @Transactional
     public void finalizeOrder(Long orderId) {
-        Optional<Order> orderOpt = findOrderById(orderId);
-        if (!orderOpt.isPresent()) {
-            throw new IllegalArgumentException("Pedido não encontrado");
+        // baixa de estoque lê o valor do banco: grava antes o que estiver no buffer
+        if (stockBuffer.isEnabled() && !stockLedger.isEnabled()) {
+            stockBuffer.flushAll();
         }
-
-        Order order = orderOpt.get();
+        Order order = lockPendingOrder(orderId);
 
         // Atualiza o valor total do pedido
         BigDecimal total = order.calculateTotal();
         order.setTotalAmount(total);
+        order.setItemCount(order.getItems().size());
         
-        // Atualiza o estoque de cada produto
-        for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            int novaQuantidade = product.getStock() - item.getQuantity();
+        // reserva expirada é refeita (se houver disponível) antes da baixa
+        stockReservations.ensureReserved(orderId, quantitiesByProduct(order.getItems()));
 
-            if (novaQuantidade < 0) {
-                throw new IllegalStateException("Estoque insuficiente para o produto: " + product.getName());
+        // Atualiza o estoque de cada produto
+        if (stockLedger.isEnabled()) {
+            debitStockLedger(order);
+        } else {
+            for (OrderItem item : order.getItems()) {
+                Product product = item.getProduct();
+                int novaQuantidade = product.getStock() - item.getQuantity();
+
+                if (novaQuantidade < 0) {
+                    throw new InsufficientStockException("Estoque insuficiente para o produto: " + product.getName());
+                }
+
+                Integer estoqueAnterior = product.getStock();
+                product.setStock(novaQuantidade);
+                product.setChangeSeq(productChangeTracker.next());
+                entityManager.merge(product); // garante persistência
+                lowStockAlertService.onStockChange(product, estoqueAnterior);
+                stockReservations.onStockChange(product.getId());
             }
+        }
 
-            product.setStock(novaQuantidade);
-            entityManager.merge(product); // garante persistência
-        }        
-
+        Status previousStatus = order.getStatus();
         order.setStatus(Status.FINALIZADO);
         entityManager.merge(order);
+        // a baixa já consumiu as unidades reservadas
+        stockReservations.release(orderId);
+        publishStatusChange(order, previousStatus);
     }
 
     @Override
     @Transactional
     public void cancelOrder(Long orderId) {
-        Optional<Order> orderOpt = findOrderById(orderId);
-        if (!orderOpt.isPresent()) {
+        Order order = lockPendingOrder(orderId);
+        Status previousStatus = order.getStatus();
+        order.setStatus(Status.CANCELADO); 
+        entityManager.merge(order);
+        stockReservations.release(orderId);
+        publishStatusChange(order, previousStatus);
+    }
+
+    // Com o livro de estoque a baixa é uma movimentação por item, na mesma transação do pedido
+    private void debitStockLedger(Order order) {
+        // produtos travados de uma vez, em ordem fixa: a verificação de saldo não corre com outra baixa
+        stockLedger.lockProducts(order.getItems().stream().map(item -> item.getProduct().getId()).toList());
+        for (OrderItem item : order.getItems()) {
+            Product product = item.getProduct();
+            StockLedger.StockChange change = stockLedger.append(product.getId(), -item.getQuantity(),
+                    StockMovementReason.VENDA, order.getId());
+            // saldo negativo: a exceção desfaz a transação, incluindo as movimentações já registradas
+            if (change == null || change.newStock() < 0) {
+                throw new InsufficientStockException("Estoque insuficiente para o produto: " + product.getName());
+            }
+            lowStockAlertService.onStockChange(product, change.previousStock(), change.newStock());
+            stockReservations.onStockChange(product.getId());
+        }
+    }
+
+    @Override
+    public PendingOrderSweepStatsDto getPendingSweepStats() {
+        return pendingOrderSweeper.stats();
+    }
+
+    @Override
+    public OrderArchiveStatsDto getArchiveStats() {
+        return orderArchiver.stats();
+    }
+
+    // Preço vem do cadastro, não do cliente: produtos numa busca em lote (ou do contexto de
+    // persistência); preço unitário, subtotal e a soma (retornada) no mesmo passo
+    private BigDecimal priceItems(List<OrderItem> items) {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (OrderItem item : items) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("A quantidade deve ser maior que zero");
+            }
+            if (item.getProduct() == null || item.getProduct().getId() == null) {
+                throw new IllegalArgumentException("Produto do item é obrigatório");
+            }
+            productIds.add(item.getProduct().getId());
+        }
+        Map<Long, Product> products = new HashMap<>();
+        productRepository.findAllById(productIds).forEach(product -> products.put(product.getId(), product));
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItem item : items) {
+            Product product = products.get(item.getProduct().getId());
+            if (product == null) {
+                throw new IllegalArgumentException("Produto não encontrado: " + item.getProduct().getId());
+            }
+            if (product.getPrice() == null) {
+                throw new IllegalArgumentException("Produto sem preço: " + product.getId());
+            }
+            item.setProduct(product);
+            item.setUnitPrice(product.getPrice());
+            item.updateSubtotal();
+            total = total.add(item.getSubtotal());
+        }
+        return total;
+    }
+
+    // Reserva acompanha a alteração do item: a diferença de quantidade no mesmo produto,
+    // ou libera o produto anterior e reserva o novo (a liberação só vale após o commit)
+    private void adjustReservation(Long orderId, Long previousProductId, int previousQuantity,
+                                   Long productId, int quantity) {
+        if (Objects.equals(previousProductId, productId)) {
+            int difference = quantity - previousQuantity;
+            if (difference > 0) {
+                stockReservations.reserve(orderId, Map.of(productId, difference));
+            } else if (difference < 0) {
+                stockReservations.release(orderId, Map.of(productId, -difference));
+            }
+            return;
+        }
+        if (previousProductId != null && previousQuantity > 0) {
+            stockReservations.release(orderId, Map.of(previousProductId, previousQuantity));
+        }
+        stockReservations.reserve(orderId, Map.of(productId, quantity));
+    }
+
+    // Somente a tabela quente: pedidos arquivados não são alterados
+    private Optional<Order> findLiveOrder(Long id) {
+        return Optional.ofNullable(entityManager.find(Order.class, id));
+    }
+
+    // Trava a linha do pedido até o fim da transação (finalização, cancelamento, alteração de
+    // itens e varredura se serializam) e exige que ainda esteja pendente. Sem flush: um item
+    // gerenciado já alterado ainda não deve chegar ao banco; pedido criado nesta mesma
+    // transação (ainda sem linha) não é visível a outras e vem do contexto
+    private Order lockPendingOrder(Long id) {
+        entityManager.createQuery("SELECT o.id FROM Order o WHERE o.id = :id", Long.class)
+                .setParameter("id", id)
+                .setFlushMode(FlushModeType.COMMIT)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        Order order = entityManager.find(Order.class, id);
+        if (order == null) {
             throw new IllegalArgumentException("Pedido não encontrado");
         }
+        requirePending(order.getStatus());
+        return order;
+    }
 
-        Order order = orderOpt.get();
-        order.setStatus(Status.CANCELADO); 
-        entityManager.merge(order);
+    private static void requirePending(Status status) {
+        if (status != Status.PENDENTE) {
+            throw new OrderNotPendingException("Pedido não está pendente (status: " + status + ")");
+        }
+    }
+
+    // Entregue aos assinantes somente após o commit (ver OrderStatusNotificationService)
+    private void publishStatusChange(Order order, Status previousStatus) {
+        if (previousStatus == order.getStatus()) {
+            return;
+        }
+        Long customerId = order.getCustomer() != null ? order.getCustomer().getId() : null;
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(order.getId(), order.getOrderNumber(), customerId,
+                previousStatus, order.getStatus(), order.getTotalAmount(), LocalDateTime.now()));
+    }
+
+    private static Map<Long, Integer> quantitiesByProduct(List<OrderItem> items) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : items) {
+            if (item.getProduct() != null && item.getProduct().getId() != null && item.getQuantity() != null) {
+                quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        return quantities;
     }
 
     private String generateOrderNumber() {
@@ -0,0 +1,79 @@
+package br.com.springboot.erp.service;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import br.com.springboot.erp.model.dto.OrderDto;
+import br.com.springboot.erp.model.event.OrderStatusChangedEvent;
+import br.com.springboot.erp.stream.SseBroadcaster;
+
+/**
+ * Notificações de mudança de status de pedidos via SSE.
+ *
+ * O {@link OrderService} publica {@link OrderStatusChangedEvent} no barramento de
+ * eventos da aplicação; a entrega aos streams por pedido e por cliente acontece
+ * somente após o commit, substituindo o polling de {@code GET /api/orders/{id}}.
+ */
+@Service
+public class OrderStatusNotificationService {
+
+    static final String EVENT_NAME = "order-status";
+
+    private final SseBroadcaster<OrderStatusChangedEvent> broadcaster;
+
+    public OrderStatusNotificationService(@Value("${erp.sse.buffer-size:256}") int bufferSize,
+                                          @Value("${erp.sse.timeout-ms:0}") long timeoutMillis,
+                                          @Value("${erp.sse.heartbeat-ms:15000}") long heartbeatMillis,
+                                          @Qualifier("sseSenderExecutor") ExecutorService sender,
+                                          @Qualifier("sseHeartbeatScheduler") ScheduledExecutorService scheduler) {
+        this.broadcaster = new SseBroadcaster<>("order-status", bufferSize, timeoutMillis, sender, scheduler,
+                heartbeatMillis);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void broadcast(OrderStatusChangedEvent event) {
+        broadcaster.publish(orderTopic(event.orderId()), EVENT_NAME, event);
+        if (event.customerId() != null) {
+            broadcaster.publish(customerTopic(event.customerId()), EVENT_NAME, event);
+        }
+    }
+
+    /**
+     * Stream de um pedido; o primeiro evento ({@code snapshot}) traz o estado atual, lido depois
+     * da assinatura: uma mudança confirmada durante a leitura chega logo após o snapshot.
+     *
+     * @param current leitura do pedido (vazio se não existe)
+     * @return vazio se o pedido não existe
+     */
+    public Optional<SseEmitter> subscribeToOrder(Long orderId, Supplier<Optional<OrderDto>> current) {
+        return Optional.ofNullable(broadcaster.subscribe(orderTopic(orderId), "snapshot",
+                () -> current.get().orElse(null)));
+    }
+
+    /**
+     * Stream com as mudanças de status de todos os pedidos do cliente.
+     */
+    public SseEmitter subscribeToCustomer(Long customerId) {
+        return broadcaster.subscribe(customerTopic(customerId));
+    }
+
+    public int subscriberCount() {
+        return broadcaster.subscriberCount();
+    }
+
+    private static String orderTopic(Long orderId) {
+        return "order:" + orderId;
+    }
+
+    private static String customerTopic(Long customerId) {
+        return "customer:" + customerId;
+    }
+}
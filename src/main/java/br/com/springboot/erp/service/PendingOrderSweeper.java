@@ -0,0 +1,237 @@
+package br.com.springboot.erp.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.config.ConnectionLimitingDataSource;
+import br.com.springboot.erp.model.dto.PendingOrderSweepStatsDto;
+import br.com.springboot.erp.model.entity.Status;
+import br.com.springboot.erp.model.event.OrderStatusChangedEvent;
+
+/**
+ * Cancela pedidos {@code PENDENTE} abandonados há mais de
+ * {@code erp.orders.pending-expiry.max-age-ms} ({@code erp.orders.pending-expiry.enabled}).
+ *
+ * - Percorre os pedidos em lotes por chave (id crescente, índice
+ *   {@code status, id}), cada lote em transação própria com um UPDATE em massa,
+ *   sem carregar entidades.
+ * - Linhas do lote são travadas antes do UPDATE, de modo que uma finalização
+ *   concorrente ou espera o lote ou recebe conflito de versão.
+ * - Nunca disputa com o tráfego de primeiro plano: pausa entre lotes e, enquanto
+ *   houver requisições esperando conexão (ou o pool estiver acima de
+ *   {@code busy-connections}), aguarda antes do próximo lote.
+ * - Cada cancelamento notifica os assinantes (SSE) e libera as reservas de estoque.
+ */
+@Component
+public class PendingOrderSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingOrderSweeper.class);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean enabled;
+    private final long maxAgeMillis;
+    private final long intervalMillis;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final int busyConnections;
+
+    // null quando o DataSource não é limitado (ex.: testes)
+    private final ConnectionLimitingDataSource pool;
+    private final TransactionTemplate batchTx;
+    private final StockReservationService stockReservations;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong cancelledOrders = new AtomicLong();
+    private final AtomicLong throttledPauses = new AtomicLong();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunCancelled;
+    private volatile long lastRunMillis;
+
+    private ScheduledExecutorService scheduler;
+
+    public PendingOrderSweeper(DataSource dataSource, PlatformTransactionManager transactionManager,
+                               StockReservationService stockReservations, ApplicationEventPublisher eventPublisher,
+                               @Value("${erp.orders.pending-expiry.enabled:true}") boolean enabled,
+                               @Value("${erp.orders.pending-expiry.max-age-ms:86400000}") long maxAgeMillis,
+                               @Value("${erp.orders.pending-expiry.interval-ms:300000}") long intervalMillis,
+                               @Value("${erp.orders.pending-expiry.batch-size:500}") int batchSize,
+                               @Value("${erp.orders.pending-expiry.pause-ms:50}") long pauseMillis,
+                               @Value("${erp.orders.pending-expiry.busy-connections:25}") int busyConnections) {
+        this.pool = ConnectionLimitingDataSource.find(dataSource);
+        this.batchTx = new TransactionTemplate(transactionManager);
+        this.batchTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stockReservations = stockReservations;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.maxAgeMillis = maxAgeMillis;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.busyConnections = busyConnections;
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("order-sweeper-"));
+            scheduler.scheduleWithFixedDelay(this::sweepQuietly, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Executa uma varredura completa; chamadas concorrentes retornam sem fazer nada.
+     *
+     * @return quantidade de pedidos cancelados
+     */
+    public long sweep() {
+        if (!runLock.tryLock()) {
+            return 0;
+        }
+        try {
+            long start = System.nanoTime();
+            LocalDateTime cutoff = LocalDateTime.now().minusNanos(TimeUnit.MILLISECONDS.toNanos(maxAgeMillis));
+            long lastId = 0;
+            long cancelled = 0;
+            while (throttle()) {
+                long afterId = lastId;
+                BatchResult batch = batchTx.execute(status -> cancelBatch(afterId, cutoff));
+                if (batch == null || batch.scanned() == 0) {
+                    break;
+                }
+                batches.incrementAndGet();
+                lastId = batch.lastId();
+                cancelled += batch.cancelled();
+                if (batch.scanned() < batchSize || !sleep(pauseMillis)) {
+                    break;
+                }
+            }
+            runs.incrementAndGet();
+            cancelledOrders.addAndGet(cancelled);
+            lastRunAt = LocalDateTime.now();
+            lastRunCancelled = cancelled;
+            lastRunMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (cancelled > 0) {
+                log.info("{} pedidos pendentes abandonados cancelados em {} ms", cancelled, lastRunMillis);
+            }
+            return cancelled;
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    public PendingOrderSweepStatsDto stats() {
+        return new PendingOrderSweepStatsDto(enabled, maxAgeMillis, runs.get(), batches.get(), cancelledOrders.get(),
+                throttledPauses.get(), lastRunAt, lastRunCancelled, lastRunMillis);
+    }
+
+    private BatchResult cancelBatch(long afterId, LocalDateTime cutoff) {
+        List<Long> ids = entityManager.createQuery(
+                "SELECT o.id FROM Order o WHERE o.status = :pending AND o.orderDate < :cutoff AND o.id > :afterId "
+                        + "ORDER BY o.id", Long.class)
+                .setParameter("pending", Status.PENDENTE)
+                .setParameter("cutoff", cutoff)
+                .setParameter("afterId", afterId)
+                .setMaxResults(batchSize)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return new BatchResult(0, afterId, 0);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int cancelled = entityManager.createQuery(
+                "UPDATE Order o SET o.status = :cancelled, o.version = COALESCE(o.version, 0) + 1, "
+                        + "o.updatedAt = :now WHERE o.id IN :ids AND o.status = :pending")
+                .setParameter("cancelled", Status.CANCELADO)
+                .setParameter("now", now)
+                .setParameter("ids", ids)
+                .setParameter("pending", Status.PENDENTE)
+                .executeUpdate();
+
+        // notificação e liberação de reservas só após o commit do lote
+        List<Object[]> details = entityManager.createQuery(
+                "SELECT o.id, o.orderNumber, c.id, o.totalAmount FROM Order o LEFT JOIN o.customer c "
+                        + "WHERE o.id IN :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        for (Object[] row : details) {
+            Long orderId = (Long) row[0];
+            stockReservations.release(orderId);
+            eventPublisher.publishEvent(new OrderStatusChangedEvent(orderId, (String) row[1], (Long) row[2],
+                    Status.PENDENTE, Status.CANCELADO, (BigDecimal) row[3], now));
+        }
+        return new BatchResult(ids.size(), ids.get(ids.size() - 1), cancelled);
+    }
+
+    // espera enquanto o pool está disputado; false se a thread foi interrompida
+    private boolean throttle() {
+        if (pool == null) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        while (pool.waitingThreads() > 0 || pool.activeConnections() >= busyConnections) {
+            throttledPauses.incrementAndGet();
+            if (!sleep(Math.max(pauseMillis, 1) * 10)) {
+                return false;
+            }
+        }
+        return !Thread.currentThread().isInterrupted();
+    }
+
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (RuntimeException ex) {
+            log.error("Falha na varredura de pedidos pendentes; nova tentativa no próximo ciclo", ex);
+        }
+    }
+
+    private record BatchResult(int scanned, long lastId, int cancelled) {
+    }
+}
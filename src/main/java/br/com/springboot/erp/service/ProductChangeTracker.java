@@ -0,0 +1,90 @@
+package br.com.springboot.erp.service;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Gera a sequência monotônica de alterações do catálogo de produtos.
+ *
+ * Cada escrita recebe o próximo número da sequência. Como transações podem
+ * confirmar fora de ordem, as sequências ainda em andamento ficam registradas
+ * até o término da transação; {@link #stableSequence()} devolve o maior número
+ * abaixo do qual nenhuma escrita está pendente, evitando que um cliente avance
+ * o cursor além de uma alteração que ainda não ficou visível.
+ *
+ * Usa {@link ReentrantLock} em vez de {@code synchronized}: a primeira chamada
+ * consulta o banco e, com virtual threads, um bloco sincronizado com I/O
+ * prenderia a thread portadora.
+ */
+@Component
+public class ProductChangeTracker {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long sequence = -1;
+
+    /**
+     * Reserva a próxima sequência para uma escrita na transação corrente.
+     */
+    public long next() {
+        long seq;
+        lock.lock();
+        try {
+            seq = currentSequence() + 1;
+            sequence = seq;
+            // registrado ainda sob o lock: stableSequence() nunca enxerga a sequência sem o registro
+            inFlight.add(seq);
+        } finally {
+            lock.unlock();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    inFlight.remove(seq);
+                }
+            });
+        } else {
+            inFlight.remove(seq);
+        }
+        return seq;
+    }
+
+    /**
+     * Maior sequência cujas escritas (e todas as anteriores) já terminaram.
+     */
+    public long stableSequence() {
+        lock.lock();
+        try {
+            long current = currentSequence();
+            return inFlight.isEmpty() ? current : inFlight.first() - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long currentSequence() {
+        if (sequence < 0) {
+            Long products = entityManager
+                    .createQuery("SELECT MAX(p.changeSeq) FROM Product p", Long.class)
+                    .getSingleResult();
+            Long tombstones = entityManager
+                    .createQuery("SELECT MAX(t.changeSeq) FROM ProductTombstone t", Long.class)
+                    .getSingleResult();
+            sequence = Math.max(products != null ? products : 0L, tombstones != null ? tombstones : 0L);
+        }
+        return sequence;
+    }
+}
@@ -1,10 +1,19 @@
 package br.com.springboot.erp.service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import br.com.springboot.erp.model.dto.BulkPriceUpdateRequest;
+import br.com.springboot.erp.model.dto.BulkStockUpdateRequest;
+import br.com.springboot.erp.model.dto.BulkUpdateResultDto;
+import br.com.springboot.erp.model.dto.EntityVersion;
+import br.com.springboot.erp.model.dto.ProductChangesDto;
+import br.com.springboot.erp.model.dto.StockBufferStatsDto;
 import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.StockMovement;
 
 /**
  * Serviço para gerenciamento de produtos.
@@ -15,19 +24,92 @@ public interface ProductService {
     
     Optional<Product> findProductById(Long id);
     
+    Optional<EntityVersion> findProductVersion(Long id);
+
+    /**
+     * Indica se a versão do produto reflete o estoque atual. Com o livro de estoque,
+     * movimentações ainda não consolidadas mudam o estoque sem mudar a versão.
+     */
+    boolean isVersionCurrent(Long id);
+    
     Optional<Product> findProductBySku(String sku);
+
+    /**
+     * Busca em lote, na ordem informada; ids inexistentes são ignorados.
+     */
+    List<Product> findProductsByIds(Collection<Long> ids);
+
+    /**
+     * Busca em lote por SKU, na ordem informada; SKUs inexistentes são ignorados.
+     */
+    List<Product> findProductsBySkus(Collection<String> skus);
     
     List<Product> findAllProducts();
     
     List<Product> findProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice);
     
     void updateProductStock(Long productId, Integer newStock);
+
+    /**
+     * Como {@link #updateProductStock(Long, Integer)}, sem transação própria: com o livro de
+     * estoque, chamado fora de transação, o ajuste entra no group commit e a espera não prende
+     * uma conexão; dentro de uma transação, entra nela.
+     */
+    void recordStockLevel(Long productId, Integer newStock);
+
+    /**
+     * Indica se o estoque é registrado no livro de movimentações ({@code erp.stock.ledger.enabled}).
+     */
+    boolean isStockLedgerEnabled();
     
     void updateProductPrice(Long productId, BigDecimal newPrice);
+
+    /**
+     * Aplica um JSON Merge Patch (RFC 7396) ao produto; o UPDATE inclui só as colunas alteradas.
+     *
+     * @param expectedVersion versão exigida pelo {@code If-Match} ({@code null} = sem precondição)
+     * @return produto atualizado, ou vazio se não existir
+     */
+    Optional<Product> patchProduct(Long productId, Long expectedVersion, Map<String, Object> changes);
     
-    void deleteProduct(Long productId);
+    /**
+     * Reajusta em um único UPDATE o preço dos produtos do filtro (percentual ou valor absoluto).
+     */
+    BulkUpdateResultDto updatePrices(BulkPriceUpdateRequest request);
+
+    /**
+     * Soma um ajuste ao estoque dos produtos do filtro em um único UPDATE.
+     */
+    BulkUpdateResultDto adjustStocks(BulkStockUpdateRequest request);
+    
+    /**
+     * Remove o produto sem carregá-lo.
+     *
+     * @return {@code false} se o produto não existir
+     */
+    boolean deleteProduct(Long productId);
+
+    /**
+     * Remove os produtos com DELETEs em lote; ids inexistentes são ignorados.
+     * Como nas buscas em lote, há um limite de ids por chamada (acima dele, {@code IllegalArgumentException}).
+     *
+     * @return produtos removidos
+     */
+    int deleteProducts(Collection<Long> productIds);
     
     BigDecimal calculateInventoryValue();
     
     List<Product> findProductsWithLowStock();
-}
\ No newline at end of file
+    
+    ProductChangesDto findProductChanges(long since, int limit);
+
+    /**
+     * Estatísticas do buffer de escrita adiada de estoque (pendências e atraso de gravação).
+     */
+    StockBufferStatsDto getStockBufferStats();
+
+    /**
+     * Movimentações de estoque do produto, da mais recente para a mais antiga.
+     */
+    List<StockMovement> findStockMovements(Long productId, int limit);
+}
@@ -1,13 +1,32 @@
 package br.com.springboot.erp.service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import br.com.springboot.erp.model.dto.BulkPriceUpdateRequest;
+import br.com.springboot.erp.model.dto.BulkStockUpdateRequest;
+import br.com.springboot.erp.model.dto.BulkUpdateResultDto;
+import br.com.springboot.erp.model.dto.EntityVersion;
+import br.com.springboot.erp.model.dto.ProductChangesDto;
+import br.com.springboot.erp.model.dto.ProductBulkFilter;
+import br.com.springboot.erp.model.dto.ProductDto;
+import br.com.springboot.erp.model.dto.StockBufferStatsDto;
 import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.ProductTombstone;
+import br.com.springboot.erp.model.entity.StockMovement;
+import br.com.springboot.erp.model.entity.StockMovementReason;
 import br.com.springboot.erp.repository.ProductRepository;
 
 /**
@@ -16,10 +35,39 @@ import br.com.springboot.erp.repository.ProductRepository;
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final Set<String> PATCHABLE_FIELDS = Set.of("name", "description", "price", "stock", "sku",
+            "lowStockThreshold");
+
+    private static final int MAX_LOOKUP_KEYS = 1000;
+
     private final ProductRepository productRepository;
 
-    public ProductServiceImpl(ProductRepository productRepository) {
+    private final ProductChangeTracker changeTracker;
+
+    private final LowStockAlertService lowStockAlertService;
+
+    private final StockWriteBehindBuffer stockBuffer;
+
+    private final StockLedger stockLedger;
+
+    private final StockReservationService stockReservations;
+
+    private final EntityCountService entityCounts;
+
+    @Value("${erp.stock.low-threshold:10}")
+    private int lowStockThreshold = 10;
+
+    public ProductServiceImpl(ProductRepository productRepository, ProductChangeTracker changeTracker,
+                              LowStockAlertService lowStockAlertService, StockWriteBehindBuffer stockBuffer,
+                              StockLedger stockLedger, StockReservationService stockReservations,
+                              EntityCountService entityCounts) {
         this.productRepository = productRepository;
+        this.changeTracker = changeTracker;
+        this.lowStockAlertService = lowStockAlertService;
+        this.stockBuffer = stockBuffer;
+        this.stockLedger = stockLedger;
+        this.stockReservations = stockReservations;
+        this.entityCounts = entityCounts;
     }
 
     @Override
@@ -28,59 +76,308 @@ public class ProductServiceImpl implements ProductService {
         if (product.getPrice() != null && product.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Preço não pode ser negativo");
         }    	
-        return productRepository.save(product);
+        if (stockLedger.isEnabled()) {
+            return saveWithLedger(product);
+        }
+        // estoque pendente no buffer é gravado antes, para não sobrescrever esta escrita depois
+        flushBuffered(product.getId());
+        boolean created = product.getId() == null;
+        Integer previousStock = !created
+                ? productRepository.findById(product.getId()).map(Product::getStock).orElse(null)
+                : null;
+        product.setChangeSeq(changeTracker.next());
+        Product saved = productRepository.save(product);
+        if (saved != null) {
+            if (created) {
+                entityCounts.onProductsChanged(1);
+            }
+            lowStockAlertService.onStockChange(saved, previousStock);
+            stockReservations.onStockChange(saved.getId());
+        }
+        return saved;
     }
 
     @Override
     public Optional<Product> findProductById(Long id) {	
-        return productRepository.findById(id);
+        return productRepository.findById(id).map(this::withCurrentStock);
+    }
+
+    // sem transação somente leitura: o estoque pendente é gravado antes (transação de escrita curta)
+    // e a versão vem do primário
+    @Override
+    public Optional<EntityVersion> findProductVersion(Long id) {
+        // a versão só muda quando o estoque pendente chega a products; com o livro, ver isVersionCurrent
+        if (!stockLedger.isEnabled()) {
+            flushBuffered(id);
+        }
+        return productRepository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isVersionCurrent(Long id) {
+        return !stockLedger.isEnabled() || !stockLedger.hasPendingMovements(id);
     }
 
     @Override
     public Optional<Product> findProductBySku(String sku) {
-        return productRepository.findBySku(sku);
+        return productRepository.findBySku(sku).map(this::withCurrentStock);
+    }
+
+    @Override
+    public List<Product> findProductsByIds(Collection<Long> ids) {
+        requireLookupLimit(ids);
+        return withCurrentStock(productRepository.findAllById(ids));
+    }
+
+    @Override
+    public List<Product> findProductsBySkus(Collection<String> skus) {
+        requireLookupLimit(skus);
+        return withCurrentStock(productRepository.findBySkus(skus));
     }
 
     @Override
     public List<Product> findAllProducts() {
-        return productRepository.findAll();
+        return withCurrentStock(productRepository.findAll());
     }
 
     @Override
     public List<Product> findProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice) {
-        return productRepository.findByPriceGreaterThan(minPrice);
+        return withCurrentStock(productRepository.findByPriceGreaterThan(minPrice));
     }
 
     @Override
+    @Transactional
     public void updateProductStock(Long productId, Integer newStock) {
+        applyStockLevel(productId, newStock);
+    }
+
+    // sem transação própria: sozinho vai ao group commit do livro; dentro de uma (ex.: lote) entra nela
+    @Override
+    public void recordStockLevel(Long productId, Integer newStock) {
+        applyStockLevel(productId, newStock);
+    }
+
+    @Override
+    public boolean isStockLedgerEnabled() {
+        return stockLedger.isEnabled();
+    }
+
+    private void applyStockLevel(Long productId, Integer newStock) {
         Optional<Product> productOpt = productRepository.findById(productId);
-        if (productOpt.isPresent()) {
+        if (productOpt.isPresent() && stockLedger.isEnabled()) {
+            if (newStock == null) {
+                throw new IllegalArgumentException("Estoque não pode ser nulo");
+            }
+            // movimentação de ajuste pela diferença; products.stock só muda na consolidação
+            StockLedger.StockChange change = stockLedger.setStock(productId, newStock, StockMovementReason.AJUSTE);
+            if (change != null) {
+                lowStockAlertService.onStockChange(productOpt.get(), change.previousStock(), change.newStock());
+                stockReservations.onStockChange(productId);
+            }
+        } else if (productOpt.isPresent() && stockBuffer.isEnabled()) {
+            // escrita adiada: a entidade não é alterada, o buffer grava o último valor em lote
+            Product product = productOpt.get();
+            Integer previousStock = stockBuffer.currentStock(product);
+            stockBuffer.put(productId, newStock);
+            lowStockAlertService.onStockChange(product, previousStock, newStock);
+            stockReservations.onStockChange(productId);
+        } else if (productOpt.isPresent()) {
             Product product = productOpt.get();
+            Integer previousStock = product.getStock();
             product.setStock(newStock);
+            product.setChangeSeq(changeTracker.next());
             productRepository.save(product);
+            lowStockAlertService.onStockChange(product, previousStock);
+            stockReservations.onStockChange(productId);
         }
     }
 
     @Override
     @Transactional
     public void updateProductPrice(Long productId, BigDecimal newPrice) {
+        flushBuffered(productId);
         Optional<Product> productOpt = productRepository.findById(productId);
         if (productOpt.isPresent()) {
             Product product = productOpt.get();
             product.setPrice(newPrice);
+            product.setChangeSeq(changeTracker.next());
             productRepository.save(product);
         }
     }
 
+    // entidade gerenciada + @DynamicUpdate: sem merge, o UPDATE leva só o que mudou (e a versão)
+    @Override
+    @Transactional
+    public Optional<Product> patchProduct(Long productId, Long expectedVersion, Map<String, Object> changes) {
+        MergePatch patch = new MergePatch(changes, PATCHABLE_FIELDS);
+        flushBuffered(productId);
+        Optional<Product> productOpt = productRepository.findById(productId);
+        if (productOpt.isEmpty()) {
+            return Optional.empty();
+        }
+        Product product = productOpt.get();
+        if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Product.class, productId);
+        }
+
+        boolean changed = false;
+        if (patch.has("name") && !Objects.equals(patch.text("name"), product.getName())) {
+            product.setName(patch.text("name"));
+            changed = true;
+        }
+        if (patch.has("description") && !Objects.equals(patch.text("description"), product.getDescription())) {
+            product.setDescription(patch.text("description"));
+            changed = true;
+        }
+        if (patch.has("price")) {
+            BigDecimal price = patch.decimal("price");
+            if (price != null && price.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Preço não pode ser negativo");
+            }
+            if (price == null || product.getPrice() == null || price.compareTo(product.getPrice()) != 0) {
+                product.setPrice(price);
+                changed = true;
+            }
+        }
+        if (patch.has("sku") && !Objects.equals(patch.text("sku"), product.getSku())) {
+            product.setSku(patch.text("sku"));
+            changed = true;
+        }
+        if (patch.has("lowStockThreshold")
+                && !Objects.equals(patch.integer("lowStockThreshold"), product.getLowStockThreshold())) {
+            product.setLowStockThreshold(patch.integer("lowStockThreshold"));
+            changed = true;
+        }
+
+        // estoque segue o mesmo caminho do saveProduct: com o livro de estoque vira movimentação de ajuste
+        Integer previousStock = stockLedger.isEnabled() ? stockLedger.currentStock(productId) : product.getStock();
+        Integer stock = previousStock;
+        if (patch.has("stock")) {
+            stock = patch.integer("stock");
+            if (stock == null || stock < 0) {
+                throw new IllegalArgumentException("Estoque não pode ser nulo ou negativo");
+            }
+        }
+        boolean stockChanged = !Objects.equals(stock, previousStock);
+        if (stockChanged && stockLedger.isEnabled()) {
+            stockLedger.append(productId, stock - (previousStock != null ? previousStock : 0),
+                    StockMovementReason.AJUSTE, null);
+        } else if (stockChanged) {
+            product.setStock(stock);
+        }
+
+        if (changed || stockChanged) {
+            product.setChangeSeq(changeTracker.next());
+        }
+        productRepository.flush();
+        if (stockLedger.isEnabled()) {
+            product = stockLedger.detachWithStock(product, stock);
+        }
+        if (stockChanged) {
+            lowStockAlertService.onStockChange(product, previousStock);
+            stockReservations.onStockChange(productId);
+        }
+        return Optional.of(product);
+    }
+
+    // um UPDATE para o filtro inteiro, no lugar de um find/merge por produto
+    @Override
+    @Transactional
+    public BulkUpdateResultDto updatePrices(BulkPriceUpdateRequest request) {
+        ProductBulkFilter filter = requireFilter(request.filter());
+        if (request.mode() == null || request.value() == null) {
+            throw new IllegalArgumentException("Modo e valor do reajuste são obrigatórios");
+        }
+        if (filter.ids() != null && filter.ids().isEmpty()) {
+            return new BulkUpdateResultDto(0, null);
+        }
+        // só o preço muda: o estoque pendente no buffer ou no livro não é afetado
+        long changeSeq = changeTracker.next();
+        int updated;
+        if (request.mode() == BulkPriceUpdateRequest.Mode.PERCENT) {
+            BigDecimal factor = BigDecimal.ONE.add(request.value().movePointLeft(2));
+            if (factor.compareTo(BigDecimal.ZERO) <= 0) {
+                throw new IllegalArgumentException("Reajuste percentual deve ser maior que -100");
+            }
+            updated = productRepository.scalePrices(filter, factor, changeSeq);
+        } else {
+            updated = productRepository.shiftPrices(filter, request.value(), changeSeq);
+        }
+        return new BulkUpdateResultDto(updated, updated > 0 ? changeSeq : null);
+    }
+
+    @Override
+    @Transactional
+    public BulkUpdateResultDto adjustStocks(BulkStockUpdateRequest request) {
+        ProductBulkFilter filter = requireFilter(request.filter());
+        if (request.delta() == null) {
+            throw new IllegalArgumentException("Ajuste de estoque é obrigatório");
+        }
+        int delta = request.delta();
+        if (delta == 0 || (filter.ids() != null && filter.ids().isEmpty())) {
+            return new BulkUpdateResultDto(0, null);
+        }
+        if (stockLedger.isEnabled()) {
+            return adjustStocksWithLedger(filter, delta);
+        }
+        // "stock + delta" precisa partir do valor atual: grava antes o estoque pendente no buffer
+        flushAllBuffered();
+        long changeSeq = changeTracker.next();
+        int updated = productRepository.adjustStocks(filter, delta, changeSeq);
+        if (updated == 0) {
+            return new BulkUpdateResultDto(0, null);
+        }
+        // as linhas alteradas são as que receberam a sequência do UPDATE
+        stockReservations.onStockChange(productRepository.findIdsByChangeSeq(changeSeq));
+        for (Product product : productRepository.findLowStockCrossings(changeSeq, delta, lowStockThreshold)) {
+            lowStockAlertService.onStockChange(product, product.getStock() - delta);
+        }
+        return new BulkUpdateResultDto(updated, changeSeq);
+    }
+
     @Override
     @Transactional
-    public void deleteProduct(Long productId) {
+    public boolean deleteProduct(Long productId) {
+        flushBuffered(productId);
+        // só o SKU (para o tombstone) é lido; a exclusão é um DELETE direto
+        Map<Long, String> skus = productRepository.findSkusByIds(List.of(productId));
+        if (!skus.containsKey(productId)) {
+            return false;
+        }
         productRepository.deleteById(productId);
+        stockReservations.onStockChange(productId);
+        entityCounts.onProductsChanged(-1);
+        saveTombstones(skus);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public int deleteProducts(Collection<Long> productIds) {
+        requireLookupLimit(productIds);
+        if (productIds.isEmpty()) {
+            return 0;
+        }
+        if (stockLedger.isEnabled()) {
+            stockLedger.lockProducts(productIds);
+        } else if (stockBuffer.isEnabled()) {
+            stockBuffer.flush(productIds);
+        }
+        Map<Long, String> skus = productRepository.findSkusByIds(productIds);
+        if (skus.isEmpty()) {
+            return 0;
+        }
+        int deleted = productRepository.deleteAllByIdInBatch(skus.keySet());
+        stockReservations.onStockChange(skus.keySet());
+        entityCounts.onProductsChanged(-deleted);
+        saveTombstones(skus);
+        return deleted;
     }
 
     @Override
     public BigDecimal calculateInventoryValue() {
-        List<Product> products = productRepository.findAll();
+        List<Product> products = withCurrentStock(productRepository.findAll());
         
         return products.stream()
                 .map(Product::calculateTotalValue)
@@ -89,6 +386,166 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public List<Product> findProductsWithLowStock() {
-        return productRepository.findProductsWithLowStock(10);
+        if (stockLedger.isEnabled()) {
+            return stockLedger.findLowStock(lowStockThreshold);
+        }
+        // filtro por estoque roda no banco: grava o buffer antes
+        flushAllBuffered();
+        return productRepository.findProductsWithLowStock(lowStockThreshold);
+    }
+
+    // sem transação somente leitura, como findProductVersion: o buffer é gravado antes e o feed
+    // é lido do primário (uma réplica atrasada poderia faltar sequências já estáveis)
+    @Override
+    public ProductChangesDto findProductChanges(long since, int limit) {
+        // com o livro, o estoque entra no feed quando o agendador consolida (nova sequência)
+        flushAllBuffered();
+        // Só expõe sequências cujas transações já terminaram (ver ProductChangeTracker)
+        long upTo = changeTracker.stableSequence();
+        List<Product> changed = productRepository.findChangedBetween(since, upTo, limit + 1);
+        List<ProductTombstone> deleted = productRepository.findTombstonesBetween(since, upTo, limit + 1);
+
+        // Intercala as duas listas (já ordenadas) por sequência, até o limite da página
+        List<ProductDto> upserts = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        long last = since;
+        while (upserts.size() + deletedIds.size() < limit && (i < changed.size() || j < deleted.size())) {
+            boolean takeProduct = j >= deleted.size()
+                    || (i < changed.size() && changed.get(i).getChangeSeq() < deleted.get(j).getChangeSeq());
+            if (takeProduct) {
+                Product product = changed.get(i++);
+                upserts.add(ProductDto.from(product));
+                last = product.getChangeSeq();
+            } else {
+                ProductTombstone tombstone = deleted.get(j++);
+                deletedIds.add(tombstone.getProductId());
+                last = tombstone.getChangeSeq();
+            }
+        }
+
+        boolean hasMore = i < changed.size() || j < deleted.size();
+        long nextSince = hasMore ? last : Math.max(since, upTo);
+        return new ProductChangesDto(since, nextSince, hasMore, upserts, deletedIds);
+    }
+
+    @Override
+    public StockBufferStatsDto getStockBufferStats() {
+        return stockBuffer.stats();
+    }
+
+    @Override
+    public List<StockMovement> findStockMovements(Long productId, int limit) {
+        return stockLedger.findMovements(productId, limit);
+    }
+
+    // Tombstones para que a sincronização incremental propague as exclusões
+    private void saveTombstones(Map<Long, String> skus) {
+        LocalDateTime now = LocalDateTime.now();
+        skus.forEach((productId, sku) -> {
+            ProductTombstone tombstone = new ProductTombstone();
+            tombstone.setProductId(productId);
+            tombstone.setSku(sku);
+            tombstone.setChangeSeq(changeTracker.next());
+            tombstone.setDeletedAt(now);
+            productRepository.saveTombstone(tombstone);
+        });
+    }
+
+    // Com o livro de estoque, products.stock guarda o saldo consolidado: a diferença pedida vira movimentação
+    private Product saveWithLedger(Product product) {
+        Integer requestedStock = product.getStock();
+        Integer previousStock = null;
+        boolean created = product.getId() == null;
+        if (!created) {
+            stockLedger.lockProducts(List.of(product.getId()));
+            previousStock = stockLedger.currentStock(product.getId());
+            product.setStock(stockLedger.baseStock(product.getId()));
+        } else if (requestedStock != null) {
+            product.setStock(0);
+        }
+        product.setChangeSeq(changeTracker.next());
+        Product saved = productRepository.save(product);
+        if (saved == null) {
+            return null;
+        }
+        if (created) {
+            entityCounts.onProductsChanged(1);
+        }
+
+        Integer stock = previousStock != null ? previousStock : saved.getStock();
+        if (requestedStock != null && !requestedStock.equals(stock)) {
+            StockMovementReason reason = previousStock != null ? StockMovementReason.AJUSTE
+                    : StockMovementReason.SALDO_INICIAL;
+            stockLedger.append(saved.getId(), requestedStock - (stock != null ? stock : 0), reason, null);
+            stock = requestedStock;
+        }
+        saved = stockLedger.detachWithStock(saved, stock);
+        lowStockAlertService.onStockChange(saved, previousStock);
+        stockReservations.onStockChange(saved.getId());
+        return saved;
+    }
+
+    // products.stock é só a base consolidada do livro: o ajuste vira uma movimentação por produto
+    private BulkUpdateResultDto adjustStocksWithLedger(ProductBulkFilter filter, int delta) {
+        List<Product> products = productRepository.findByBulkFilter(filter);
+        stockLedger.lockProducts(products.stream().map(Product::getId).toList());
+        List<Long> changed = new ArrayList<>();
+        for (Product product : products) {
+            Integer previousStock = stockLedger.currentStock(product.getId());
+            if (previousStock == null || previousStock + delta < 0) {
+                continue;
+            }
+            stockLedger.append(product.getId(), delta, StockMovementReason.AJUSTE, null);
+            lowStockAlertService.onStockChange(product, previousStock, previousStock + delta);
+            changed.add(product.getId());
+        }
+        stockReservations.onStockChange(changed);
+        return new BulkUpdateResultDto(changed.size(), null);
+    }
+
+    private static void requireLookupLimit(Collection<?> keys) {
+        if (keys.size() > MAX_LOOKUP_KEYS) {
+            throw new IllegalArgumentException("Informe no máximo " + MAX_LOOKUP_KEYS + " produtos por consulta");
+        }
+    }
+
+    // sem nenhum critério a operação alcançaria o catálogo inteiro: exige ao menos um
+    private static ProductBulkFilter requireFilter(ProductBulkFilter filter) {
+        if (filter == null || filter.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um filtro (faixa de preço, prefixo de SKU ou ids)");
+        }
+        return filter;
+    }
+
+    private Product withCurrentStock(Product product) {
+        if (stockLedger.isEnabled()) {
+            return stockLedger.overlay(product);
+        }
+        return stockBuffer.isEnabled() ? stockBuffer.overlay(product) : product;
+    }
+
+    private List<Product> withCurrentStock(List<Product> products) {
+        if (stockLedger.isEnabled()) {
+            return stockLedger.overlay(products);
+        }
+        return stockBuffer.isEnabled() ? stockBuffer.overlay(products) : products;
+    }
+
+    private void flushBuffered(Long productId) {
+        if (productId != null && stockLedger.isEnabled()) {
+            // escrita JPA do produto não concorre com a consolidação do saldo
+            stockLedger.lockProducts(List.of(productId));
+        } else if (productId != null && stockBuffer.isEnabled() && stockBuffer.hasPending(productId)) {
+            stockBuffer.flush(List.of(productId));
+        }
+    }
+
+    // o livro de estoque não é consolidado em leituras: só o agendador consolida
+    private void flushAllBuffered() {
+        if (!stockLedger.isEnabled() && stockBuffer.isEnabled()) {
+            stockBuffer.flushAll();
+        }
     }
-}
\ No newline at end of file
+}
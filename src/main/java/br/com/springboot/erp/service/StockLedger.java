@@ -0,0 +1,681 @@
+package br.com.springboot.erp.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.StockMovement;
+import br.com.springboot.erp.model.entity.StockMovementReason;
+import br.com.springboot.erp.model.entity.StockSnapshot;
+
+/**
+ * Livro de movimentações de estoque, opcional ({@code erp.stock.ledger.enabled}).
+ *
+ * Com o livro ligado, alterações de estoque deixam de sobrescrever
+ * {@code products.stock}: cada uma vira uma linha em {@code stock_movements}
+ * (variação com sinal, motivo e pedido de origem). O estoque atual é o saldo do
+ * último {@link StockSnapshot} mais a soma das movimentações posteriores.
+ *
+ * - Fora de transação, as movimentações vão para uma fila e uma única thread as
+ *   grava em lote (group commit): muitas escritas concorrentes, uma transação.
+ *   Quem chamou espera a confirmação antes de retornar.
+ * - Dentro de uma transação (ex.: finalização de pedido) a movimentação entra
+ *   nela, mantendo a atomicidade com o restante da operação.
+ * - Periodicamente as movimentações são consolidadas em snapshots, e o saldo é
+ *   materializado em {@code products.stock} (com nova versão e sequência), de
+ *   modo que ETags e a sincronização incremental continuem funcionando. Só o
+ *   agendador consolida: leituras somam a cauda não consolidada na própria
+ *   consulta ({@link #currentStocks(Collection)}, {@link #findLowStock(Integer)})
+ *   e nunca escrevem.
+ *
+ * Verificações de saldo ("tem estoque?") usam locks por faixa de produto, mantidos
+ * até o fim da transação, para que duas baixas concorrentes não passem ambas.
+ * Como {@link ProductChangeTracker}, assume uma única instância da aplicação.
+ */
+@Component
+public class StockLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+
+    private static final String INSERT_MOVEMENT = "INSERT INTO stock_movements "
+            + "(id, product_id, delta, reason, order_id, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_STOCK = "UPDATE products SET stock = ?, change_seq = ?, "
+            + "version = COALESCE(version, 0) + 1, updated_at = ? WHERE id = ?";
+
+    private static final int LOCK_STRIPES = 64;
+
+    // limite de parâmetros por IN nas leituras em lote
+    private static final int IN_CHUNK_SIZE = 512;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long groupWaitNanos;
+    private final long commitTimeoutMillis;
+    private final long snapshotIntervalMillis;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTx;
+    private final ProductChangeTracker changeTracker;
+
+    private final BlockingQueue<PendingMovement> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+
+    // identificadores das movimentações ainda não confirmadas (ver stableMovementId)
+    private final ConcurrentSkipListSet<Long> inFlight = new ConcurrentSkipListSet<>();
+    private final ReentrantLock sequenceLock = new ReentrantLock();
+    private long sequence = -1;
+
+    private final AtomicLong groupCommits = new AtomicLong();
+    private final AtomicLong groupCommittedMovements = new AtomicLong();
+    private final AtomicLong snapshots = new AtomicLong();
+
+    private volatile boolean running;
+    private ExecutorService writer;
+    private ScheduledExecutorService snapshotter;
+
+    public StockLedger(DataSource dataSource, PlatformTransactionManager transactionManager,
+                       ProductChangeTracker changeTracker,
+                       @Value("${erp.stock.ledger.enabled:false}") boolean enabled,
+                       @Value("${erp.stock.ledger.max-batch:500}") int maxBatch,
+                       @Value("${erp.stock.ledger.group-wait-ms:1}") long groupWaitMillis,
+                       @Value("${erp.stock.ledger.commit-timeout-ms:5000}") long commitTimeoutMillis,
+                       @Value("${erp.stock.ledger.snapshot-interval-ms:5000}") long snapshotIntervalMillis) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.writeTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.changeTracker = changeTracker;
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.groupWaitNanos = TimeUnit.MILLISECONDS.toNanos(groupWaitMillis);
+        this.commitTimeoutMillis = commitTimeoutMillis;
+        this.snapshotIntervalMillis = snapshotIntervalMillis;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            running = true;
+            writer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("stock-ledger-writer-"));
+            writer.execute(this::writeLoop);
+            snapshotter = Executors.newSingleThreadScheduledExecutor(
+                    new CustomizableThreadFactory("stock-ledger-snapshot-"));
+            snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalMillis,
+                    snapshotIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (!enabled) {
+            return;
+        }
+        // o escritor esvazia a fila antes de sair
+        running = false;
+        snapshotter.shutdown();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+            snapshotter.awaitTermination(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Registra uma variação de estoque.
+     *
+     * @return saldo antes e depois, ou {@code null} se o produto não existe
+     */
+    public StockChange append(Long productId, int delta, StockMovementReason reason, Long orderId) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            lockProducts(List.of(productId));
+            Integer current = currentStock(productId);
+            if (current == null) {
+                return null;
+            }
+            persist(productId, delta, reason, orderId);
+            return new StockChange(productId, current, current + delta);
+        }
+        return submit(new PendingMovement(productId, delta, null, reason, orderId));
+    }
+
+    /**
+     * Ajusta o estoque para um valor absoluto, registrando a diferença em relação ao saldo atual.
+     *
+     * @return saldo antes e depois, ou {@code null} se o produto não existe
+     */
+    public StockChange setStock(Long productId, int target, StockMovementReason reason) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            lockProducts(List.of(productId));
+            Integer current = currentStock(productId);
+            if (current == null) {
+                return null;
+            }
+            if (current != target) {
+                persist(productId, target - current, reason, null);
+            }
+            return new StockChange(productId, current, target);
+        }
+        return submit(new PendingMovement(productId, 0, target, reason, null));
+    }
+
+    /**
+     * Estoque atual: saldo consolidado mais as movimentações posteriores ao snapshot.
+     *
+     * @return {@code null} se o produto não existe
+     */
+    public Integer currentStock(Long productId) {
+        // saldo e ponto do snapshot na mesma instrução: uma consolidação concorrente não os separa
+        List<Object[]> base = entityManager.createQuery(
+                "SELECT p.stock, s.lastMovementId FROM Product p "
+                        + "LEFT JOIN StockSnapshot s ON s.productId = p.id WHERE p.id = :id", Object[].class)
+                .setParameter("id", productId)
+                .getResultList();
+        if (base.isEmpty()) {
+            return null;
+        }
+        Integer stock = (Integer) base.get(0)[0];
+        Long since = (Long) base.get(0)[1];
+        Long tail = entityManager.createQuery(
+                "SELECT SUM(m.delta) FROM StockMovement m WHERE m.productId = :id AND m.id > :since", Long.class)
+                .setParameter("id", productId)
+                .setParameter("since", since != null ? since : 0L)
+                .getSingleResult();
+        return (stock != null ? stock : 0) + (tail != null ? tail.intValue() : 0);
+    }
+
+    /**
+     * Saldo materializado em {@code products.stock}; é sobre ele que as movimentações são somadas.
+     */
+    public Integer baseStock(Long productId) {
+        List<Integer> stock = entityManager.createQuery(
+                "SELECT p.stock FROM Product p WHERE p.id = :id", Integer.class)
+                .setParameter("id", productId)
+                .getResultList();
+        return stock.isEmpty() ? null : stock.get(0);
+    }
+
+    /**
+     * Estoque atual de vários produtos, em lotes de {@value #IN_CHUNK_SIZE} ids.
+     *
+     * Saldo, ponto do snapshot e cauda vêm da mesma instrução (a cauda numa subconsulta
+     * correlacionada): uma consolidação concorrente não os separa. Produtos inexistentes
+     * ficam de fora do mapa.
+     */
+    public Map<Long, Integer> currentStocks(Collection<Long> productIds) {
+        List<Long> ids = productIds.stream().filter(Objects::nonNull).distinct().toList();
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            List<Object[]> rows = entityManager.createQuery(
+                    "SELECT p.id, p.stock + COALESCE((SELECT SUM(m.delta) FROM StockMovement m "
+                            + "WHERE m.productId = p.id AND m.id > COALESCE(s.lastMovementId, 0)), 0) "
+                            + "FROM Product p LEFT JOIN StockSnapshot s ON s.productId = p.id "
+                            + "WHERE p.id IN :ids", Object[].class)
+                    .setParameter("ids", ids.subList(from, Math.min(from + IN_CHUNK_SIZE, ids.size())))
+                    .getResultList();
+            for (Object[] row : rows) {
+                stocks.put((Long) row[0], row[1] != null ? ((Number) row[1]).intValue() : 0);
+            }
+        }
+        return stocks;
+    }
+
+    /**
+     * Produtos cujo estoque atual (saldo mais cauda) está abaixo do limite, com o estoque
+     * atual aplicado.
+     */
+    public List<Product> findLowStock(Integer minStock) {
+        List<Product> products = entityManager.createQuery(
+                "SELECT p FROM Product p LEFT JOIN StockSnapshot s ON s.productId = p.id "
+                        + "WHERE COALESCE(p.stock, 0) + COALESCE((SELECT SUM(m.delta) FROM StockMovement m "
+                        + "WHERE m.productId = p.id AND m.id > COALESCE(s.lastMovementId, 0)), 0) "
+                        + "< COALESCE(p.lowStockThreshold, :minStock)", Product.class)
+                .setParameter("minStock", minStock)
+                .getResultList();
+        return overlay(products);
+    }
+
+    /**
+     * Indica se o produto tem movimentações ainda não consolidadas, isto é, se o estoque
+     * atual difere do materializado em {@code products.stock} (e a versão ainda não mudou).
+     */
+    public boolean hasPendingMovements(Long productId) {
+        return !entityManager.createQuery(
+                "SELECT m.id FROM StockMovement m LEFT JOIN StockSnapshot s ON s.productId = m.productId "
+                        + "WHERE m.productId = :id AND m.id > COALESCE(s.lastMovementId, 0)", Long.class)
+                .setParameter("id", productId)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    /**
+     * Aplica o estoque atual à entidade lida do banco, sem gravar nada.
+     *
+     * Entidade gerenciada seria marcada como suja e sobrescreveria o saldo materializado:
+     * é gravada (se houver transação) e desassociada antes de receber o estoque atual.
+     */
+    public Product overlay(Product product) {
+        if (product == null || product.getId() == null) {
+            return product;
+        }
+        Integer current = currentStock(product.getId());
+        if (current != null) {
+            detach(product);
+            product.setStock(current);
+        }
+        return product;
+    }
+
+    /**
+     * Como {@link #overlay(Product)}, com uma consulta por lote de produtos.
+     */
+    public List<Product> overlay(List<Product> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+        Map<Long, Integer> stocks = currentStocks(products.stream().map(Product::getId).toList());
+        for (Product product : products) {
+            Integer current = product.getId() != null ? stocks.get(product.getId()) : null;
+            if (current != null) {
+                detach(product);
+                product.setStock(current);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Grava a entidade gerenciada e a desassocia, para poder devolvê-la com o estoque atual
+     * sem que esse valor seja gravado em {@code products.stock}.
+     */
+    public Product detachWithStock(Product product, Integer stock) {
+        entityManager.flush();
+        entityManager.detach(product);
+        product.setStock(stock);
+        return product;
+    }
+
+    /**
+     * Trava os produtos até o fim da transação corrente, serializando verificações de saldo.
+     * As faixas são adquiridas em ordem fixa para evitar deadlock entre transações.
+     */
+    public void lockProducts(Collection<Long> productIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Travamento de estoque requer uma transação ativa");
+        }
+        int[] indexes = productIds.stream()
+                .filter(Objects::nonNull)
+                .mapToInt(id -> Math.floorMod(id.hashCode(), LOCK_STRIPES))
+                .distinct()
+                .sorted()
+                .toArray();
+        List<ReentrantLock> acquired = new ArrayList<>(indexes.length);
+        try {
+            for (int index : indexes) {
+                ReentrantLock lock = stripes[index];
+                if (!lock.tryLock(commitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    throw new CannotAcquireLockException("Estoque do produto em uso por outra transação");
+                }
+                acquired.add(lock);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired.forEach(ReentrantLock::unlock);
+            throw new CannotAcquireLockException("Interrompido aguardando o estoque do produto", ex);
+        } catch (RuntimeException ex) {
+            acquired.forEach(ReentrantLock::unlock);
+            throw ex;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                for (int i = acquired.size() - 1; i >= 0; i--) {
+                    acquired.get(i).unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Movimentações mais recentes do produto, da mais nova para a mais antiga.
+     */
+    public List<StockMovement> findMovements(Long productId, int limit) {
+        return entityManager.createQuery(
+                "SELECT m FROM StockMovement m WHERE m.productId = :id ORDER BY m.id DESC", StockMovement.class)
+                .setParameter("id", productId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Consolida as movimentações confirmadas de todos os produtos.
+     *
+     * @return quantidade de produtos consolidados
+     */
+    public int snapshot() {
+        return fold(null);
+    }
+
+    /**
+     * Consolida as movimentações confirmadas de um produto.
+     */
+    public void snapshot(Long productId) {
+        if (productId != null) {
+            fold(productId);
+        }
+    }
+
+    public long groupCommits() {
+        return groupCommits.get();
+    }
+
+    public long groupCommittedMovements() {
+        return groupCommittedMovements.get();
+    }
+
+    public long snapshots() {
+        return snapshots.get();
+    }
+
+    private StockChange submit(PendingMovement movement) {
+        if (!running) {
+            throw new IllegalStateException("Livro de estoque não está em execução");
+        }
+        queue.add(movement);
+        try {
+            return movement.result().get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            // a movimentação ainda pode ser gravada: o chamador recebe erro transitório
+            throw new QueryTimeoutException("Tempo esgotado aguardando a gravação da movimentação de estoque");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("Interrompido aguardando a gravação da movimentação de estoque");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingMovement> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMovement first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                commit(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+        PendingMovement left;
+        while ((left = queue.poll()) != null) {
+            left.result().completeExceptionally(new IllegalStateException("Livro de estoque encerrado"));
+        }
+    }
+
+    // junta o que chegou enquanto a transação anterior gravava, mais uma janela curta opcional
+    private void collect(List<PendingMovement> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + groupWaitNanos;
+        while (batch.size() < maxBatch) {
+            queue.drainTo(batch, maxBatch - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || remaining <= 0) {
+                return;
+            }
+            PendingMovement next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<PendingMovement> batch) {
+        List<StockChange> changes;
+        try {
+            changes = writeTx.execute(status -> apply(batch));
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao gravar {} movimentações de estoque: {}", batch.size(), ex.getMessage());
+            batch.forEach(movement -> movement.result().completeExceptionally(ex));
+            return;
+        }
+        groupCommits.incrementAndGet();
+        groupCommittedMovements.addAndGet(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(changes.get(i));
+        }
+    }
+
+    private List<StockChange> apply(List<PendingMovement> batch) {
+        lockProducts(batch.stream().map(PendingMovement::productId).toList());
+
+        // saldos lidos uma vez por produto, antes dos inserts, e acumulados em memória
+        Map<Long, Integer> balances = new HashMap<>();
+        for (PendingMovement movement : batch) {
+            if (!balances.containsKey(movement.productId())) {
+                balances.put(movement.productId(), currentStock(movement.productId()));
+            }
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<StockChange> changes = new ArrayList<>(batch.size());
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (PendingMovement movement : batch) {
+            Integer current = balances.get(movement.productId());
+            if (current == null) {
+                changes.add(null);
+                continue;
+            }
+            int delta = movement.target() != null ? movement.target() - current : movement.delta();
+            balances.put(movement.productId(), current + delta);
+            if (delta != 0) {
+                rows.add(new Object[] { nextMovementId(), movement.productId(), delta, movement.reason().name(),
+                        movement.orderId(), now });
+            }
+            changes.add(new StockChange(movement.productId(), current, current + delta));
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MOVEMENT, rows);
+        }
+        return changes;
+    }
+
+    private void persist(Long productId, int delta, StockMovementReason reason, Long orderId) {
+        if (delta == 0) {
+            return;
+        }
+        StockMovement movement = new StockMovement();
+        movement.setId(nextMovementId());
+        movement.setProductId(productId);
+        movement.setDelta(delta);
+        movement.setReason(reason);
+        movement.setOrderId(orderId);
+        movement.setCreatedAt(LocalDateTime.now());
+        entityManager.persist(movement);
+    }
+
+    private void detach(Product product) {
+        if (entityManager.contains(product)) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                entityManager.flush();
+            }
+            entityManager.detach(product);
+        }
+    }
+
+    private int fold(Long productId) {
+        // consolidações serializadas: duas em paralelo somariam a mesma cauda duas vezes
+        snapshotLock.lock();
+        try {
+            Integer folded = writeTx.execute(status -> {
+                long upTo = stableMovementId();
+                TypedQuery<Object[]> query = entityManager.createQuery(
+                        "SELECT m.productId, SUM(m.delta), MAX(m.id) FROM StockMovement m "
+                                + "LEFT JOIN StockSnapshot s ON s.productId = m.productId "
+                                + "WHERE (s.lastMovementId IS NULL OR m.id > s.lastMovementId) AND m.id <= :upTo"
+                                + (productId != null ? " AND m.productId = :productId" : "")
+                                + " GROUP BY m.productId", Object[].class)
+                        .setParameter("upTo", upTo);
+                if (productId != null) {
+                    query.setParameter("productId", productId);
+                }
+                List<Object[]> tails = query.getResultList();
+                if (tails.isEmpty()) {
+                    return 0;
+                }
+                lockProducts(tails.stream().map(row -> (Long) row[0]).toList());
+
+                LocalDateTime now = LocalDateTime.now();
+                for (Object[] row : tails) {
+                    Long id = (Long) row[0];
+                    StockSnapshot snapshot = entityManager.find(StockSnapshot.class, id);
+                    Integer base = snapshot != null ? snapshot.getStock() : baseStock(id);
+                    int stock = (base != null ? base : 0) + ((Number) row[1]).intValue();
+                    boolean first = snapshot == null;
+                    if (first) {
+                        snapshot = new StockSnapshot();
+                        snapshot.setProductId(id);
+                    }
+                    snapshot.setStock(stock);
+                    snapshot.setLastMovementId((Long) row[2]);
+                    snapshot.setTakenAt(now);
+                    if (first) {
+                        entityManager.persist(snapshot);
+                    }
+                    jdbcTemplate.update(UPDATE_STOCK, stock, changeTracker.next(), Timestamp.valueOf(now), id);
+                }
+                return tails.size();
+            });
+            snapshots.incrementAndGet();
+            return folded != null ? folded : 0;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (RuntimeException ex) {
+            log.error("Falha ao consolidar movimentações de estoque; nova tentativa no próximo ciclo", ex);
+        }
+    }
+
+    private long nextMovementId() {
+        long id;
+        sequenceLock.lock();
+        try {
+            id = currentMovementId() + 1;
+            sequence = id;
+            inFlight.add(id);
+        } finally {
+            sequenceLock.unlock();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    inFlight.remove(id);
+                }
+            });
+        } else {
+            inFlight.remove(id);
+        }
+        return id;
+    }
+
+    // maior identificador abaixo do qual não há movimentação em andamento
+    private long stableMovementId() {
+        sequenceLock.lock();
+        try {
+            long current = currentMovementId();
+            return inFlight.isEmpty() ? current : inFlight.first() - 1;
+        } finally {
+            sequenceLock.unlock();
+        }
+    }
+
+    private long currentMovementId() {
+        if (sequence < 0) {
+            Long max = entityManager.createQuery("SELECT MAX(m.id) FROM StockMovement m", Long.class)
+                    .getSingleResult();
+            sequence = max != null ? max : 0L;
+        }
+        return sequence;
+    }
+
+    /**
+     * Saldo do produto antes e depois de uma movimentação.
+     */
+    public record StockChange(Long productId, int previousStock, int newStock) {
+    }
+
+    private record PendingMovement(Long productId, int delta, Integer target, StockMovementReason reason,
+                                   Long orderId, CompletableFuture<StockChange> result) {
+
+        PendingMovement(Long productId, int delta, Integer target, StockMovementReason reason, Long orderId) {
+            this(productId, delta, target, reason, orderId, new CompletableFuture<>());
+        }
+    }
+}
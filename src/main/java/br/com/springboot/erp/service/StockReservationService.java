@@ -0,0 +1,355 @@
+package br.com.springboot.erp.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import br.com.springboot.erp.model.dto.StockAvailabilityDto;
+import br.com.springboot.erp.model.entity.Product;
+
+/**
+ * Reservas de estoque dos pedidos pendentes ({@code erp.stock.reservation.enabled}).
+ *
+ * {@code createOrder} e {@code addItemToOrder} reservam as quantidades; a
+ * reserva expira após {@code erp.stock.reservation.ttl-ms} (renovado a cada item
+ * adicionado), vigiada por uma {@link DelayQueue}. {@code finalizeOrder}
+ * converte a reserva em baixa de estoque e {@code cancelOrder} a libera.
+ *
+ * O disponível para promessa (estoque físico − reservado) é respondido da
+ * memória: reservas vivem só aqui (reinício libera tudo, como uma expiração) e o
+ * estoque físico fica em cache, invalidado quando uma alteração é confirmada.
+ * Atualizações por produto são atômicas via {@link ConcurrentHashMap#compute}.
+ */
+@Component
+public class StockReservationService {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final ObjectProvider<ProductService> productService;
+    private final boolean enabled;
+    private final long ttlNanos;
+
+    // quantidade reservada por produto
+    private final Map<Long, Integer> reserved = new ConcurrentHashMap<>();
+    // estoque físico por produto (cache); a geração impede que uma leitura antiga sobrescreva uma invalidação
+    private final Map<Long, Integer> onHand = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final Map<Long, Reservation> byOrder = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+
+    private final AtomicLong expired = new AtomicLong();
+
+    private ExecutorService sweeper;
+
+    public StockReservationService(ObjectProvider<ProductService> productService,
+                                   @Value("${erp.stock.reservation.enabled:true}") boolean enabled,
+                                   @Value("${erp.stock.reservation.ttl-ms:900000}") long ttlMillis) {
+        this.productService = productService;
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            sweeper = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("stock-reservation-sweeper-"));
+            sweeper.execute(this::sweep);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserva as quantidades (por produto) para o pedido, tudo ou nada.
+     * Se a transação corrente for desfeita, a reserva é desfeita junto.
+     *
+     * @throws InsufficientStockException se algum produto não tem disponível suficiente
+     */
+    public void reserve(Long orderId, Map<Long, Integer> quantities) {
+        if (!enabled || quantities.isEmpty()) {
+            return;
+        }
+        preloadOnHand(quantities.keySet());
+        List<Map.Entry<Long, Integer>> done = new ArrayList<>();
+        try {
+            for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+                reserveUnits(entry.getKey(), entry.getValue());
+                done.add(entry);
+            }
+        } catch (RuntimeException ex) {
+            done.forEach(entry -> releaseUnits(entry.getKey(), entry.getValue()));
+            throw ex;
+        }
+
+        long deadline = System.nanoTime() + ttlNanos;
+        byOrder.merge(orderId, new Reservation(Map.copyOf(quantities), deadline), Reservation::plus);
+        expiries.add(new Expiry(orderId, deadline));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        unreserve(orderId, quantities);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Garante que o pedido tem reservadas ao menos as quantidades informadas
+     * (ex.: reserva expirada antes da finalização), reservando a diferença.
+     */
+    public void ensureReserved(Long orderId, Map<Long, Integer> quantities) {
+        if (!enabled) {
+            return;
+        }
+        Reservation current = byOrder.get(orderId);
+        Map<Long, Integer> missing = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            int held = current != null ? current.quantities().getOrDefault(productId, 0) : 0;
+            if (quantity > held) {
+                missing.put(productId, quantity - held);
+            }
+        });
+        reserve(orderId, missing);
+    }
+
+    /**
+     * Libera a reserva inteira do pedido após o commit (finalização ou cancelamento).
+     */
+    public void release(Long orderId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            Reservation reservation = byOrder.remove(orderId);
+            if (reservation != null) {
+                reservation.quantities().forEach(this::releaseUnits);
+            }
+        });
+    }
+
+    /**
+     * Libera parte da reserva do pedido após o commit (ex.: item removido).
+     */
+    public void release(Long orderId, Map<Long, Integer> quantities) {
+        if (enabled) {
+            afterCommit(() -> unreserve(orderId, quantities));
+        }
+    }
+
+    /**
+     * Invalida o estoque físico em cache quando uma alteração de estoque é confirmada.
+     */
+    public void onStockChange(Long productId) {
+        if (enabled && productId != null) {
+            afterCommit(() -> {
+                generation(productId).incrementAndGet();
+                onHand.remove(productId);
+            });
+        }
+    }
+
+    /**
+     * Variante para alterações em massa: uma única invalidação após o commit.
+     */
+    public void onStockChange(Collection<Long> productIds) {
+        if (enabled && !productIds.isEmpty()) {
+            afterCommit(() -> productIds.forEach(productId -> {
+                generation(productId).incrementAndGet();
+                onHand.remove(productId);
+            }));
+        }
+    }
+
+    /**
+     * Disponível para promessa do produto, respondido da memória.
+     */
+    public Optional<StockAvailabilityDto> availability(Long productId) {
+        Integer stock = onHand(productId);
+        if (stock == null) {
+            return Optional.empty();
+        }
+        int held = reserved.getOrDefault(productId, 0);
+        return Optional.of(new StockAvailabilityDto(productId, stock, held, Math.max(0, stock - held)));
+    }
+
+    public int reservedQuantity(Long productId) {
+        return reserved.getOrDefault(productId, 0);
+    }
+
+    public long expiredReservations() {
+        return expired.get();
+    }
+
+    private void reserveUnits(Long productId, int quantity) {
+        Integer stock = onHand(productId);
+        if (stock == null) {
+            throw new IllegalArgumentException("Produto não encontrado: " + productId);
+        }
+        reserved.compute(productId, (id, current) -> {
+            int held = current != null ? current : 0;
+            if (stock - held < quantity) {
+                throw new InsufficientStockException("Estoque insuficiente para reservar o produto " + productId
+                        + ": disponível " + Math.max(0, stock - held) + ", pedido " + quantity);
+            }
+            return held + quantity;
+        });
+    }
+
+    private void releaseUnits(Long productId, int quantity) {
+        reserved.computeIfPresent(productId, (id, current) -> current > quantity ? current - quantity : null);
+    }
+
+    // devolve apenas o que ainda está reservado: a reserva pode ter expirado nesse meio tempo
+    private void unreserve(Long orderId, Map<Long, Integer> quantities) {
+        Map<Long, Integer> removed = new HashMap<>();
+        byOrder.computeIfPresent(orderId, (id, reservation) -> reservation.minus(quantities, removed));
+        removed.forEach(this::releaseUnits);
+    }
+
+    private Integer onHand(Long productId) {
+        Integer cached = onHand.get(productId);
+        if (cached != null) {
+            return cached;
+        }
+        AtomicLong generation = generation(productId);
+        long seen = generation.get();
+        Optional<Product> product = productService.getObject().findProductById(productId);
+        if (product.isEmpty()) {
+            return null;
+        }
+        int stock = product.get().getStock() != null ? product.get().getStock() : 0;
+        onHand.compute(productId, (id, current) -> generation.get() == seen ? Integer.valueOf(stock) : current);
+        return stock;
+    }
+
+    // consulta o cache primeiro e carrega só os produtos ausentes, em uma busca em lote
+    private void preloadOnHand(Collection<Long> productIds) {
+        Map<Long, Long> seen = new HashMap<>();
+        for (Long productId : productIds) {
+            if (!onHand.containsKey(productId)) {
+                seen.put(productId, generation(productId).get());
+            }
+        }
+        if (seen.size() < 2) {
+            return;
+        }
+        for (Product product : productService.getObject().findProductsByIds(seen.keySet())) {
+            AtomicLong generation = generation(product.getId());
+            long loadedAt = seen.get(product.getId());
+            Integer stock = product.getStock() != null ? product.getStock() : 0;
+            onHand.compute(product.getId(), (id, current) -> generation.get() == loadedAt ? stock : current);
+        }
+    }
+
+    private AtomicLong generation(Long productId) {
+        return generations.computeIfAbsent(productId, id -> new AtomicLong());
+    }
+
+    private void sweep() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Expiry expiry = expiries.take();
+                Reservation reservation = byOrder.get(expiry.orderId());
+                // entradas de prazos já renovados são ignoradas
+                if (reservation != null && reservation.deadline() == expiry.deadline()
+                        && byOrder.remove(expiry.orderId(), reservation)) {
+                    reservation.quantities().forEach(this::releaseUnits);
+                    expired.incrementAndGet();
+                    log.debug("Reserva do pedido {} expirada", expiry.orderId());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException ex) {
+                log.error("Falha ao expirar reserva de estoque", ex);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record Reservation(Map<Long, Integer> quantities, long deadline) {
+
+        // mais itens renovam o prazo
+        Reservation plus(Reservation other) {
+            Map<Long, Integer> merged = new HashMap<>(quantities);
+            other.quantities().forEach((productId, quantity) -> merged.merge(productId, quantity, Integer::sum));
+            return new Reservation(Map.copyOf(merged), Math.max(deadline, other.deadline()));
+        }
+
+        Reservation minus(Map<Long, Integer> released, Map<Long, Integer> removed) {
+            Map<Long, Integer> remaining = new HashMap<>(quantities);
+            released.forEach((productId, quantity) -> {
+                Integer held = remaining.get(productId);
+                if (held != null) {
+                    int taken = Math.min(held, quantity);
+                    removed.merge(productId, taken, Integer::sum);
+                    if (held > taken) {
+                        remaining.put(productId, held - taken);
+                    } else {
+                        remaining.remove(productId);
+                    }
+                }
+            });
+            return remaining.isEmpty() ? null : new Reservation(Map.copyOf(remaining), deadline);
+        }
+    }
+
+    private record Expiry(Long orderId, long deadline) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(deadline, ((Expiry) other).deadline());
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package br.com.springboot.erp.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.model.dto.StockBufferStatsDto;
+import br.com.springboot.erp.model.entity.Product;
+
+/**
+ * Escrita adiada (write-behind) de estoque, opcional ({@code erp.stock.write-behind.enabled}).
+ *
+ * Atualizações repetidas do mesmo produto são coalescidas em um
+ * {@link ConcurrentHashMap} (travamento por bin, sem lock global) e apenas o
+ * último valor é gravado, em UPDATEs JDBC em lote, a cada
+ * {@code erp.stock.write-behind.interval-ms} ou quando o buffer atinge
+ * {@code erp.stock.write-behind.max-pending}.
+ *
+ * Leituras nunca ficam defasadas: {@link #overlay(Product)} aplica o valor
+ * pendente (ou em gravação) às entidades devolvidas, e consultas agregadas no
+ * banco chamam {@link #flushAll()} antes. No shutdown tudo é gravado.
+ *
+ * A gravação nunca abre uma segunda conexão: chamada de dentro de uma transação
+ * de escrita, entra nela; fora de transação (agendador, shutdown), abre a sua.
+ * Dentro de uma transação somente leitura (que pode ir à réplica) não grava.
+ */
+@Component
+public class StockWriteBehindBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(StockWriteBehindBuffer.class);
+
+    private static final String UPDATE_STOCK = "UPDATE products SET stock = ?, change_seq = ?, "
+            + "version = COALESCE(version, 0) + 1, updated_at = ? WHERE id = ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean enabled;
+    private final long intervalMillis;
+    private final int maxPending;
+    private final int batchSize;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate flushTx;
+    private final ProductChangeTracker changeTracker;
+
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+    // entradas já retiradas de pending mas ainda não confirmadas no banco
+    private final Map<Long, Pending> flushing = new ConcurrentHashMap<>();
+    // produtos gravados em transações de quem chamou ainda abertas → valores gravados por cada uma
+    private final Map<Long, Map<Long, Pending>> heldByTransaction = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    private ScheduledExecutorService scheduler;
+
+    public StockWriteBehindBuffer(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                  ProductChangeTracker changeTracker,
+                                  @Value("${erp.stock.write-behind.enabled:false}") boolean enabled,
+                                  @Value("${erp.stock.write-behind.interval-ms:100}") long intervalMillis,
+                                  @Value("${erp.stock.write-behind.max-pending:1000}") int maxPending,
+                                  @Value("${erp.stock.write-behind.batch-size:200}") int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        // entra na transação de quem chamou (mesma conexão); sem transação, abre uma
+        this.flushTx = new TransactionTemplate(transactionManager);
+        this.changeTracker = changeTracker;
+        this.enabled = enabled;
+        this.intervalMillis = intervalMillis;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("stock-flush-"));
+            scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // grava o que restou antes de o DataSource ser fechado
+        flushAll();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Estoque visível do produto: pendente, em gravação ou o valor carregado do banco.
+     */
+    public Integer currentStock(Product product) {
+        return bufferedStock(product.getId()).orElse(product.getStock());
+    }
+
+    /**
+     * Enfileira o novo estoque; alterações anteriores ainda não gravadas são substituídas.
+     */
+    public void put(Long productId, Integer stock) {
+        long now = System.nanoTime();
+        pending.compute(productId, (id, previous) -> {
+            if (previous != null) {
+                coalesced.incrementAndGet();
+                // mantém o instante da alteração mais antiga para medir o atraso
+                return new Pending(stock, previous.enqueuedAt());
+            }
+            return new Pending(stock, now);
+        });
+        if (pending.size() >= maxPending && scheduler != null && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushScheduled.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    /**
+     * Aplica o estoque pendente à entidade lida do banco.
+     *
+     * Entidade gerenciada (dentro de transação de escrita) não é alterada — isso a
+     * marcaria como suja; nesse caso o produto é gravado primeiro e a entidade recarregada.
+     */
+    public Product overlay(Product product) {
+        if (product == null || product.getId() == null) {
+            return product;
+        }
+        Optional<Integer> buffered = bufferedStock(product.getId());
+        if (buffered.isEmpty()) {
+            return product;
+        }
+        if (entityManager.contains(product) && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            flush(List.of(product.getId()));
+            entityManager.refresh(product);
+        } else {
+            product.setStock(buffered.get());
+        }
+        return product;
+    }
+
+    public List<Product> overlay(List<Product> products) {
+        if (!pending.isEmpty() || !flushing.isEmpty()) {
+            products.forEach(this::overlay);
+        }
+        return products;
+    }
+
+    public boolean hasPending(Long productId) {
+        return pending.containsKey(productId) || flushing.containsKey(productId);
+    }
+
+    /**
+     * Grava tudo o que está pendente; usado antes de consultas agregadas e no shutdown.
+     */
+    public void flushAll() {
+        if (!pending.isEmpty()) {
+            flush(new ArrayList<>(pending.keySet()));
+        } else if (!flushing.isEmpty()) {
+            // outra thread está gravando: espera terminar para não expor o valor antigo
+            flushLock.lock();
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Grava os produtos informados que tiverem alteração pendente.
+     *
+     * Dentro de uma transação de escrita a gravação entra nela e os valores só deixam o
+     * buffer no commit (rollback os devolve). Dentro de uma transação somente leitura não
+     * grava: fica para o agendador. Produtos já gravados por outra transação ainda aberta
+     * também ficam para depois, para não esperar o lock da linha segurando o flushLock.
+     */
+    public void flush(Collection<Long> productIds) {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (inTransaction && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return;
+        }
+        Map<Long, Pending> held = inTransaction ? heldByCurrentTransaction() : null;
+        flushLock.lock();
+        try {
+            List<Map.Entry<Long, Pending>> batch = new ArrayList<>();
+            for (Long id : productIds) {
+                Map<Long, Pending> owner = heldByTransaction.get(id);
+                if (owner != null && owner != held) {
+                    continue;
+                }
+                // publica em flushing antes de retirar de pending: leitores nunca ficam sem o valor
+                Pending entry;
+                while ((entry = pending.get(id)) != null) {
+                    flushing.put(id, entry);
+                    if (pending.remove(id, entry)) {
+                        batch.add(Map.entry(id, entry));
+                        break;
+                    }
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            try {
+                for (int from = 0; from < batch.size(); from += batchSize) {
+                    write(batch.subList(from, Math.min(from + batchSize, batch.size())));
+                }
+                flushes.incrementAndGet();
+                lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            } catch (RuntimeException ex) {
+                // devolve ao buffer, sem sobrescrever valores mais novos
+                for (Map.Entry<Long, Pending> entry : batch) {
+                    pending.putIfAbsent(entry.getKey(), entry.getValue());
+                    flushing.remove(entry.getKey(), entry.getValue());
+                }
+                throw ex;
+            }
+            if (held == null) {
+                batch.forEach(entry -> flushing.remove(entry.getKey(), entry.getValue()));
+                return;
+            }
+            // ainda não confirmado: continua visível em flushing até o fim da transação
+            for (Map.Entry<Long, Pending> entry : batch) {
+                held.put(entry.getKey(), entry.getValue());
+                heldByTransaction.put(entry.getKey(), held);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public StockBufferStatsDto stats() {
+        long now = System.nanoTime();
+        long oldest = now;
+        for (Pending entry : pending.values()) {
+            oldest = Math.min(oldest, entry.enqueuedAt());
+        }
+        for (Pending entry : flushing.values()) {
+            oldest = Math.min(oldest, entry.enqueuedAt());
+        }
+        return new StockBufferStatsDto(enabled, pending.size() + flushing.size(),
+                TimeUnit.NANOSECONDS.toMillis(now - oldest), coalesced.get(), flushedRows.get(), flushes.get(),
+                lastFlushMillis);
+    }
+
+    private void write(List<Map.Entry<Long, Pending>> rows) {
+        flushTx.executeWithoutResult(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> args = new ArrayList<>(rows.size());
+            for (Map.Entry<Long, Pending> row : rows) {
+                args.add(new Object[] { row.getValue().stock(), changeTracker.next(), now, row.getKey() });
+            }
+            jdbcTemplate.batchUpdate(UPDATE_STOCK, args);
+        });
+        flushedRows.addAndGet(rows.size());
+    }
+
+    private void flushQuietly() {
+        try {
+            flushAll();
+        } catch (RuntimeException ex) {
+            log.error("Falha ao gravar estoques pendentes; nova tentativa no próximo ciclo", ex);
+        }
+    }
+
+    // valores gravados na transação corrente; no fim dela saem do buffer ou, no rollback, voltam a pendentes
+    @SuppressWarnings("unchecked")
+    private Map<Long, Pending> heldByCurrentTransaction() {
+        Map<Long, Pending> current = (Map<Long, Pending>) TransactionSynchronizationManager.getResource(this);
+        if (current != null) {
+            return current;
+        }
+        Map<Long, Pending> held = new ConcurrentHashMap<>();
+        TransactionSynchronizationManager.bindResource(this, held);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResource(StockWriteBehindBuffer.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(StockWriteBehindBuffer.this, held);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(StockWriteBehindBuffer.this);
+                held.forEach((id, entry) -> {
+                    if (status != STATUS_COMMITTED) {
+                        pending.putIfAbsent(id, entry);
+                    }
+                    flushing.remove(id, entry);
+                    heldByTransaction.remove(id, held);
+                });
+            }
+        });
+        return held;
+    }
+
+    private Optional<Integer> bufferedStock(Long productId) {
+        Pending entry = pending.get(productId);
+        if (entry == null) {
+            entry = flushing.get(productId);
+        }
+        return entry != null ? Optional.ofNullable(entry.stock()) : Optional.empty();
+    }
+
+    private record Pending(Integer stock, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,81 @@
+package br.com.springboot.erp.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.dao.QueryTimeoutException;
+
+/**
+ * Escopo de subtarefas concorrentes no estilo "shutdown on failure" da
+ * concorrência estruturada ({@code StructuredTaskScope} ainda é preview no Java 21).
+ *
+ * As subtarefas iniciadas com {@link #fork(Callable)} vivem apenas dentro do
+ * escopo: {@link #join(Duration)} espera todas até o prazo, a primeira falha
+ * cancela as demais e {@link #close()} interrompe o que ainda estiver rodando.
+ */
+final class SubtaskScope implements AutoCloseable {
+
+    private final Executor executor;
+    private final List<Future<?>> subtasks = new ArrayList<>();
+    private final BlockingQueue<Future<?>> completed = new LinkedBlockingQueue<>();
+
+    SubtaskScope(Executor executor) {
+        this.executor = executor;
+    }
+
+    <T> Future<T> fork(Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<>(callable) {
+            @Override
+            protected void done() {
+                completed.add(this);
+            }
+        };
+        subtasks.add(task);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Espera todas as subtarefas; repassa a primeira falha ou lança
+     * {@link QueryTimeoutException} quando o prazo se esgota.
+     */
+    void join(Duration deadline) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        for (int pending = subtasks.size(); pending > 0; pending--) {
+            Future<?> done = completed.poll(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (done == null) {
+                close();
+                throw new QueryTimeoutException("Prazo de " + deadline.toMillis() + " ms excedido");
+            }
+            try {
+                done.get();
+            } catch (ExecutionException ex) {
+                close();
+                Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException runtime) {
+                    throw runtime;
+                }
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Future<?> subtask : subtasks) {
+            subtask.cancel(true);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package br.com.springboot.erp.stream;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Difusão de eventos Server-Sent Events para muitos assinantes.
+ *
+ * - Cada assinante tem um buffer limitado; quando um consumidor lento enche o
+ *   buffer, o evento mais antigo é descartado (e contabilizado), de modo que um
+ *   cliente lento nunca acumula memória nem bloqueia a publicação.
+ * - O envio é feito por um executor compartilhado, um assinante por vez
+ *   (nunca há duas escritas concorrentes no mesmo {@link SseEmitter}).
+ * - Heartbeats periódicos mantêm a conexão viva através de proxies e detectam
+ *   clientes desconectados.
+ * - Assinaturas por tópico (ex.: um pedido ou um cliente) ficam indexadas, de modo
+ *   que publicar para um tópico não percorre todos os assinantes. Conexões ociosas
+ *   não prendem threads (async servlet) e o buffer só ocupa memória quando há
+ *   eventos pendentes, permitindo dezenas de milhares de assinantes ociosos.
+ *
+ * @param <T> Tipo do evento publicado
+ */
+public class SseBroadcaster<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(SseBroadcaster.class);
+
+    private final String name;
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final Executor sender;
+
+    private final Map<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final Map<Object, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public SseBroadcaster(String name, int bufferSize, long timeoutMillis, Executor sender,
+            ScheduledExecutorService scheduler, long heartbeatMillis) {
+        this.name = name;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.sender = sender;
+        if (heartbeatMillis > 0) {
+            scheduler.scheduleAtFixedRate(this::heartbeat, heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Registra um assinante que recebe apenas os eventos aceitos pelo filtro.
+     */
+    public SseEmitter subscribe(Predicate<? super T> filter) {
+        return register(new Subscriber(new SseEmitter(timeoutMillis), filter, null));
+    }
+
+    /**
+     * Registra um assinante que recebe apenas os eventos publicados com {@link #publish(Object, String, Object)}
+     * para o tópico informado.
+     */
+    public SseEmitter subscribe(Object topic) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis), event -> false, topic);
+        topics.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        return register(subscriber);
+    }
+
+    /**
+     * Registra um assinante do tópico cujo primeiro evento é o estado inicial, lido só depois da
+     * assinatura: eventos publicados enquanto o estado é lido ficam retidos e seguem depois dele,
+     * de modo que nenhuma mudança confirmada nesse intervalo se perde.
+     *
+     * @return emitter, ou {@code null} se {@code initialState} devolver {@code null} (nada a assinar)
+     */
+    public SseEmitter subscribe(Object topic, String initialEventName, Supplier<?> initialState) {
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMillis), event -> false, topic);
+        topics.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        return registerWithInitialState(subscriber, initialEventName, initialState);
+    }
+
+    /**
+     * Como {@link #subscribe(Object, String, Supplier)}, para um assinante com filtro.
+     */
+    public SseEmitter subscribe(Predicate<? super T> filter, String initialEventName, Supplier<?> initialState) {
+        return registerWithInitialState(new Subscriber(new SseEmitter(timeoutMillis), filter, null), initialEventName,
+                initialState);
+    }
+
+    // assina retendo o envio, lê o estado e o coloca à frente do que chegou nesse meio tempo
+    private SseEmitter registerWithInitialState(Subscriber subscriber, String initialEventName,
+            Supplier<?> initialState) {
+        subscriber.held = true;
+        SseEmitter emitter = register(subscriber);
+        Object state;
+        try {
+            state = initialState.get();
+        } catch (RuntimeException ex) {
+            unregister(emitter);
+            throw ex;
+        }
+        if (state == null) {
+            unregister(emitter);
+            return null;
+        }
+        subscriber.release(new Event(initialEventName, state));
+        return emitter;
+    }
+
+    private SseEmitter register(Subscriber subscriber) {
+        SseEmitter emitter = subscriber.emitter;
+        subscribers.put(emitter, subscriber);
+        emitter.onCompletion(() -> unregister(emitter));
+        emitter.onTimeout(() -> unregister(emitter));
+        emitter.onError(ex -> unregister(emitter));
+        return emitter;
+    }
+
+    private void unregister(SseEmitter emitter) {
+        Subscriber subscriber = subscribers.remove(emitter);
+        if (subscriber != null && subscriber.topic != null) {
+            topics.computeIfPresent(subscriber.topic, (key, set) -> {
+                set.remove(subscriber);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * Publica o evento para todos os assinantes cujo filtro o aceita.
+     */
+    public void publish(String eventName, T payload) {
+        Event event = new Event(eventName, payload);
+        for (Subscriber subscriber : subscribers.values()) {
+            if (subscriber.filter.test(payload)) {
+                subscriber.offer(event);
+            }
+        }
+    }
+
+    /**
+     * Publica o evento apenas para os assinantes do tópico.
+     */
+    public void publish(Object topic, String eventName, T payload) {
+        Set<Subscriber> topicSubscribers = topics.get(topic);
+        if (topicSubscribers == null) {
+            return;
+        }
+        Event event = new Event(eventName, payload);
+        for (Subscriber subscriber : topicSubscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    public long droppedEvents() {
+        return dropped.get();
+    }
+
+    private void heartbeat() {
+        for (Subscriber subscriber : subscribers.values()) {
+            // só quando ocioso: com eventos na fila, eles próprios mantêm a conexão viva
+            if (subscriber.queue.isEmpty()) {
+                subscriber.offer(Event.HEARTBEAT);
+            }
+        }
+    }
+
+    private record Event(String name, Object data) {
+        static final Event HEARTBEAT = new Event(null, null);
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Predicate<? super T> filter;
+        private final Object topic;
+        // fila encadeada: assinante ocioso não reserva o array do buffer inteiro
+        private final BlockingDeque<Event> queue = new LinkedBlockingDeque<>(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        // retido até o estado inicial entrar na frente da fila
+        private volatile boolean held;
+
+        Subscriber(SseEmitter emitter, Predicate<? super T> filter, Object topic) {
+            this.emitter = emitter;
+            this.filter = filter;
+            this.topic = topic;
+        }
+
+        void offer(Event event) {
+            while (!queue.offer(event)) {
+                // descarta o mais antigo: o cliente recebe sempre o estado mais recente
+                if (queue.poll() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+            scheduleDrain();
+        }
+
+        void release(Event initial) {
+            while (!queue.offerFirst(initial)) {
+                // o estado inicial substitui os eventos mais antigos
+                if (queue.pollFirst() != null) {
+                    dropped.incrementAndGet();
+                }
+            }
+            held = false;
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (held) {
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RejectedExecutionException ex) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Event event;
+                while ((event = queue.poll()) != null) {
+                    emitter.send(event == Event.HEARTBEAT
+                            ? SseEmitter.event().comment("heartbeat")
+                            : SseEmitter.event().name(event.name()).data(event.data(), MediaType.APPLICATION_JSON));
+                }
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Assinante do stream '{}' desconectado: {}", name, ex.getMessage());
+                unregister(emitter);
+                queue.clear();
+                emitter.completeWithError(ex);
+            } finally {
+                draining.set(false);
+            }
+            // evento publicado entre o último poll e a liberação do flag
+            if (!queue.isEmpty() && subscribers.containsKey(emitter)) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package br.com.springboot.erp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Teste de carga comparando os modos de execução {@code platform} e {@code virtual}.
+ *
+ * 🎯 Objetivo - Subir a aplicação real (Tomcat + H2) em cada modo e disparar
+ * requisições concorrentes contra endpoints que fazem JDBC, medindo vazão e
+ * latência (p50/p99).
+ *
+ * ⚠️ Notas - Desligado por padrão por ser lento; execute com
+ * {@code mvn test -Dtest=ExecutionModeLoadTest -Derp.loadtest=true}
+ * (opcional: {@code -Derp.loadtest.clients=1000 -Derp.loadtest.requests=20000}).
+ */
+public class ExecutionModeLoadTest {
+
+	private static final int CLIENTS = Integer.getInteger("erp.loadtest.clients", 500);
+	private static final int REQUESTS = Integer.getInteger("erp.loadtest.requests", 10000);
+
+	@Test
+	public void comparePlatformAndVirtualModes() throws Exception {
+		assumeTrue("Teste de carga desligado (use -Derp.loadtest=true)", Boolean.getBoolean("erp.loadtest"));
+
+		Result platform = run("platform");
+		Result virtual = run("virtual");
+
+		System.out.println("modo      req/s     p50(ms)  p99(ms)  erros");
+		System.out.println(platform);
+		System.out.println(virtual);
+
+		assertEquals("Modo platform não deveria ter erros", 0, platform.errors);
+		assertEquals("Modo virtual não deveria ter erros", 0, virtual.errors);
+	}
+
+	private Result run(String mode) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+				.properties("server.port=0", "erp.execution.mode=" + mode, "logging.level.org.hibernate.SQL=warn")
+				.run()) {
+			int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+			String base = "http://localhost:" + port + "/api/products";
+
+			HttpClient client = HttpClient.newBuilder()
+					.executor(Executors.newVirtualThreadPerTaskExecutor())
+					.connectTimeout(Duration.ofSeconds(10))
+					.build();
+			for (int i = 0; i < 50; i++) {
+				String body = "{\"name\":\"Carga " + i + "\",\"price\":10.00,\"stock\":100,\"sku\":\"LOAD" + i + "\"}";
+				client.send(HttpRequest.newBuilder(URI.create(base)).header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.discarding());
+			}
+
+			// aquecimento (JIT, pool de conexões do cliente)
+			fire(client, base, Math.min(CLIENTS, 100), 1000);
+			return fire(client, base, CLIENTS, REQUESTS).named(mode);
+		}
+	}
+
+	private Result fire(HttpClient client, String base, int clients, int requests) throws Exception {
+		AtomicInteger remaining = new AtomicInteger(requests);
+		AtomicInteger errors = new AtomicInteger();
+		List<Long> latencies = Collections.synchronizedList(new ArrayList<>(requests));
+		HttpRequest list = HttpRequest.newBuilder(URI.create(base)).GET().build();
+		HttpRequest lowStock = HttpRequest.newBuilder(URI.create(base + "/low-stock")).GET().build();
+
+		long start = System.nanoTime();
+		try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int c = 0; c < clients; c++) {
+				futures.add(workers.submit(() -> {
+					int n;
+					while ((n = remaining.decrementAndGet()) >= 0) {
+						long t0 = System.nanoTime();
+						try {
+							HttpResponse<Void> response = client.send(n % 2 == 0 ? list : lowStock,
+									HttpResponse.BodyHandlers.discarding());
+							if (response.statusCode() != 200) {
+								errors.incrementAndGet();
+							}
+						} catch (Exception ex) {
+							errors.incrementAndGet();
+						}
+						latencies.add(System.nanoTime() - t0);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		return new Result(null, requests * 1_000_000_000.0 / elapsed, percentile(sorted, 0.50),
+				percentile(sorted, 0.99), errors.get());
+	}
+
+	private static double percentile(List<Long> sorted, double p) {
+		if (sorted.isEmpty()) {
+			return 0;
+		}
+		return sorted.get((int) Math.min(sorted.size() - 1, Math.round(p * (sorted.size() - 1)))) / 1_000_000.0;
+	}
+
+	private record Result(String mode, double throughput, double p50, double p99, int errors) {
+
+		Result named(String name) {
+			return new Result(name, throughput, p50, p99, errors);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-9s %-9.0f %-8.1f %-8.1f %d", mode, throughput, p50, p99, errors);
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package br.com.springboot.erp;
+
+import static org.junit.Assume.assumeTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.model.entity.OrderItem;
+import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.service.OrderService;
+
+/**
+ * Benchmark do custo de flush com e sem enhancement de bytecode do Hibernate.
+ *
+ * 🎯 Objetivo - Com a aplicação real (H2), medir o flush de um contexto com
+ * muitos produtos gerenciados (nenhuma alteração e 1% alterado) e o
+ * {@code finalizeOrder} de pedidos com muitos itens. Com dirty tracking inline o
+ * flush depende dos campos alterados, não da quantidade de entidades.
+ *
+ * ⚠️ Notas - Desligado por padrão por ser lento; compare as duas builds:
+ * {@code mvn test -Dtest=FlushCostBenchmarkTest -Derp.loadtest=true} (sem enhancement)
+ * e o mesmo comando com {@code -Denhance -Dnet.bytebuddy.experimental=true}
+ * (opcional: {@code -Derp.loadtest.entities=20000}).
+ */
+public class FlushCostBenchmarkTest {
+
+	private static final int ENTITIES = Integer.getInteger("erp.loadtest.entities", 5000);
+	private static final int ORDERS = 20;
+	private static final int ITEMS_PER_ORDER = 100;
+	private static final int ROUNDS = 7;
+
+	@Test
+	public void measureFlushCost() throws Exception {
+		assumeTrue("Teste de carga desligado (use -Derp.loadtest=true)", Boolean.getBoolean("erp.loadtest"));
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+				.web(WebApplicationType.NONE)
+				.properties("logging.level.erp.sql=OFF",
+						"erp.orders.pending-expiry.enabled=false",
+						"erp.orders.archive.enabled=false")
+				.run()) {
+			EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+			List<Long> productIds = seedProducts(emf);
+
+			double clean = median(() -> flushLoaded(emf, 0));
+			double onePercent = median(() -> flushLoaded(emf, ENTITIES / 100));
+			double finalize = finalizeOrders(emf, context.getBean(OrderService.class), productIds);
+
+			System.out.println("enhancement: "
+					+ (SelfDirtinessTracker.class.isAssignableFrom(Product.class) ? "ativo" : "inativo"));
+			System.out.println(String.format("flush de %d produtos sem alterações: %.2f ms", ENTITIES, clean));
+			System.out.println(String.format("flush de %d produtos com 1%% alterado: %.2f ms", ENTITIES, onePercent));
+			System.out.println(String.format("finalizeOrder (%d itens): %.2f ms por pedido", ITEMS_PER_ORDER, finalize));
+		}
+	}
+
+	private List<Long> seedProducts(EntityManagerFactory emf) {
+		List<Long> ids = new ArrayList<>();
+		EntityManager em = emf.createEntityManager();
+		try {
+			em.getTransaction().begin();
+			for (int i = 0; i < ENTITIES; i++) {
+				Product product = new Product();
+				product.setName("Flush " + i);
+				product.setDescription("Descrição do produto de benchmark " + i);
+				product.setPrice(new BigDecimal("10.00"));
+				product.setStock(1_000_000);
+				product.setSku("FLUSH" + i);
+				em.persist(product);
+				ids.add(product.getId());
+			}
+			em.getTransaction().commit();
+		} finally {
+			em.close();
+		}
+		return ids;
+	}
+
+	// carrega todos os produtos no contexto, altera "changed" deles e mede só o flush
+	private double flushLoaded(EntityManagerFactory emf, int changed) {
+		EntityManager em = emf.createEntityManager();
+		try {
+			em.getTransaction().begin();
+			List<Product> products = em.createQuery("SELECT p FROM Product p", Product.class).getResultList();
+			for (int i = 0; i < changed; i++) {
+				Product product = products.get(i * (products.size() / changed));
+				product.setPrice(product.getPrice().add(BigDecimal.ONE));
+			}
+			long start = System.nanoTime();
+			em.flush();
+			double millis = (System.nanoTime() - start) / 1_000_000.0;
+			em.getTransaction().rollback();
+			return millis;
+		} finally {
+			em.close();
+		}
+	}
+
+	private double finalizeOrders(EntityManagerFactory emf, OrderService orders, List<Long> productIds) {
+		EntityManager em = emf.createEntityManager();
+		Long customerId;
+		List<Product> products;
+		try {
+			products = em.createQuery("SELECT p FROM Product p WHERE p.id IN :ids", Product.class)
+					.setParameter("ids", productIds.subList(0, Math.min(productIds.size(), ORDERS * ITEMS_PER_ORDER)))
+					.getResultList();
+			em.getTransaction().begin();
+			Customer customer = new Customer();
+			customer.setName("Cliente Flush");
+			customer.setEmail("flush@email.com");
+			em.persist(customer);
+			em.getTransaction().commit();
+			customerId = customer.getId();
+		} finally {
+			em.close();
+		}
+
+		List<Long> orderIds = new ArrayList<>();
+		for (int o = 0; o < ORDERS; o++) {
+			List<OrderItem> items = new ArrayList<>();
+			for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+				Product product = products.get((o * ITEMS_PER_ORDER + i) % products.size());
+				OrderItem item = new OrderItem();
+				item.setProduct(product);
+				item.setQuantity(1);
+				item.setUnitPrice(product.getPrice());
+				item.updateSubtotal();
+				items.add(item);
+			}
+			orderIds.add(orders.createOrder(customerId, items).getId());
+		}
+
+		// o primeiro pedido aquece o caminho; os demais são medidos
+		orders.finalizeOrder(orderIds.get(0));
+		long start = System.nanoTime();
+		for (Long orderId : orderIds.subList(1, orderIds.size())) {
+			orders.finalizeOrder(orderId);
+		}
+		return (System.nanoTime() - start) / 1_000_000.0 / (orderIds.size() - 1);
+	}
+
+	private static double median(DoubleSupplier measurement) {
+		List<Double> samples = new ArrayList<>();
+		for (int i = 0; i < ROUNDS; i++) {
+			samples.add(measurement.getAsDouble());
+		}
+		Collections.sort(samples);
+		return samples.get(samples.size() / 2);
+	}
+}
@@ -0,0 +1,141 @@
+package br.com.springboot.erp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.service.CustomerService;
+
+/**
+ * Benchmark do log de SQL: {@code show_sql} síncrono do Hibernate contra o log
+ * amostrado ({@code erp.sql.*}) no appender assíncrono.
+ *
+ * 🎯 Objetivo - Com a aplicação real (H2), disparar leituras e escritas
+ * concorrentes de clientes em três variantes (show_sql, todos os comandos pelo
+ * appender assíncrono e amostragem padrão) e comparar vazão e p99.
+ *
+ * ⚠️ Notas - Desligado por padrão por ser lento; execute com
+ * {@code mvn test -Dtest=SqlLoggingLoadTest -Derp.loadtest=true}
+ * (opcional: {@code -Derp.loadtest.clients=64 -Derp.loadtest.operations=100000}).
+ */
+public class SqlLoggingLoadTest {
+
+	private static final int CLIENTS = Integer.getInteger("erp.loadtest.clients", 32);
+	private static final int OPERATIONS = Integer.getInteger("erp.loadtest.operations", 30000);
+	private static final int CUSTOMERS = 100;
+
+	@Test
+	public void compareSqlLogging() throws Exception {
+		assumeTrue("Teste de carga desligado (use -Derp.loadtest=true)", Boolean.getBoolean("erp.loadtest"));
+
+		List<Result> results = new ArrayList<>();
+		results.add(run("show_sql", "erp.sql-log.show-sql=true", "logging.level.erp.sql=OFF"));
+		results.add(run("async-todos", "erp.sql-log.select.sample-rate=1", "erp.sql-log.insert.sample-rate=1",
+				"erp.sql-log.update.sample-rate=1"));
+		results.add(run("async-amostrado"));
+
+		System.out.println("variante         op/s      p99(ms)  erros");
+		results.forEach(System.out::println);
+
+		for (Result result : results) {
+			assertEquals("Variante " + result.variant + " não deveria ter erros", 0, result.errors);
+		}
+	}
+
+	private Result run(String variant, String... properties) throws Exception {
+		List<String> all = new ArrayList<>(List.of("logging.level.erp.sql=INFO",
+				"erp.orders.pending-expiry.enabled=false", "erp.orders.archive.enabled=false"));
+		all.addAll(List.of(properties));
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+				.web(WebApplicationType.NONE)
+				.properties(all.toArray(String[]::new))
+				.run()) {
+			CustomerService customers = context.getBean(CustomerService.class);
+			List<Long> ids = new ArrayList<>();
+			for (int i = 0; i < CUSTOMERS; i++) {
+				Customer customer = new Customer();
+				customer.setName("Log " + i);
+				customer.setEmail("log" + i + "@email.com");
+				ids.add(customers.saveCustomer(customer).getId());
+			}
+
+			// aquecimento (JIT, caches do Hibernate)
+			fire(customers, ids, Math.min(CLIENTS, 8), 2000);
+			Result result = fire(customers, ids, CLIENTS, OPERATIONS);
+			result.variant = variant;
+			return result;
+		}
+	}
+
+	private Result fire(CustomerService customers, List<Long> ids, int clients, int operations) throws Exception {
+		AtomicInteger remaining = new AtomicInteger(operations);
+		AtomicInteger errors = new AtomicInteger();
+		List<Long> latencies = Collections.synchronizedList(new ArrayList<>(operations));
+
+		long start = System.nanoTime();
+		try (ExecutorService workers = Executors.newFixedThreadPool(clients)) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int c = 0; c < clients; c++) {
+				futures.add(workers.submit(() -> {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					while (remaining.decrementAndGet() >= 0) {
+						long t0 = System.nanoTime();
+						try {
+							Customer customer = customers.findCustomerById(ids.get(random.nextInt(ids.size())))
+									.orElseThrow();
+							if (random.nextInt(10) == 0) {
+								customer.setPhone(String.valueOf(random.nextInt(1_000_000)));
+								customers.updateCustomer(customer);
+							}
+						} catch (OptimisticLockingFailureException ex) {
+							// conflito de versão esperado entre escritores concorrentes
+						} catch (RuntimeException ex) {
+							errors.incrementAndGet();
+						}
+						latencies.add(System.nanoTime() - t0);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		Result result = new Result();
+		result.throughput = operations * 1_000_000_000.0 / elapsed;
+		result.p99 = sorted.isEmpty() ? 0 : sorted.get((int) Math.round(0.99 * (sorted.size() - 1))) / 1_000_000.0;
+		result.errors = errors.get();
+		return result;
+	}
+
+	private static final class Result {
+		String variant;
+		double throughput;
+		double p99;
+		int errors;
+
+		@Override
+		public String toString() {
+			return String.format("%-16s %-9.0f %-8.1f %d", variant, throughput, p99, errors);
+		}
+	}
+}
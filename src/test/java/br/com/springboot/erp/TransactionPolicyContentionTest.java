@@ -0,0 +1,163 @@
+package br.com.springboot.erp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import br.com.springboot.erp.config.TransactionPolicies;
+import br.com.springboot.erp.model.dto.TransactionPolicyStatsDto;
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.service.CustomerService;
+
+/**
+ * Benchmark de contenção das políticas de transação ({@code erp.tx.policy.*}).
+ *
+ * 🎯 Objetivo - Com a aplicação real (H2), disparar leituras
+ * ({@code findCustomerById}) e escritas ({@code updateCustomer}) concorrentes
+ * sobre poucos clientes, uma vez por nível de isolamento, e comparar vazão,
+ * p99, conflitos de versão, esperas de lock esgotadas, deadlocks e novas
+ * tentativas.
+ *
+ * ⚠️ Notas - Desligado por padrão por ser lento; execute com
+ * {@code mvn test -Dtest=TransactionPolicyContentionTest -Derp.loadtest=true}
+ * (opcional: {@code -Derp.loadtest.clients=64 -Derp.loadtest.operations=50000}).
+ */
+public class TransactionPolicyContentionTest {
+
+	private static final int CLIENTS = Integer.getInteger("erp.loadtest.clients", 32);
+	private static final int OPERATIONS = Integer.getInteger("erp.loadtest.operations", 20000);
+	private static final int CUSTOMERS = 10;
+	private static final int WRITE_PERCENT = 10;
+
+	@Test
+	public void compareIsolationPolicies() throws Exception {
+		assumeTrue("Teste de carga desligado (use -Derp.loadtest=true)", Boolean.getBoolean("erp.loadtest"));
+
+		List<Result> results = new ArrayList<>();
+		for (String isolation : List.of("SERIALIZABLE", "REPEATABLE_READ", "READ_COMMITTED")) {
+			results.add(run(isolation));
+		}
+
+		System.out.println("isolamento       op/s      p99(ms)  conflitos  lock-timeouts  deadlocks  retries  erros");
+		results.forEach(System.out::println);
+
+		for (Result result : results) {
+			assertEquals("Política " + result.isolation + " não deveria ter erros inesperados", 0, result.errors);
+		}
+	}
+
+	private Result run(String isolation) throws Exception {
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(Application.class)
+				.web(WebApplicationType.NONE)
+				.properties("logging.level.org.hibernate.SQL=warn",
+						"erp.orders.pending-expiry.enabled=false",
+						"erp.orders.archive.enabled=false",
+						"erp.tx.policy.CustomerService.findCustomerById=PROPAGATION_REQUIRED,ISOLATION_" + isolation
+								+ ",readOnly",
+						"erp.tx.policy.CustomerService.updateCustomer=PROPAGATION_REQUIRED,ISOLATION_" + isolation
+								+ ",retries_3")
+				.run()) {
+			CustomerService customers = context.getBean(CustomerService.class);
+			List<Long> ids = new ArrayList<>();
+			for (int i = 0; i < CUSTOMERS; i++) {
+				Customer customer = new Customer();
+				customer.setName("Contenção " + i);
+				customer.setEmail("contencao" + i + "@email.com");
+				ids.add(customers.saveCustomer(customer).getId());
+			}
+
+			// aquecimento (JIT, caches do Hibernate)
+			fire(customers, ids, Math.min(CLIENTS, 8), 2000);
+			Result result = fire(customers, ids, CLIENTS, OPERATIONS);
+
+			List<TransactionPolicyStatsDto> stats = context.getBean(TransactionPolicies.class).stats();
+			for (TransactionPolicyStatsDto stat : stats) {
+				if (stat.operation().startsWith("CustomerService.")) {
+					result.lockTimeouts += stat.lockTimeouts();
+					result.deadlocks += stat.deadlocks();
+					result.retries += stat.retries();
+				}
+			}
+			result.isolation = isolation;
+			return result;
+		}
+	}
+
+	private Result fire(CustomerService customers, List<Long> ids, int clients, int operations) throws Exception {
+		AtomicInteger remaining = new AtomicInteger(operations);
+		AtomicInteger conflicts = new AtomicInteger();
+		AtomicInteger errors = new AtomicInteger();
+		List<Long> latencies = Collections.synchronizedList(new ArrayList<>(operations));
+
+		long start = System.nanoTime();
+		try (ExecutorService workers = Executors.newFixedThreadPool(clients)) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int c = 0; c < clients; c++) {
+				futures.add(workers.submit(() -> {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					while (remaining.decrementAndGet() >= 0) {
+						Long id = ids.get(random.nextInt(ids.size()));
+						long t0 = System.nanoTime();
+						try {
+							Customer customer = customers.findCustomerById(id).orElseThrow();
+							if (random.nextInt(100) < WRITE_PERCENT) {
+								customer.setPhone(String.valueOf(random.nextInt(1_000_000)));
+								customers.updateCustomer(customer);
+							}
+						} catch (OptimisticLockingFailureException ex) {
+							conflicts.incrementAndGet();
+						} catch (RuntimeException ex) {
+							errors.incrementAndGet();
+						}
+						latencies.add(System.nanoTime() - t0);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+
+		List<Long> sorted = new ArrayList<>(latencies);
+		Collections.sort(sorted);
+		Result result = new Result();
+		result.throughput = operations * 1_000_000_000.0 / elapsed;
+		result.p99 = sorted.isEmpty() ? 0 : sorted.get((int) Math.round(0.99 * (sorted.size() - 1))) / 1_000_000.0;
+		result.conflicts = conflicts.get();
+		result.errors = errors.get();
+		return result;
+	}
+
+	private static final class Result {
+		String isolation;
+		double throughput;
+		double p99;
+		int conflicts;
+		int errors;
+		long lockTimeouts;
+		long deadlocks;
+		long retries;
+
+		@Override
+		public String toString() {
+			return String.format("%-16s %-9.0f %-8.1f %-10d %-14d %-10d %-8d %d", isolation, throughput, p99,
+					conflicts, lockTimeouts, deadlocks, retries, errors);
+		}
+	}
+}
@@ -16,6 +16,8 @@ import javax.validation.constraints.Positive;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.test.web.servlet.MockMvc;
@@ -31,6 +33,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import br.com.springboot.erp.service.InsufficientStockException;
+
 class GlobalExceptionHandlerTest {
 
     private MockMvc mvc;
@@ -77,6 +81,18 @@ class GlobalExceptionHandlerTest {
         // 404 - not found
         @GetMapping("/not-found")
         public String notFound() { throw new NoSuchElementException("Recurso não encontrado"); }
+
+        // 409 - conflito de versão -> OptimisticLockingFailureException
+        @PostMapping("/conflict")
+        public String conflict() { throw new OptimisticLockingFailureException("versão desatualizada"); }
+
+        // 503 - prazo de consulta excedido -> QueryTimeoutException
+        @GetMapping("/timeout")
+        public String timeout() { throw new QueryTimeoutException("Prazo de 2000 ms excedido"); }
+
+        // 409 - estoque insuficiente -> InsufficientStockException
+        @GetMapping("/insufficient-stock")
+        public String insufficientStock() { throw new InsufficientStockException("Estoque insuficiente para o produto: X"); }
     }
 
     @BeforeEach
@@ -136,6 +152,27 @@ class GlobalExceptionHandlerTest {
            .andExpect(jsonPath("$.message").value("Recurso não encontrado"));
     }
 
+    @Test
+    void optimisticLock_409() throws Exception {
+        mvc.perform(post("/ex/conflict"))
+           .andExpect(status().isConflict())
+           .andExpect(jsonPath("$.status").value(409));
+    }
+
+    @Test
+    void queryTimeout_503() throws Exception {
+        mvc.perform(get("/ex/timeout"))
+           .andExpect(status().isServiceUnavailable())
+           .andExpect(jsonPath("$.status").value(503));
+    }
+
+    @Test
+    void insufficientStock_409() throws Exception {
+        mvc.perform(get("/ex/insufficient-stock"))
+           .andExpect(status().isConflict())
+           .andExpect(jsonPath("$.message").value("Estoque insuficiente para o produto: X"));
+    }
+
     @Test
     void methodNotAllowed_405() throws Exception {
         mvc.perform(get("/ex/not-valid")) // endpoint só aceita POST
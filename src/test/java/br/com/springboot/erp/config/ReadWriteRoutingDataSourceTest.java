@@ -0,0 +1,102 @@
+package br.com.springboot.erp.config;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Testes do {@link ReadWriteRoutingDataSource} com dois H2 locais mantidos pelo
+ * {@link ReplicaSynchronizer} (sincronização manual, sem o agendamento).
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+	private EmbeddedDatabase primary;
+	private EmbeddedDatabase replica;
+	private ReplicaSynchronizer synchronizer;
+	private JdbcTemplate jdbc;
+	private TransactionTemplate writeTx;
+	private TransactionTemplate readTx;
+
+	@Before
+	public void setUp() throws Exception {
+		primary = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("routing_primary").build();
+		replica = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("routing_replica").build();
+		synchronizer = new ReplicaSynchronizer(primary, replica, 60000);
+
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+				new ReadWriteRoutingDataSource(primary, replica, synchronizer::lagMillis, 300));
+		jdbc = new JdbcTemplate(dataSource);
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		writeTx = new TransactionTemplate(transactionManager);
+		readTx = new TransactionTemplate(transactionManager);
+		readTx.setReadOnly(true);
+
+		new JdbcTemplate(primary).execute("CREATE TABLE items (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+		insert(1);
+		synchronizer.sync();
+	}
+
+	@After
+	public void tearDown() {
+		ReadWriteRoutingDataSource.unpin();
+		synchronizer.close();
+		primary.shutdown();
+		replica.shutdown();
+	}
+
+	@Test
+	public void testReadOnlyTransactionsUseReplica() {
+		insert(2);
+
+		// réplica ainda sem a segunda linha; escrita e leitura fora de transação somente leitura veem o primário
+		assertEquals(1, readOnlyCount());
+		assertEquals(2, writeCount());
+	}
+
+	@Test
+	public void testSyncCopiesPrimaryToReplica() throws Exception {
+		insert(2);
+		synchronizer.sync();
+
+		assertEquals(2, readOnlyCount());
+	}
+
+	@Test
+	public void testPinnedThreadReadsItsWrites() {
+		insert(2);
+
+		ReadWriteRoutingDataSource.pinToPrimary();
+
+		assertEquals(2, readOnlyCount());
+	}
+
+	@Test
+	public void testLaggingReplicaFallsBackToPrimary() throws Exception {
+		insert(2);
+
+		Thread.sleep(400);
+
+		assertEquals(2, readOnlyCount());
+	}
+
+	private void insert(long id) {
+		writeTx.executeWithoutResult(status -> jdbc.update("INSERT INTO items VALUES (?, ?)", id, "item " + id));
+	}
+
+	private int readOnlyCount() {
+		return readTx.execute(status -> jdbc.queryForObject("SELECT COUNT(*) FROM items", Integer.class));
+	}
+
+	private int writeCount() {
+		return writeTx.execute(status -> jdbc.queryForObject("SELECT COUNT(*) FROM items", Integer.class));
+	}
+}
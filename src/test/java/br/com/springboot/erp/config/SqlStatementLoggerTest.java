@@ -0,0 +1,69 @@
+package br.com.springboot.erp.config;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import br.com.springboot.erp.model.dto.SqlLogCategoryDto;
+
+/**
+ * Testes do {@link SqlStatementLogger}: categorias, amostragem e ajuste em tempo de execução.
+ */
+public class SqlStatementLoggerTest {
+
+	private SqlStatementLogger logger;
+
+	@Before
+	public void setUp() {
+		logger = new SqlStatementLogger(new MockEnvironment()
+				.withProperty("erp.sql-log.select.sample-rate", "3")
+				.withProperty("erp.sql-log.update.sample-rate", "0"));
+	}
+
+	@Test
+	public void testCategorizesStatements() {
+		assertEquals("select", SqlStatementLogger.categoryOf("select c.id from customers c"));
+		assertEquals("select", SqlStatementLogger.categoryOf("  /* comentário */ SELECT 1"));
+		assertEquals("insert", SqlStatementLogger.categoryOf("insert into customers values (?)"));
+		assertEquals("update", SqlStatementLogger.categoryOf("\n    update products set stock=?"));
+		assertEquals("delete", SqlStatementLogger.categoryOf("delete from order_items where id=?"));
+		assertEquals("ddl", SqlStatementLogger.categoryOf("create table x (id bigint)"));
+		assertEquals("other", SqlStatementLogger.categoryOf("call next value for orders_seq"));
+	}
+
+	@Test
+	public void testSamplesOneInN() {
+		String sql = "select * from customers";
+		for (int i = 0; i < 10; i++) {
+			assertEquals(sql, logger.inspect(sql));
+		}
+		logger.inspect("update customers set name=?");
+
+		SqlLogCategoryDto select = category("select");
+		assertEquals(10, select.seen());
+		assertEquals(3, select.logged());
+		SqlLogCategoryDto update = category("update");
+		assertEquals(1, update.seen());
+		assertEquals(0, update.logged());
+	}
+
+	@Test
+	public void testSampleRateChangesAtRuntime() {
+		logger.setSampleRate("UPDATE", 1);
+		logger.inspect("update customers set name=?");
+
+		assertEquals(1, category("update").sampleRate());
+		assertEquals(1, category("update").logged());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRejectsUnknownCategory() {
+		logger.setSampleRate("merge", 1);
+	}
+
+	private SqlLogCategoryDto category(String name) {
+		return logger.stats().stream().filter(c -> c.category().equals(name)).findFirst().orElseThrow();
+	}
+}
@@ -10,6 +10,7 @@ import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Profile;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
@@ -42,6 +43,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
     "br.com.springboot.erp.service",
     "br.com.springboot.erp.controller"
 })
+@Import({ ExecutionModeConfig.class, StreamingConfig.class, TransactionPolicyConfig.class, SqlStatementLogger.class })
 public class TestConfig {
 
     @Bean
@@ -55,20 +57,21 @@ public class TestConfig {
     }
 
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(SqlStatementLogger sqlStatementLogger) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource());
-        em.setPackagesToScan("br.com.springboot.erp.model");
+        em.setPackagesToScan("br.com.springboot.erp.model.entity");
         em.setPersistenceProviderClass(HibernatePersistenceProvider.class);
         em.setJpaVendorAdapter(jpaVendorAdapter());
         em.setJpaProperties(additionalProperties());
+        em.getJpaPropertyMap().put("hibernate.session_factory.statement_inspector", sqlStatementLogger);
         return em;
     }
 
     @Bean
     public JpaVendorAdapter jpaVendorAdapter() {
         HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter();
-        adapter.setShowSql(true);
+        adapter.setShowSql(false);
         adapter.setGenerateDdl(true);
         return adapter;
     }
@@ -84,7 +87,10 @@ public class TestConfig {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
         properties.setProperty("hibernate.hbm2ddl.auto", "create-drop");
-        properties.setProperty("hibernate.format_sql", "true");
+        properties.setProperty("hibernate.jdbc.batch_size", "50");
+        properties.setProperty("hibernate.order_inserts", "true");
+        properties.setProperty("hibernate.order_updates", "true");
+        properties.setProperty("hibernate.query.in_clause_parameter_padding", "true");
         return properties;
     }
 }
@@ -0,0 +1,121 @@
+package br.com.springboot.erp.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+
+import br.com.springboot.erp.model.dto.TransactionPolicyStatsDto;
+
+/**
+ * Testes das {@link TransactionPolicies} e do {@link TransactionPolicyInterceptor}
+ * (sem contexto Spring nem banco).
+ */
+public class TransactionPoliciesTest {
+
+	interface Accounts {
+		int read(long id);
+
+		int write(long id);
+	}
+
+	static class LockingAccounts implements Accounts {
+		final AtomicInteger calls = new AtomicInteger();
+		int failuresBeforeSuccess;
+		RuntimeException failure = new CannotAcquireLockException("lock");
+
+		@Override
+		public int read(long id) {
+			return calls.incrementAndGet();
+		}
+
+		@Override
+		public int write(long id) {
+			if (calls.incrementAndGet() <= failuresBeforeSuccess) {
+				throw failure;
+			}
+			return calls.get();
+		}
+	}
+
+	private final TransactionPolicies policies = new TransactionPolicies(Map.of(
+			"Accounts.read", "PROPAGATION_REQUIRED,ISOLATION_READ_COMMITTED,readOnly",
+			"Accounts.write", "PROPAGATION_REQUIRED,ISOLATION_SERIALIZABLE,retries_2"));
+
+	@Test
+	public void testPolicyResolvedThroughInterface() throws Exception {
+		Method read = LockingAccounts.class.getMethod("read", long.class);
+
+		TransactionAttributeSource source = policies.attributeSource();
+		TransactionAttribute attribute = source.getTransactionAttribute(read, LockingAccounts.class);
+
+		assertEquals(TransactionDefinition.ISOLATION_READ_COMMITTED, attribute.getIsolationLevel());
+		assertTrue(attribute.isReadOnly());
+		assertTrue(source.isCandidateClass(LockingAccounts.class));
+		assertNull(source.getTransactionAttribute(Object.class.getMethod("toString"), LockingAccounts.class));
+	}
+
+	@Test
+	public void testRetriesLockFailuresUpToLimit() {
+		LockingAccounts target = new LockingAccounts();
+		target.failuresBeforeSuccess = 2;
+
+		assertEquals(3, proxy(target).write(1));
+
+		TransactionPolicyStatsDto stats = stats("Accounts.write");
+		assertEquals(1, stats.invocations());
+		assertEquals(2, stats.lockTimeouts());
+		assertEquals(2, stats.retries());
+	}
+
+	@Test
+	public void testGivesUpAfterRetries() {
+		LockingAccounts target = new LockingAccounts();
+		target.failuresBeforeSuccess = 10;
+
+		try {
+			proxy(target).write(1);
+			fail("Esperava falha de lock");
+		} catch (CannotAcquireLockException expected) {
+			assertEquals(3, target.calls.get());
+		}
+	}
+
+	@Test
+	public void testOptimisticFailureIsNotRetried() {
+		LockingAccounts target = new LockingAccounts();
+		target.failuresBeforeSuccess = 1;
+		target.failure = new OptimisticLockingFailureException("versão");
+
+		try {
+			proxy(target).write(1);
+			fail("Esperava conflito de versão");
+		} catch (OptimisticLockingFailureException expected) {
+			assertEquals(1, target.calls.get());
+			assertEquals(0, stats("Accounts.write").retries());
+		}
+	}
+
+	private Accounts proxy(LockingAccounts target) {
+		ProxyFactory factory = new ProxyFactory(target);
+		factory.addInterface(Accounts.class);
+		factory.addAdvice(new TransactionPolicyInterceptor(policies));
+		return (Accounts) factory.getProxy();
+	}
+
+	private TransactionPolicyStatsDto stats(String operation) {
+		return policies.stats().stream().filter(s -> s.operation().equals(operation)).findFirst().get();
+	}
+}
@@ -0,0 +1,135 @@
+package br.com.springboot.erp.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import br.com.springboot.erp.Application;
+import br.com.springboot.erp.config.TestConfig;
+import br.com.springboot.erp.model.entity.Product;
+
+/**
+ * Testes de integração do {@link BatchController}.
+ *
+ * ⚠️ Sem {@code @Transactional}: o lote abre suas próprias transações (chunks),
+ * então a massa é criada e removida com {@link TransactionTemplate}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+public class BatchControllerIntegrationTest {
+
+	@Autowired
+	private WebApplicationContext webApplicationContext;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private MockMvc mockMvc;
+	private TransactionTemplate tx;
+	private Long product1Id;
+	private Long product2Id;
+
+	@Before
+	public void setUp() {
+		mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+		tx = new TransactionTemplate(transactionManager);
+		product1Id = tx.execute(status -> persistProduct("Lote 1", "BATCH001"));
+		product2Id = tx.execute(status -> persistProduct("Lote 2", "BATCH002"));
+	}
+
+	@After
+	public void tearDown() {
+		tx.executeWithoutResult(status -> entityManager
+				.createQuery("DELETE FROM Product p WHERE p.sku IN ('BATCH001', 'BATCH002')").executeUpdate());
+	}
+
+	@Test
+	public void testBatchWritesWithPerItemResults() throws Exception {
+		String body = "{\"chunkSize\": 10, \"operations\": ["
+				+ "{\"id\": \"a\", \"method\": \"PUT\", \"path\": \"/api/products/" + product1Id + "/stock?stock=7\"},"
+				+ "{\"id\": \"b\", \"method\": \"PUT\", \"path\": \"/api/products/" + product2Id + "/stock\"},"
+				+ "{\"id\": \"c\", \"method\": \"PUT\", \"path\": \"/api/products/" + product2Id + "/price\", \"params\": {\"price\": \"12.50\"}},"
+				+ "{\"id\": \"d\", \"method\": \"PATCH\", \"path\": \"/api/unknown\"}"
+				+ "]}";
+
+		mockMvc.perform(post("/api/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].id").value("a"))
+				.andExpect(jsonPath("$[0].status").value(200))
+				.andExpect(jsonPath("$[1].status").value(400))
+				.andExpect(jsonPath("$[1].body.message").value("Parâmetro obrigatório ausente: stock"))
+				.andExpect(jsonPath("$[2].status").value(200))
+				.andExpect(jsonPath("$[3].status").value(404));
+
+		// a falha do item "b" não desfaz os demais itens do mesmo chunk
+		tx.executeWithoutResult(status -> {
+			assertEquals(Integer.valueOf(7), entityManager.find(Product.class, product1Id).getStock());
+			assertEquals(0, new BigDecimal("12.50").compareTo(entityManager.find(Product.class, product2Id).getPrice()));
+		});
+	}
+
+	@Test
+	public void testBatchParallelReads() throws Exception {
+		String body = "{\"parallelReads\": true, \"operations\": ["
+				+ "{\"id\": \"p1\", \"method\": \"GET\", \"path\": \"/api/products/" + product1Id + "\"},"
+				+ "{\"id\": \"p2\", \"method\": \"GET\", \"path\": \"/api/products/sku/BATCH002\"},"
+				+ "{\"id\": \"w\", \"method\": \"PUT\", \"path\": \"/api/products/" + product1Id + "/stock?stock=3\"},"
+				+ "{\"id\": \"p3\", \"method\": \"GET\", \"path\": \"/api/products/" + product1Id + "\"},"
+				+ "{\"id\": \"p4\", \"method\": \"GET\", \"path\": \"/api/products/999999\"}"
+				+ "]}";
+
+		mockMvc.perform(post("/api/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].body.sku").value("BATCH001"))
+				.andExpect(jsonPath("$[0].headers.ETag").exists())
+				.andExpect(jsonPath("$[1].body.name").value("Lote 2"))
+				.andExpect(jsonPath("$[2].status").value(200))
+				// escrita funciona como barreira: a leitura seguinte enxerga o novo estoque
+				.andExpect(jsonPath("$[3].body.stock").value(3))
+				.andExpect(jsonPath("$[4].status").value(404));
+	}
+
+	@Test
+	public void testBatchInvalidChunkSize() throws Exception {
+		mockMvc.perform(post("/api/batch").contentType(MediaType.APPLICATION_JSON)
+				.content("{\"chunkSize\": 0, \"operations\": []}"))
+				.andExpect(status().isBadRequest());
+	}
+
+	private Long persistProduct(String name, String sku) {
+		Product product = new Product();
+		product.setName(name);
+		product.setPrice(new BigDecimal("10.00"));
+		product.setStock(50);
+		product.setSku(sku);
+		entityManager.persist(product);
+		return product.getId();
+	}
+}
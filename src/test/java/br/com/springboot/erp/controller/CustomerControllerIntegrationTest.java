@@ -2,9 +2,11 @@ package br.com.springboot.erp.controller;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
@@ -24,6 +26,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -248,6 +251,42 @@ public class CustomerControllerIntegrationTest {
 				.andExpect(jsonPath("$.email", is("joao.atualizado@example.com")));
 	}
 
+	@Test
+	public void testPatchCustomer() throws Exception {
+		// Merge patch só do telefone → nome e e-mail preservados
+		mockMvc.perform(patch("/api/customers/" + customer1.getId())
+				.header(HttpHeaders.IF_MATCH, "\"" + customer1.getVersion() + "\"")
+				.contentType("application/merge-patch+json")
+				.content("{\"phone\": \"(11) 98888-0000\"}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.phone", is("(11) 98888-0000")))
+				.andExpect(jsonPath("$.name", is("João Silva")))
+				.andExpect(jsonPath("$.email", is("joao.silva@example.com")));
+
+		entityManager.clear();
+		assertEquals("(11) 98888-0000", entityManager.find(Customer.class, customer1.getId()).getPhone());
+	}
+
+	@Test
+	public void testPatchCustomerValidation() throws Exception {
+		// e-mail inválido ou apagado → 400; If-Match desatualizado → 412
+		mockMvc.perform(patch("/api/customers/" + customer1.getId())
+				.contentType("application/merge-patch+json")
+				.content("{\"email\": \"email-invalido\"}"))
+				.andExpect(status().isBadRequest());
+
+		mockMvc.perform(patch("/api/customers/" + customer1.getId())
+				.contentType("application/merge-patch+json")
+				.content("{\"email\": null}"))
+				.andExpect(status().isBadRequest());
+
+		mockMvc.perform(patch("/api/customers/" + customer1.getId())
+				.header(HttpHeaders.IF_MATCH, "\"" + (customer1.getVersion() + 1) + "\"")
+				.contentType("application/merge-patch+json")
+				.content("{\"name\": \"Outro\"}"))
+				.andExpect(status().isPreconditionFailed());
+	}
+
 	@Test
 	public void testDeleteCustomer() throws Exception {
 		// Exclusão de cliente sem pedidos → 204 No Content
@@ -35,6 +35,7 @@ import br.com.springboot.erp.model.entity.Order;
 import br.com.springboot.erp.model.entity.OrderItem;
 import br.com.springboot.erp.service.CustomerService;
 import br.com.springboot.erp.service.OrderService;
+import br.com.springboot.erp.service.OrderStatusNotificationService;
 
 @WebMvcTest(
 	    controllers = OrderController.class,
@@ -57,6 +58,9 @@ class OrderControllerTest {
     
     @MockBean
     private CustomerService customerService;
+
+    @MockBean
+    private OrderStatusNotificationService statusNotificationService;
    
 
     private Order makeOrder(Long id, String number, BigDecimal totalAmount) {
@@ -175,12 +179,31 @@ class OrderControllerTest {
     @Test
     @DisplayName("DELETE /api/orders/{id}/items/{itemId} - remove item (200)")
     void removeItem_ok() throws Exception {
-        Mockito.doNothing().when(orderService).removeItemFromOrder(6L, 66L);
+        Mockito.when(orderService.removeItemFromOrder(6L, 66L)).thenReturn(true);
 
         mvc.perform(delete("/api/orders/6/items/66"))
            .andExpect(status().isOk());
     }
 
+    @Test
+    @DisplayName("DELETE /api/orders/{id}/items/{itemId} - item de outro pedido ou inexistente (404)")
+    void removeItem_notFound() throws Exception {
+        Mockito.when(orderService.removeItemFromOrder(6L, 99L)).thenReturn(false);
+
+        mvc.perform(delete("/api/orders/6/items/99"))
+           .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("DELETE /api/orders/{id}/items?ids= - remove itens em lote (200)")
+    void removeItems_ok() throws Exception {
+        Mockito.when(orderService.removeItemsFromOrder(6L, List.of(66L, 67L))).thenReturn(2);
+
+        mvc.perform(delete("/api/orders/6/items").param("ids", "66,67"))
+           .andExpect(status().isOk())
+           .andExpect(content().string("2"));
+    }
+
     @Test
     @DisplayName("PUT /api/orders/{id}/items - atualiza item (200)")
     void updateItem_ok() throws Exception {
@@ -8,9 +8,11 @@ import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -26,6 +28,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -59,13 +62,17 @@ import br.com.springboot.erp.service.ProductService;
  *
  * Cobertura dos endpoints:
  *  - GET    /api/products                         → listagem
+ *  - GET    /api/products?ids=|skus=              → busca em lote
  *  - GET    /api/products/{id}                    → detalhe por ID
  *  - GET    /api/products/sku/{sku}               → busca por SKU
  *  - POST   /api/products                         → criação (validação de campos obrigatórios)
  *  - PUT    /api/products/{id}                    → atualização (nome/preço/etc.)
+ *  - PATCH  /api/products/{id}                    → JSON Merge Patch (só os campos enviados)
  *  - DELETE /api/products/{id}                    → exclusão
+ *  - DELETE /api/products?ids=1,2                 → exclusão em lote (DELETE único)
  *  - PUT    /api/products/{id}/stock?stock=x      → atualização de estoque
  *  - PUT    /api/products/{id}/price?price=x      → atualização de preço
+ *  - POST   /api/products/bulk/price|stock        → atualização em massa (UPDATE único)
  *  - GET    /api/products/inventory-value         → valor total do inventário
  *  - GET    /api/products/price-range?min&max     → filtro por faixa de preço
  *
@@ -142,6 +149,23 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$[1].name", is("Produto 2")));
     }
 
+    @Test
+    public void testGetProductsByIdsAndSkus() throws Exception {
+        // Busca em lote na ordem pedida; ids/SKUs inexistentes são ignorados
+        mockMvc.perform(get("/api/products")
+                .param("ids", product2.getId() + ",999," + product1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].sku", is("SKU002")))
+                .andExpect(jsonPath("$[1].sku", is("SKU001")));
+
+        mockMvc.perform(get("/api/products")
+                .param("skus", "SKU001,SKU999"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Produto 1")));
+    }
+
     @Test
     public void testGetProductById() throws Exception {
         // Detalhe por ID existente
@@ -152,6 +176,175 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$.sku", is("SKU001")));
     }
 
+    @Test
+    public void testGetProductByIdReturnsETag() throws Exception {
+        // Resposta completa inclui ETag derivado da versão e Last-Modified
+        mockMvc.perform(get("/api/products/" + product1.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + product1.getVersion() + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    public void testGetProductByIdNotModified() throws Exception {
+        // If-None-Match com a versão corrente → 304 sem corpo
+        mockMvc.perform(get("/api/products/" + product1.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + product1.getVersion() + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void testGetProductByIdModifiedSinceOldVersion() throws Exception {
+        // If-None-Match com versão antiga → 200 com corpo completo
+        mockMvc.perform(get("/api/products/" + product1.getId())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + (product1.getVersion() + 1) + "\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sku", is("SKU001")));
+    }
+
+    @Test
+    public void testUpdateProductWithStaleIfMatch() throws Exception {
+        // If-Match com versão desatualizada → 412 e produto preservado
+        product1.setName("Produto 1 Atualizado");
+
+        mockMvc.perform(put("/api/products/" + product1.getId())
+                .header(HttpHeaders.IF_MATCH, "\"" + (product1.getVersion() + 1) + "\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(product1)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testPatchProductChangesOnlySentFields() throws Exception {
+        // Merge patch com um campo → demais campos preservados, nova versão no ETag
+        Long previousVersion = product1.getVersion();
+
+        mockMvc.perform(patch("/api/products/" + product1.getId())
+                .header(HttpHeaders.IF_MATCH, "\"" + previousVersion + "\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"price\": 12.50}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (previousVersion + 1) + "\""))
+                .andExpect(jsonPath("$.price", is(12.50)))
+                .andExpect(jsonPath("$.name", is("Produto 1")))
+                .andExpect(jsonPath("$.description", is("Descrição do Produto 1")))
+                .andExpect(jsonPath("$.stock", is(100)));
+
+        entityManager.clear();
+        Product updated = entityManager.find(Product.class, product1.getId());
+        assertEquals(new BigDecimal("12.50"), updated.getPrice());
+        assertEquals("SKU001", updated.getSku());
+    }
+
+    @Test
+    public void testPatchProductNullClearsField() throws Exception {
+        // null no merge patch apaga o campo
+        mockMvc.perform(patch("/api/products/" + product1.getId())
+                .contentType("application/merge-patch+json")
+                .content("{\"description\": null, \"stock\": 80}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stock", is(80)))
+                .andExpect(jsonPath("$.name", is("Produto 1")));
+
+        entityManager.clear();
+        Product updated = entityManager.find(Product.class, product1.getId());
+        assertEquals(null, updated.getDescription());
+        assertEquals(Integer.valueOf(80), updated.getStock());
+    }
+
+    @Test
+    public void testPatchProductWithStaleIfMatch() throws Exception {
+        // If-Match desatualizado → 412 sem alterar o produto
+        mockMvc.perform(patch("/api/products/" + product1.getId())
+                .header(HttpHeaders.IF_MATCH, "\"" + (product1.getVersion() + 1) + "\"")
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"Outro nome\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        assertEquals("Produto 1", product1.getName());
+    }
+
+    @Test
+    public void testPatchProductRejectsInvalidFields() throws Exception {
+        // campos fora da lista (versão, id) e valores inválidos → 400
+        mockMvc.perform(patch("/api/products/" + product1.getId())
+                .contentType("application/merge-patch+json")
+                .content("{\"version\": 7}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(patch("/api/products/" + product1.getId())
+                .contentType("application/merge-patch+json")
+                .content("{\"price\": -1}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(patch("/api/products/999")
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"x\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testBulkPriceUpdateByPercent() throws Exception {
+        // +10% nos SKUs com prefixo → ambos alterados, nova versão e sequência de alteração
+        Long previousVersion = product1.getVersion();
+
+        mockMvc.perform(post("/api/products/bulk/price")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"mode\": \"PERCENT\", \"value\": 10, \"filter\": {\"skuPrefix\": \"SKU00\"}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(2)));
+
+        entityManager.clear();
+        Product updated = entityManager.find(Product.class, product1.getId());
+        assertEquals(new BigDecimal("11.00"), updated.getPrice());
+        assertEquals(Long.valueOf(previousVersion + 1), updated.getVersion());
+        assertEquals(new BigDecimal("22.00"), entityManager.find(Product.class, product2.getId()).getPrice());
+    }
+
+    @Test
+    public void testBulkPriceUpdateSkipsNonPositivePrices() throws Exception {
+        // -15.00 absoluto: só o produto de 20.00 continua com preço positivo
+        mockMvc.perform(post("/api/products/bulk/price")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"mode\": \"ABSOLUTE\", \"value\": -15.00, \"filter\": {\"ids\": ["
+                        + product1.getId() + ", " + product2.getId() + "]}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(1)));
+
+        entityManager.clear();
+        assertEquals(new BigDecimal("10.00"), entityManager.find(Product.class, product1.getId()).getPrice());
+        assertEquals(new BigDecimal("5.00"), entityManager.find(Product.class, product2.getId()).getPrice());
+    }
+
+    @Test
+    public void testBulkStockAdjustmentByPriceRange() throws Exception {
+        // -10 na faixa 0..50: product2 (estoque 5) ficaria negativo e não é alterado
+        mockMvc.perform(post("/api/products/bulk/stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": -10, \"filter\": {\"minPrice\": 0, \"maxPrice\": 50}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(1)));
+
+        entityManager.clear();
+        assertEquals(Integer.valueOf(90), entityManager.find(Product.class, product1.getId()).getStock());
+        assertEquals(Integer.valueOf(5), entityManager.find(Product.class, product2.getId()).getStock());
+    }
+
+    @Test
+    public void testBulkUpdateRequiresFilter() throws Exception {
+        // sem filtro a operação alcançaria o catálogo inteiro → 400
+        mockMvc.perform(post("/api/products/bulk/stock")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"delta\": 1}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/products/bulk/price")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"mode\": \"PERCENT\", \"value\": -100, \"filter\": {\"skuPrefix\": \"SKU\"}}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void testGetProductByIdNotFound() throws Exception {
         // ID inexistente → 404
@@ -242,6 +435,18 @@ public class ProductControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    public void testDeleteProductsInBatch() throws Exception {
+        // ids inexistentes são ignorados; a resposta traz a quantidade removida
+        mockMvc.perform(delete("/api/products")
+                .param("ids", product1.getId() + "," + product2.getId() + ",999"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+
+        assertFalse(productService.findProductById(product1.getId()).isPresent());
+        assertFalse(productService.findProductById(product2.getId()).isPresent());
+    }
+
     @Test
     public void testUpdateStock() throws Exception {
         // Atualização de estoque via query param → 200 e valor persistido
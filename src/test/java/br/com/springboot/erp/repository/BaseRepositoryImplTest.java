@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -14,12 +15,18 @@ import java.lang.reflect.Field;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -60,6 +67,14 @@ class BaseRepositoryImplTest {
     @Mock CriteriaQuery<Long> cqLong;
     @Mock TypedQuery<Long> tqLong;
 
+    @Mock Metamodel metamodel;
+    @Mock EntityType<Dummy> entityType;
+    @Mock SingularAttribute<Dummy, Long> idAttribute;
+    @Mock Type<Long> idType;
+    @Mock Query bulk;
+    @Mock TypedQuery<Integer> tqInt;
+    @Mock TypedQuery<Integer> tqIntEmpty;
+
     private DummyRepository repo;
 
     @BeforeEach
@@ -80,6 +95,15 @@ class BaseRepositoryImplTest {
         // mocks para count()
         when(cb.createQuery(Long.class)).thenReturn(cqLong);
         when(em.createQuery(cqLong)).thenReturn(tqLong);
+
+        // mocks do metamodelo (nome da entidade e do id para existsById/deleteById)
+        when(em.getMetamodel()).thenReturn(metamodel);
+        when(metamodel.entity(Dummy.class)).thenReturn(entityType);
+        when(entityType.getName()).thenReturn("Dummy");
+        when(entityType.getIdType()).thenAnswer(invocation -> idType);
+        when(idType.getJavaType()).thenReturn(Long.class);
+        when(entityType.getId(Long.class)).thenAnswer(invocation -> idAttribute);
+        when(idAttribute.getName()).thenReturn("id");
     }
 
     @Test
@@ -152,28 +176,62 @@ class BaseRepositoryImplTest {
     }
 
     @Test
-    void deleteById_found_and_notFound() {
-        Dummy found = new Dummy(5L, "z");
-        when(em.find(Dummy.class, 5L)).thenReturn(found);
-        when(em.contains(found)).thenReturn(true);
-
-        repo.deleteById(5L);     // existente
-        repo.deleteById(404L);   // inexistente
-
-        verify(em).find(Dummy.class, 5L);
-        verify(em).remove(found);
-        verify(em).find(Dummy.class, 404L);
-        // como não achou, não deve tentar remover nada além do 'found'
-        verify(em, times(1)).remove(any());
+    void deleteById_direct_delete_without_loading() {
+        Dummy managed = new Dummy(5L, "z");
+        when(em.createQuery("DELETE FROM Dummy e WHERE e.id IN (:ids)")).thenReturn(bulk);
+        when(bulk.setParameter("ids", List.of(5L))).thenReturn(bulk);
+        when(em.getReference(Dummy.class, 5L)).thenReturn(managed);
+
+        repo.deleteById(5L);
+
+        verify(bulk).executeUpdate();
+        verify(em, never()).find(any(), any());
+        verify(em, never()).remove(any());
+        // instância gerenciada sai do contexto junto com a linha
+        verify(em).detach(managed);
+    }
+
+    @Test
+    void deleteAllByIdInBatch_single_statement() {
+        List<Long> ids = Arrays.asList(1L, 2L, 3L);
+        when(em.createQuery("DELETE FROM Dummy e WHERE e.id IN (:ids)")).thenReturn(bulk);
+        when(bulk.setParameter("ids", ids)).thenReturn(bulk);
+        when(bulk.executeUpdate()).thenReturn(2);
+
+        assertEquals(2, repo.deleteAllByIdInBatch(ids));
+        assertEquals(0, repo.deleteAllByIdInBatch(List.of()));
+
+        verify(bulk, times(1)).executeUpdate();
+        verify(em, never()).find(any(), any());
+    }
+
+    @Test
+    void deleteAllByIdInBatch_chunks_large_id_lists() {
+        List<Long> ids = LongStream.rangeClosed(1, 1200).boxed().toList();
+        when(em.createQuery("DELETE FROM Dummy e WHERE e.id IN (:ids)")).thenReturn(bulk);
+        when(bulk.setParameter(eq("ids"), any())).thenReturn(bulk);
+        when(bulk.executeUpdate()).thenReturn(512, 512, 176);
+
+        assertEquals(1200, repo.deleteAllByIdInBatch(ids));
+
+        // blocos de 512: 512 + 512 + 176
+        verify(bulk, times(3)).executeUpdate();
+        verify(bulk).setParameter("ids", ids.subList(1024, 1200));
     }
 
     @Test
     void existsById_true_false() {
-        when(em.find(Dummy.class, 1L)).thenReturn(new Dummy(1L, "a"));
-        when(em.find(Dummy.class, 2L)).thenReturn(null);
+        when(em.createQuery("SELECT 1 FROM Dummy e WHERE e.id = :id", Integer.class)).thenReturn(tqInt);
+        when(tqInt.setParameter("id", 1L)).thenReturn(tqInt);
+        when(tqInt.setParameter("id", 2L)).thenReturn(tqIntEmpty);
+        when(tqInt.setMaxResults(1)).thenReturn(tqInt);
+        when(tqIntEmpty.setMaxResults(1)).thenReturn(tqIntEmpty);
+        when(tqInt.getResultList()).thenReturn(List.of(1));
+        when(tqIntEmpty.getResultList()).thenReturn(List.of());
 
         assertTrue(repo.existsById(1L));
         assertFalse(repo.existsById(2L));
+        verify(em, never()).find(any(), any());
     }
 
     @Test
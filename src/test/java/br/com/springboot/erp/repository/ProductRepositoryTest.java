@@ -37,7 +37,7 @@ import static org.junit.Assert.*;
  *
  * 🔍 Cobertura - findBySku / not found - findByPriceGreaterThan - searchByName
  * (robustez contra injeção de SQL) - findProductsWithLowStock (regra de estoque
- * baixo)
+ * baixo) - findAllById / findBySkus (busca em lote)
  *
  * ⚠️ Observações e melhorias sugeridas (sem alterar o código) - Para busca por
  * nome, garanta que a query use parâmetros nomeados (JPQL) ou Criteria para
@@ -148,4 +148,30 @@ public class ProductRepositoryTest {
 		assertTrue("Deveria conter o produto 3 (estoque baixo)",
 				products.stream().anyMatch(p -> p.getSku().equals("SKU003")));
 	}
+
+	@Test
+	public void testFindAllByIdUsesPersistenceContextFirst() {
+		// product1 continua gerenciado (mesma instância); os demais vêm da consulta IN, na ordem pedida
+		entityManager.detach(product2);
+		entityManager.detach(product3);
+
+		List<Product> products = productRepository.findAllById(
+				List.of(product3.getId(), product1.getId(), 999L, product2.getId(), product3.getId()));
+
+		assertEquals(3, products.size());
+		assertEquals("SKU003", products.get(0).getSku());
+		assertSame(product1, products.get(1));
+		assertEquals("SKU002", products.get(2).getSku());
+		assertNotSame(product2, products.get(2));
+	}
+
+	@Test
+	public void testFindBySkus() {
+		// SKUs inexistentes são ignorados; a ordem segue a lista informada
+		List<Product> products = productRepository.findBySkus(List.of("SKU002", "SKU999", "SKU001"));
+
+		assertEquals(2, products.size());
+		assertEquals("SKU002", products.get(0).getSku());
+		assertEquals("SKU001", products.get(1).getSku());
+	}
 }
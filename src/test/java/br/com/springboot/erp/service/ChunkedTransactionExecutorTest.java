@@ -0,0 +1,109 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Testes unitários do {@link ChunkedTransactionExecutor}: leituras paralelas
+ * limitadas antes do envio ao executor e falhas convertidas em resultado.
+ */
+public class ChunkedTransactionExecutorTest {
+
+	private ExecutorService pool;
+	private TaskExecutorAdapter executor;
+	private final AtomicInteger submitted = new AtomicInteger();
+	private final AtomicInteger maxSubmitted = new AtomicInteger();
+
+	@Before
+	public void setUp() {
+		pool = Executors.newFixedThreadPool(8);
+		executor = new TaskExecutorAdapter(pool);
+		// conta as tarefas entregues ao executor e ainda não terminadas
+		executor.setTaskDecorator(task -> {
+			maxSubmitted.accumulateAndGet(submitted.incrementAndGet(), Math::max);
+			return () -> {
+				try {
+					task.run();
+				} finally {
+					submitted.decrementAndGet();
+				}
+			};
+		});
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdownNow();
+	}
+
+	@Test
+	public void testReadsAreThrottledBeforeSubmitting() {
+		ChunkedTransactionExecutor chunked = new ChunkedTransactionExecutor(mock(PlatformTransactionManager.class),
+				executor, 2);
+		List<Integer> items = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+
+		List<String> results = chunked.executeReadsInParallel(items, item -> {
+			sleep(20);
+			return "ok-" + item;
+		}, (item, ex) -> "erro-" + item);
+
+		assertEquals(10, results.size());
+		assertEquals("ok-9", results.get(9));
+		// a permissão volta um pouco antes de a tarefa sair do executor, daí a folga;
+		// sem o limite no envio, as 10 iriam ao executor de uma vez
+		assertTrue("Tarefas no executor: " + maxSubmitted.get(), maxSubmitted.get() <= 4);
+	}
+
+	@Test
+	public void testFailedReadBecomesFailureResult() {
+		ChunkedTransactionExecutor chunked = new ChunkedTransactionExecutor(mock(PlatformTransactionManager.class),
+				executor, 4);
+
+		List<String> results = chunked.executeReadsInParallel(List.of(1, 2, 3), item -> {
+			if (item == 2) {
+				throw new AssertionError("falhou");
+			}
+			return "ok-" + item;
+		}, (item, ex) -> "erro-" + item);
+
+		assertEquals(List.of("ok-1", "erro-2", "ok-3"), results);
+	}
+
+	@Test
+	public void testInterruptedBatchReturnsFailureResults() {
+		ChunkedTransactionExecutor chunked = new ChunkedTransactionExecutor(mock(PlatformTransactionManager.class),
+				executor, 1);
+
+		Thread.currentThread().interrupt();
+		try {
+			List<String> results = chunked.executeReadsInParallel(List.of(1, 2), item -> "ok-" + item,
+					(item, ex) -> "erro-" + item);
+			assertEquals(List.of("erro-1", "erro-2"), results);
+			assertTrue(Thread.currentThread().isInterrupted());
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
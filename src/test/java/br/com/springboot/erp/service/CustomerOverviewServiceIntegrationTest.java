@@ -0,0 +1,184 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.NoSuchElementException;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.Application;
+import br.com.springboot.erp.config.TestConfig;
+import br.com.springboot.erp.model.dto.CustomerOverviewDto;
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.model.entity.Order;
+import br.com.springboot.erp.model.entity.OrderItem;
+import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.Status;
+
+/**
+ * Testes de integração do {@link CustomerOverviewService}.
+ *
+ * ⚠️ Sem {@code @Transactional}: as subconsultas rodam em paralelo, cada uma em
+ * sua transação, e só enxergam dados confirmados. A massa é criada e removida
+ * com {@link TransactionTemplate}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+public class CustomerOverviewServiceIntegrationTest {
+
+	@Autowired
+	private CustomerOverviewService overviewService;
+
+	@Autowired
+	private OrderArchiver archiver;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private TransactionTemplate tx;
+	private Long customerId;
+
+	@Before
+	public void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		customerId = tx.execute(status -> {
+			Customer customer = new Customer();
+			customer.setName("Cliente 360");
+			customer.setEmail("cliente360@email.com");
+			entityManager.persist(customer);
+
+			Product product = new Product();
+			product.setName("Produto 360");
+			product.setPrice(new BigDecimal("10.00"));
+			product.setStock(100);
+			product.setSku("SKU360");
+			entityManager.persist(product);
+
+			// finalizado: 2 itens, 2x10 + 1x10 = 30
+			Order finalized = order(customer, "ORD-360-1", Status.FINALIZADO, LocalDateTime.now().minusDays(2));
+			item(finalized, product, 2);
+			item(finalized, product, 1);
+			// pendente: 1 item de 50, fora do lifetime value
+			Order pending = order(customer, "ORD-360-2", Status.PENDENTE, LocalDateTime.now().minusDays(1));
+			item(pending, product, 5);
+			// sem itens
+			order(customer, "ORD-360-3", Status.CANCELADO, LocalDateTime.now());
+			return customer.getId();
+		});
+	}
+
+	@After
+	public void tearDown() {
+		tx.executeWithoutResult(status -> {
+			entityManager.createQuery("DELETE FROM ArchivedOrderItem i WHERE i.orderId IN "
+					+ "(SELECT a.id FROM ArchivedOrder a WHERE a.customerId = :id)").setParameter("id", customerId)
+					.executeUpdate();
+			entityManager.createQuery("DELETE FROM ArchivedOrder a WHERE a.customerId = :id")
+					.setParameter("id", customerId).executeUpdate();
+			entityManager.createQuery("DELETE FROM OrderItem i WHERE i.order.id IN "
+					+ "(SELECT o.id FROM Order o WHERE o.customer.id = :id)").setParameter("id", customerId).executeUpdate();
+			entityManager.createQuery("DELETE FROM Order o WHERE o.customer.id = :id")
+					.setParameter("id", customerId).executeUpdate();
+			entityManager.createQuery("DELETE FROM Customer c WHERE c.id = :id").setParameter("id", customerId)
+					.executeUpdate();
+			entityManager.createQuery("DELETE FROM Product p WHERE p.sku = 'SKU360'").executeUpdate();
+		});
+	}
+
+	@Test
+	public void testOverviewAggregatesOrdersAndLifetimeValue() {
+		CustomerOverviewDto overview = overviewService.getOverview(customerId, 0, 2);
+
+		assertEquals("Cliente 360", overview.customer().name());
+		assertEquals(3, overview.totalOrders());
+		assertEquals(0, new BigDecimal("30.00").compareTo(overview.lifetimeValue()));
+
+		// página ordenada do mais recente para o mais antigo
+		assertEquals(2, overview.orders().size());
+		assertEquals("ORD-360-3", overview.orders().get(0).orderNumber());
+		assertEquals(Long.valueOf(0), overview.orders().get(0).itemCount());
+		assertEquals(0, BigDecimal.ZERO.compareTo(overview.orders().get(0).itemsTotal()));
+		assertEquals("ORD-360-2", overview.orders().get(1).orderNumber());
+		assertEquals(Long.valueOf(1), overview.orders().get(1).itemCount());
+		assertEquals(0, new BigDecimal("50.00").compareTo(overview.orders().get(1).itemsTotal()));
+
+		CustomerOverviewDto secondPage = overviewService.getOverview(customerId, 1, 2);
+		assertEquals(1, secondPage.orders().size());
+		assertEquals(Long.valueOf(2), secondPage.orders().get(0).itemCount());
+	}
+
+	@Test
+	public void testOverviewIncludesArchivedOrders() {
+		// @PreUpdate atualiza updated_at: a data antiga é gravada direto
+		tx.executeWithoutResult(status -> entityManager
+				.createQuery("UPDATE Order o SET o.updatedAt = :old WHERE o.orderNumber = 'ORD-360-1'")
+				.setParameter("old", LocalDateTime.now().minusDays(365))
+				.executeUpdate());
+		archiver.archive();
+		assertEquals(Long.valueOf(1), tx.execute(status -> entityManager
+				.createQuery("SELECT COUNT(a) FROM ArchivedOrder a WHERE a.customerId = :id", Long.class)
+				.setParameter("id", customerId).getSingleResult()));
+
+		CustomerOverviewDto overview = overviewService.getOverview(customerId, 0, 20);
+
+		assertEquals(3, overview.totalOrders());
+		assertEquals(0, new BigDecimal("30.00").compareTo(overview.lifetimeValue()));
+		assertEquals(3, overview.orders().size());
+		assertEquals("ORD-360-1", overview.orders().get(2).orderNumber());
+		assertEquals(Long.valueOf(2), overview.orders().get(2).itemCount());
+	}
+
+	@Test(expected = NoSuchElementException.class)
+	public void testOverviewUnknownCustomer() {
+		overviewService.getOverview(-1L, 0, 20);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testOverviewInvalidPageSize() {
+		overviewService.getOverview(customerId, 0, 0);
+	}
+
+	private Order order(Customer customer, String number, Status status, LocalDateTime date) {
+		Order order = new Order();
+		order.setCustomer(customer);
+		order.setOrderNumber(number);
+		order.setOrderDate(date);
+		order.setStatus(status);
+		entityManager.persist(order);
+		return order;
+	}
+
+	private void item(Order order, Product product, int quantity) {
+		OrderItem item = new OrderItem();
+		item.setOrder(order);
+		item.setProduct(product);
+		item.setQuantity(quantity);
+		item.setUnitPrice(product.getPrice());
+		item.updateSubtotal();
+		entityManager.persist(item);
+		// colunas de resumo mantidas pelo OrderService
+		order.setItemCount(order.getItemCount() + 1);
+		order.setTotalAmount(order.getTotalAmount() != null ? order.getTotalAmount().add(item.getSubtotal())
+				: item.getSubtotal());
+	}
+}
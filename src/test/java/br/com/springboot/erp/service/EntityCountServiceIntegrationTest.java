@@ -0,0 +1,165 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.Application;
+import br.com.springboot.erp.config.TestConfig;
+import br.com.springboot.erp.model.dto.EntityCountsDto;
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.Status;
+
+/**
+ * Testes de integração do {@link EntityCountService}: deltas aplicados só após o
+ * commit e diferenças corrigidas na conferência com o banco.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class, properties = "erp.counts.reconcile-interval-ms=0")
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+public class EntityCountServiceIntegrationTest {
+
+	@Autowired
+	private EntityCountService entityCounts;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private CustomerService customerService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private TransactionTemplate tx;
+	private final List<Long> productIds = new ArrayList<>();
+	private Long customerId;
+
+	@Before
+	public void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		assertTrue(entityCounts.reconcile());
+	}
+
+	@After
+	public void tearDown() {
+		tx.executeWithoutResult(status -> {
+			if (customerId != null) {
+				entityManager.createQuery("DELETE FROM Order o WHERE o.customer.id = :id")
+						.setParameter("id", customerId).executeUpdate();
+				entityManager.createQuery("DELETE FROM Customer c WHERE c.id = :id").setParameter("id", customerId)
+						.executeUpdate();
+			}
+			if (!productIds.isEmpty()) {
+				entityManager.createQuery("DELETE FROM Product p WHERE p.id IN :ids").setParameter("ids", productIds)
+						.executeUpdate();
+			}
+		});
+		entityCounts.reconcile();
+	}
+
+	@Test
+	public void testCreateStatusChangeAndDeleteUpdateCounters() {
+		EntityCountsDto before = entityCounts.counts();
+
+		Long productId = productService.saveProduct(product("CNT-1")).getId();
+		customerId = customerService.saveCustomer(customer("contagem@email.com")).getId();
+		Long orderId = orderService.createOrder(customerId, new ArrayList<>()).getId();
+
+		EntityCountsDto created = entityCounts.counts();
+		assertEquals(before.products() + 1, created.products());
+		assertEquals(before.customers() + 1, created.customers());
+		assertEquals(before.orders() + 1, created.orders());
+		assertEquals(pending(before) + 1, pending(created));
+
+		orderService.cancelOrder(orderId);
+		productService.deleteProduct(productId);
+
+		EntityCountsDto after = entityCounts.counts();
+		assertEquals(before.products(), after.products());
+		assertEquals(before.orders() + 1, after.orders());
+		assertEquals(pending(before), pending(after));
+		assertEquals(before.ordersByStatus().get(Status.CANCELADO) + 1,
+				(long) after.ordersByStatus().get(Status.CANCELADO));
+
+		// nada a corrigir: os deltas acompanharam o banco
+		assertTrue(entityCounts.reconcile());
+		assertEquals(0, entityCounts.counts().lastDrift());
+	}
+
+	@Test
+	public void testRolledBackCreationIsNotCounted() {
+		EntityCountsDto before = entityCounts.counts();
+
+		tx.executeWithoutResult(status -> {
+			productService.saveProduct(product("CNT-ROLLBACK"));
+			status.setRollbackOnly();
+		});
+
+		assertEquals(before.products(), entityCounts.counts().products());
+	}
+
+	@Test
+	public void testReconcileCorrectsWritesOutsideTheServices() {
+		EntityCountsDto before = entityCounts.counts();
+		tx.executeWithoutResult(status -> {
+			Product product = product("CNT-SQL");
+			entityManager.persist(product);
+			productIds.add(product.getId());
+		});
+		assertEquals(before.products(), entityCounts.counts().products());
+
+		assertTrue(entityCounts.reconcile());
+
+		EntityCountsDto after = entityCounts.counts();
+		assertEquals(before.products() + 1, after.products());
+		assertEquals(1, after.lastDrift());
+		assertEquals(before.reconciliations() + 1, after.reconciliations());
+	}
+
+	private Product product(String sku) {
+		Product product = new Product();
+		product.setName("Produto " + sku);
+		product.setPrice(new BigDecimal("10.00"));
+		product.setStock(5);
+		product.setSku(sku);
+		return product;
+	}
+
+	private static Customer customer(String email) {
+		Customer customer = new Customer();
+		customer.setName("Cliente Contagem");
+		customer.setEmail(email);
+		return customer;
+	}
+
+	private static long pending(EntityCountsDto counts) {
+		return counts.ordersByStatus().get(Status.PENDENTE);
+	}
+}
@@ -0,0 +1,150 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.event.LowStockEvent;
+
+/**
+ * Testes unitários do {@link LowStockAlertService}: publicação de eventos
+ * apenas quando o estoque cruza o limite (global ou do produto) e snapshot
+ * do stream lido depois da assinatura.
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class LowStockAlertServiceTest {
+
+	@Mock
+	private ApplicationEventPublisher eventPublisher;
+
+	private ExecutorService sender;
+	private ScheduledExecutorService scheduler;
+	private LowStockAlertService alertService;
+	private Product product;
+
+	@Before
+	public void setUp() {
+		sender = Executors.newSingleThreadExecutor();
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		alertService = new LowStockAlertService(eventPublisher, 10, 16, 0, 0, sender, scheduler);
+
+		product = new Product();
+		product.setId(1L);
+		product.setName("Produto 1");
+		product.setPrice(new BigDecimal("10.00"));
+		product.setSku("SKU001");
+	}
+
+	@After
+	public void tearDown() {
+		sender.shutdownNow();
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void testPublishesWhenStockCrossesBelowThreshold() {
+		product.setStock(5);
+
+		alertService.onStockChange(product, 20);
+
+		ArgumentCaptor<LowStockEvent> captor = ArgumentCaptor.forClass(LowStockEvent.class);
+		verify(eventPublisher).publishEvent(captor.capture());
+		assertTrue(captor.getValue().low());
+		assertEquals(Integer.valueOf(5), captor.getValue().stock());
+		assertEquals(10, captor.getValue().threshold());
+	}
+
+	@Test
+	public void testPublishesRecoveryWhenStockCrossesAboveThreshold() {
+		product.setStock(50);
+
+		alertService.onStockChange(product, 3);
+
+		ArgumentCaptor<LowStockEvent> captor = ArgumentCaptor.forClass(LowStockEvent.class);
+		verify(eventPublisher).publishEvent(captor.capture());
+		assertFalse(captor.getValue().low());
+	}
+
+	@Test
+	public void testNoEventWhenStockStaysOnSameSide() {
+		product.setStock(4);
+		alertService.onStockChange(product, 8);
+
+		product.setStock(30);
+		alertService.onStockChange(product, 40);
+
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+	}
+
+	@Test
+	public void testProductThresholdOverridesGlobal() {
+		product.setLowStockThreshold(100);
+		product.setStock(50);
+
+		alertService.onStockChange(product, 150);
+
+		ArgumentCaptor<LowStockEvent> captor = ArgumentCaptor.forClass(LowStockEvent.class);
+		verify(eventPublisher).publishEvent(captor.capture());
+		assertEquals(100, captor.getValue().threshold());
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testCrossingDuringSnapshotReadIsDelivered() throws Exception {
+		product.setStock(5);
+		LowStockEvent crossed = new LowStockEvent(1L, "SKU001", "Produto 1", 5, 10, true, LocalDateTime.now());
+
+		// o produto cruza o limite depois da leitura da lista, antes de ela voltar
+		SseEmitter emitter = alertService.subscribe(() -> {
+			alertService.broadcast(crossed);
+			return List.of();
+		});
+
+		sender.shutdown();
+		assertTrue(sender.awaitTermination(5, TimeUnit.SECONDS));
+		Set<ResponseBodyEmitter.DataWithMediaType> sent = (Set<ResponseBodyEmitter.DataWithMediaType>) ReflectionTestUtils
+				.getField(emitter, "earlySendAttempts");
+		List<Object> payloads = sent.stream()
+				.map(ResponseBodyEmitter.DataWithMediaType::getData)
+				.filter(data -> !(data instanceof String))
+				.collect(Collectors.toList());
+		assertEquals(List.of(List.of(), crossed), payloads);
+	}
+
+	@Test
+	public void testNewProductOnlyAlertsWhenAlreadyLow() {
+		product.setStock(50);
+		alertService.onStockChange(product, null);
+		verify(eventPublisher, never()).publishEvent(any(Object.class));
+
+		product.setStock(2);
+		alertService.onStockChange(product, null);
+		verify(eventPublisher).publishEvent(any(LowStockEvent.class));
+	}
+}
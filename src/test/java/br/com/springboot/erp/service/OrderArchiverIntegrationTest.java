@@ -0,0 +1,183 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.Application;
+import br.com.springboot.erp.config.TestConfig;
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.model.entity.Order;
+import br.com.springboot.erp.model.entity.OrderItem;
+import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.Status;
+
+/**
+ * Testes de integração do {@link OrderArchiver}: pedidos encerrados antigos saem
+ * das tabelas quentes e continuam visíveis nas buscas por id e número.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class, properties = {
+		"erp.orders.archive.after-days=30",
+		"erp.orders.archive.batch-size=2",
+		"erp.orders.archive.pause-ms=0" })
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+public class OrderArchiverIntegrationTest {
+
+	@Autowired
+	private OrderArchiver archiver;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private TransactionTemplate tx;
+	private Long customerId;
+	private Long productId;
+	private Long oldFinalizedId;
+	private Long oldCancelledId;
+	private Long recentFinalizedId;
+	private Long oldPendingId;
+
+	@Before
+	public void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			Customer customer = new Customer();
+			customer.setName("Cliente Arquivo");
+			customer.setEmail("arquivo@email.com");
+			entityManager.persist(customer);
+			customerId = customer.getId();
+
+			Product product = new Product();
+			product.setName("Produto Arquivo");
+			product.setPrice(new BigDecimal("5.00"));
+			product.setStock(10);
+			product.setSku("SKUARQUIVO");
+			entityManager.persist(product);
+			productId = product.getId();
+
+			oldFinalizedId = order(customer, product, "ORD-ARCH-1", Status.FINALIZADO);
+			oldCancelledId = order(customer, product, "ORD-ARCH-2", Status.CANCELADO);
+			recentFinalizedId = order(customer, product, "ORD-ARCH-3", Status.FINALIZADO);
+			oldPendingId = order(customer, product, "ORD-ARCH-4", Status.PENDENTE);
+		});
+		// @PreUpdate atualiza updated_at: a data antiga é gravada direto
+		tx.executeWithoutResult(status -> entityManager
+				.createQuery("UPDATE Order o SET o.updatedAt = :old WHERE o.id IN :ids")
+				.setParameter("old", LocalDateTime.now().minusDays(60))
+				.setParameter("ids", List.of(oldFinalizedId, oldCancelledId, oldPendingId))
+				.executeUpdate());
+	}
+
+	@After
+	public void tearDown() {
+		tx.executeWithoutResult(status -> {
+			entityManager.createQuery("DELETE FROM ArchivedOrderItem i WHERE i.productId = :id")
+					.setParameter("id", productId).executeUpdate();
+			entityManager.createQuery("DELETE FROM ArchivedOrder a WHERE a.customerId = :id")
+					.setParameter("id", customerId).executeUpdate();
+			entityManager.createQuery("DELETE FROM OrderItem i WHERE i.product.id = :id")
+					.setParameter("id", productId).executeUpdate();
+			entityManager.createQuery("DELETE FROM Order o WHERE o.customer.id = :id")
+					.setParameter("id", customerId).executeUpdate();
+			entityManager.createQuery("DELETE FROM Customer c WHERE c.id = :id").setParameter("id", customerId)
+					.executeUpdate();
+			entityManager.createQuery("DELETE FROM Product p WHERE p.id = :id").setParameter("id", productId)
+					.executeUpdate();
+		});
+	}
+
+	@Test
+	public void testArchivesOnlyOldClosedOrders() {
+		long archived = archiver.archive();
+
+		assertTrue(archived >= 2);
+		assertFalse(isLive(oldFinalizedId));
+		assertFalse(isLive(oldCancelledId));
+		assertTrue(isLive(recentFinalizedId));
+		assertTrue(isLive(oldPendingId));
+		assertEquals(Long.valueOf(0), tx.execute(status -> entityManager
+				.createQuery("SELECT COUNT(i) FROM OrderItem i WHERE i.order.id = :id", Long.class)
+				.setParameter("id", oldFinalizedId).getSingleResult()));
+		assertTrue(orderService.findAllOrders().stream().noneMatch(order -> order.getId().equals(oldFinalizedId)));
+	}
+
+	@Test
+	public void testLookupsFallThroughToArchive() {
+		archiver.archive();
+
+		Order byId = orderService.findOrderById(oldFinalizedId).get();
+		assertEquals("ORD-ARCH-1", byId.getOrderNumber());
+		assertEquals(Status.FINALIZADO, byId.getStatus());
+		assertEquals(customerId, byId.getCustomer().getId());
+		assertEquals(1, byId.getItems().size());
+		assertEquals(productId, byId.getItems().get(0).getProduct().getId());
+		assertEquals(Integer.valueOf(2), byId.getItems().get(0).getQuantity());
+
+		assertEquals(oldCancelledId, orderService.findOrderByNumber("ORD-ARCH-2").get().getId());
+		assertTrue(orderService.findOrderVersion(oldCancelledId).isPresent());
+		assertEquals(new BigDecimal("10.00"), orderService.calculateOrderTotal(oldFinalizedId));
+	}
+
+	@Test
+	public void testArchivedOrdersAreReadOnly() {
+		archiver.archive();
+
+		try {
+			orderService.cancelOrder(oldFinalizedId);
+			fail("Pedido arquivado não deveria ser alterado");
+		} catch (IllegalArgumentException expected) {
+			// só a tabela quente é alterada
+		}
+		assertEquals(Status.FINALIZADO, orderService.findOrderById(oldFinalizedId).get().getStatus());
+	}
+
+	private Long order(Customer customer, Product product, String number, Status status) {
+		Order order = new Order();
+		order.setCustomer(customer);
+		order.setOrderNumber(number);
+		order.setOrderDate(LocalDateTime.now().minusDays(60));
+		order.setStatus(status);
+		entityManager.persist(order);
+
+		OrderItem item = new OrderItem();
+		item.setOrder(order);
+		item.setProduct(product);
+		item.setQuantity(2);
+		item.setUnitPrice(product.getPrice());
+		item.updateSubtotal();
+		entityManager.persist(item);
+		return order.getId();
+	}
+
+	private boolean isLive(Long id) {
+		return tx.execute(status -> entityManager.find(Order.class, id) != null);
+	}
+}
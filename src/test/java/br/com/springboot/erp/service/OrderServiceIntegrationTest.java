@@ -1,9 +1,12 @@
 package br.com.springboot.erp.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -229,8 +232,90 @@ public class OrderServiceIntegrationTest {
 		assertEquals("Pedido não deveria ter itens", 0, updatedOrder.get().getItems().size());
 	}
 
+	@Test
+	public void testRemoveItemsFromOrderAdjustsTotal() {
+		order.setTotalAmount(new BigDecimal("20.00"));
+		order.setItemCount(1);
+		entityManager.flush();
+		OrderItem newItem = new OrderItem();
+		newItem.setProduct(product);
+		newItem.setQuantity(1);
+		orderService.addItemToOrder(order.getId(), newItem);
+
+		// ids de outros pedidos (ou inexistentes) são ignorados
+		int removed = orderService.removeItemsFromOrder(order.getId(),
+				List.of(orderItem.getId(), newItem.getId(), Long.MAX_VALUE));
+
+		assertEquals(2, removed);
+		Order updatedOrder = orderService.findOrderById(order.getId()).get();
+		assertEquals(0, updatedOrder.getItems().size());
+		assertEquals(0, BigDecimal.ZERO.compareTo(updatedOrder.getTotalAmount()));
+		assertEquals(Integer.valueOf(0), updatedOrder.getItemCount());
+		assertEquals(0, orderService.removeItemsFromOrder(order.getId(), List.of(orderItem.getId())));
+	}
+
+	@Test
+	public void testItemMutationsMaintainSummaryColumns() {
+		Order created = orderService.createOrder(customer.getId(), new ArrayList<>(List.of(item(2), item(1))));
+		assertEquals(Integer.valueOf(2), created.getItemCount());
+		assertEquals(0, new BigDecimal("30.00").compareTo(created.getTotalAmount()));
+
+		OrderItem added = item(3);
+		orderService.addItemToOrder(created.getId(), added);
+		assertEquals(Integer.valueOf(3), created.getItemCount());
+		assertEquals(0, new BigDecimal("60.00").compareTo(created.getTotalAmount()));
+
+		added.setQuantity(1);
+		orderService.updateOrderItem(created.getId(), added);
+		assertEquals(0, new BigDecimal("40.00").compareTo(created.getTotalAmount()));
+
+		orderService.removeItemFromOrder(created.getId(), added.getId());
+		Order reloaded = orderService.findOrderById(created.getId()).get();
+		assertEquals(Integer.valueOf(2), reloaded.getItemCount());
+		assertEquals(0, new BigDecimal("30.00").compareTo(reloaded.getTotalAmount()));
+		assertEquals(0, reloaded.calculateTotal().compareTo(reloaded.getTotalAmount()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUpdateItemOfAnotherOrder() {
+		Order other = orderService.createOrder(customer.getId(), new ArrayList<>());
+		orderService.updateOrderItem(other.getId(), orderItem);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testRemoveItemsFromMissingOrder() {
+		orderService.removeItemsFromOrder(Long.MAX_VALUE, List.of(orderItem.getId()));
+	}
+
+	@Test
+	public void testRemoveUnknownItemReturnsFalse() {
+		assertFalse("Item inexistente não deveria ser removido",
+				orderService.removeItemFromOrder(order.getId(), orderItem.getId() + 1000));
+
+		assertEquals(Long.valueOf(1), entityManager
+				.createQuery("SELECT COUNT(i) FROM OrderItem i WHERE i.order.id = :id", Long.class)
+				.setParameter("id", order.getId()).getSingleResult());
+	}
+
+	@Test
+	public void testRemoveItemsFromCancelledOrderIsRejected() {
+		orderService.cancelOrder(order.getId());
+
+		try {
+			orderService.removeItemsFromOrder(order.getId(), List.of(orderItem.getId()));
+			fail("Pedido cancelado não deveria perder itens");
+		} catch (OrderNotPendingException expected) {
+			// item e total continuam como estavam
+		}
+		assertEquals(Long.valueOf(1), entityManager
+				.createQuery("SELECT COUNT(i) FROM OrderItem i WHERE i.order.id = :id", Long.class)
+				.setParameter("id", order.getId()).getSingleResult());
+	}
+
 	@Test
 	public void testUpdateOrderItem() {
+		order.setTotalAmount(new BigDecimal("20.00"));
+		entityManager.flush();
 		orderItem.setQuantity(5);
 		orderItem.setUnitPrice(new BigDecimal("12.00"));
 
@@ -240,8 +325,9 @@ public class OrderServiceIntegrationTest {
 		assertTrue("Pedido deveria ser encontrado", updatedOrder.isPresent());
 		assertEquals("Item deveria ter a quantidade atualizada", 5,
 				(int) updatedOrder.get().getItems().get(0).getQuantity());
-		assertEquals("Item deveria ter o preço unitário atualizado", new BigDecimal("12.00"),
+		assertEquals("Preço unitário deveria vir do cadastro, não do cliente", new BigDecimal("10.00"),
 				updatedOrder.get().getItems().get(0).getUnitPrice());
+		assertEquals(0, new BigDecimal("50.00").compareTo(updatedOrder.get().getTotalAmount()));
 	}
 
 	@Test
@@ -264,6 +350,19 @@ public class OrderServiceIntegrationTest {
 		assertEquals("Estoque do produto deveria ser atualizado", 98, updatedProduct.get().getStock().intValue());
 	}
 
+	@Test
+	public void testFinalizeOrderTwiceIsRejected() {
+		orderService.finalizeOrder(order.getId());
+
+		try {
+			orderService.finalizeOrder(order.getId());
+			fail("Pedido já finalizado não deveria ser finalizado de novo");
+		} catch (OrderNotPendingException expected) {
+			// a segunda chamada não baixa o estoque outra vez
+		}
+		assertEquals(98, productRepository.findById(product.getId()).get().getStock().intValue());
+	}
+
 	// FIXME: finalizeOrder deve iterar itens, decrementar estoque e persistir
 	// alterações (product.setStock(...))
 	// SUGESTÃO: após decrementar, salvar/merge no repositório
@@ -291,6 +390,67 @@ public class OrderServiceIntegrationTest {
 	// FIXME: geração de número de ordem não pode colidir
 	// SUGESTÃO: use timestamp + sufixo aleatório/sequence (ex.:
 	// yyyyMMddHHmmss-XXXX)
+	@Test
+	public void testCreateOrderUsesCatalogPrices() {
+		// preço enviado pelo cliente é ignorado: unitPrice, subtotal e total vêm do cadastro
+		OrderItem newItem = new OrderItem();
+		Product reference = new Product();
+		reference.setId(product.getId());
+		newItem.setProduct(reference);
+		newItem.setQuantity(3);
+		newItem.setUnitPrice(new BigDecimal("0.01"));
+
+		Order createdOrder = orderService.createOrder(customer.getId(), new ArrayList<>(List.of(newItem)));
+
+		assertEquals(product.getPrice(), newItem.getUnitPrice());
+		assertEquals(product.getPrice().multiply(new BigDecimal(3)), newItem.getSubtotal());
+		assertEquals(newItem.getSubtotal(), createdOrder.getTotalAmount());
+		assertSame("Item deveria referenciar o produto gerenciado", product, newItem.getProduct());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCreateOrderWithUnknownProduct() {
+		OrderItem newItem = new OrderItem();
+		Product reference = new Product();
+		reference.setId(-1L);
+		newItem.setProduct(reference);
+		newItem.setQuantity(1);
+
+		orderService.createOrder(customer.getId(), new ArrayList<>(List.of(newItem)));
+	}
+
+	@Test
+	public void testAddItemToOrderUpdatesTotal() {
+		OrderItem newItem = new OrderItem();
+		newItem.setProduct(product);
+		newItem.setQuantity(2);
+		newItem.setUnitPrice(new BigDecimal("99.00"));
+		BigDecimal previousTotal = order.getTotalAmount();
+
+		orderService.addItemToOrder(order.getId(), newItem);
+
+		// total incrementado pelo subtotal, sem recalcular item a item
+		assertEquals(product.getPrice(), newItem.getUnitPrice());
+		assertEquals(previousTotal.add(newItem.getSubtotal()), order.getTotalAmount());
+	}
+
+	@Test
+	public void testAddItemToFinalizedOrderIsRejected() {
+		orderService.finalizeOrder(order.getId());
+		BigDecimal totalBefore = order.getTotalAmount();
+
+		try {
+			orderService.addItemToOrder(order.getId(), item(1));
+			fail("Pedido finalizado não deveria receber itens");
+		} catch (OrderNotPendingException expected) {
+			// item, total e contagem continuam como estavam
+		}
+		assertEquals(0, totalBefore.compareTo(order.getTotalAmount()));
+		assertEquals(Long.valueOf(1), entityManager
+				.createQuery("SELECT COUNT(i) FROM OrderItem i WHERE i.order.id = :id", Long.class)
+				.setParameter("id", order.getId()).getSingleResult());
+	}
+
 	@Test
 	public void testOrderNumberUniqueness() {
 		Order order1 = orderService.createOrder(customer.getId(), new ArrayList<>());
@@ -310,4 +470,11 @@ public class OrderServiceIntegrationTest {
 
 		orderService.addItemToOrder(order.getId(), negativeItem);
 	}
+
+	private OrderItem item(int quantity) {
+		OrderItem item = new OrderItem();
+		item.setProduct(product);
+		item.setQuantity(quantity);
+		return item;
+	}
 }
@@ -3,12 +3,16 @@ package br.com.springboot.erp.service;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -20,22 +24,29 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Query;
 import javax.persistence.TypedQuery;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
 
 import br.com.springboot.erp.model.entity.Customer;
 import br.com.springboot.erp.model.entity.Order;
 import br.com.springboot.erp.model.entity.OrderItem;
 import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.Status;
+import br.com.springboot.erp.model.event.OrderStatusChangedEvent;
 import br.com.springboot.erp.repository.CustomerRepository;
 import br.com.springboot.erp.repository.ProductRepository;
 
@@ -74,12 +85,42 @@ public class OrderServiceTest {
     @Mock
     private ProductService productService;
 
+    @Mock
+    private ProductChangeTracker productChangeTracker;
+
+    @Mock
+    private LowStockAlertService lowStockAlertService;
+
+    @Mock
+    private StockWriteBehindBuffer stockBuffer;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private StockReservationService stockReservations;
+
+    @Mock
+    private PendingOrderSweeper pendingOrderSweeper;
+
+    @Mock
+    private OrderArchiver orderArchiver;
+
+    @Mock
+    private EntityCountService entityCounts;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @Mock
     private EntityManager entityManager;
 
     @Mock
     private TypedQuery<Order> typedQuery;
 
+    @Mock
+    private TypedQuery<Long> lockQuery;
+
     @InjectMocks
     private OrderServiceImpl orderService;
 
@@ -132,6 +173,12 @@ public class OrderServiceTest {
         // Configura o mock do EntityManager para retornar o pedido quando find for chamado
         when(entityManager.find(eq(Order.class), eq(1L))).thenReturn(order);
 
+        // trava do pedido (SELECT ... FOR UPDATE) antes de finalizar, cancelar ou alterar itens
+        when(entityManager.createQuery(anyString(), eq(Long.class))).thenReturn(lockQuery);
+        when(lockQuery.setParameter(anyString(), any())).thenReturn(lockQuery);
+        when(lockQuery.setFlushMode(any())).thenReturn(lockQuery);
+        when(lockQuery.setLockMode(any())).thenReturn(lockQuery);
+
         // Configura o mock do TypedQuery
         when(entityManager.createQuery(anyString(), eq(Order.class))).thenReturn(typedQuery);
         when(typedQuery.setParameter(anyString(), any())).thenReturn(typedQuery);
@@ -148,6 +195,7 @@ public class OrderServiceTest {
     public void testCreateOrder() {
         // Configura os mocks
         when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
+        when(productRepository.findAllById(anyCollection())).thenReturn(List.of(product));
         doNothing().when(entityManager).persist(any(Order.class));
         doNothing().when(entityManager).persist(any(OrderItem.class));
 
@@ -161,6 +209,7 @@ public class OrderServiceTest {
         // Verifica o resultado
         assertNotNull("Pedido criado não deveria ser nulo", createdOrder);
         assertEquals("Pedido deveria ter o cliente correto", customer, createdOrder.getCustomer());
+        assertEquals("Total deveria vir do preço do cadastro", new BigDecimal("20.00"), createdOrder.getTotalAmount());
 
         // Verifica se os métodos foram chamados
         verify(customerRepository, times(1)).findById(1L);
@@ -239,15 +288,18 @@ public class OrderServiceTest {
     public void testAddItemToOrder() {
         // Configura os mocks
         doNothing().when(entityManager).persist(any(OrderItem.class));
+        when(productRepository.findAllById(anyCollection())).thenReturn(List.of(product));
 
-        // Cria um novo item para adicionar
+        // Cria um novo item para adicionar (preço enviado pelo cliente é ignorado)
         OrderItem newItem = new OrderItem();
         newItem.setProduct(product);
         newItem.setQuantity(1);
-        newItem.setUnitPrice(new BigDecimal("10.00"));
+        newItem.setUnitPrice(new BigDecimal("1.00"));
 
         // Executa o método
         orderService.addItemToOrder(1L, newItem);
+        assertEquals(new BigDecimal("10.00"), newItem.getUnitPrice());
+        assertEquals(new BigDecimal("10.00"), order.getTotalAmount());
 
         // Verifica se os métodos foram chamados
         verify(entityManager, times(1)).find(Order.class, 1L);
@@ -256,31 +308,165 @@ public class OrderServiceTest {
     }
 
     @Test
+    public void testAddItemToFinalizedOrder() {
+        order.setStatus(Status.FINALIZADO);
+        BigDecimal totalBefore = order.getTotalAmount();
+        OrderItem newItem = new OrderItem();
+        newItem.setProduct(product);
+        newItem.setQuantity(1);
+
+        try {
+            orderService.addItemToOrder(1L, newItem);
+            fail("Pedido finalizado não deveria receber itens");
+        } catch (OrderNotPendingException expected) {
+            // total e itens continuam como estavam
+        }
+        assertEquals(totalBefore, order.getTotalAmount());
+        assertEquals(1, order.getItems().size());
+        verify(entityManager, never()).persist(any(OrderItem.class));
+        verify(stockReservations, never()).reserve(anyLong(), any());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddItemWithoutQuantity() {
+        OrderItem newItem = new OrderItem();
+        newItem.setProduct(product);
+
+        orderService.addItemToOrder(1L, newItem);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
     public void testRemoveItemFromOrder() {
-        // Configura os mocks
-        doNothing().when(entityManager).remove(any(OrderItem.class));
+        // Configura os mocks: status travado, item travado por projeção, DELETE e UPDATE diretos
+        stubOrderStatus(1L, Status.PENDENTE);
+        TypedQuery<Object[]> itemQuery = mock(TypedQuery.class);
+        Query bulk = mock(Query.class);
+        when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(itemQuery);
+        when(itemQuery.setParameter(anyString(), any())).thenReturn(itemQuery);
+        when(itemQuery.setLockMode(any())).thenReturn(itemQuery);
+        when(itemQuery.getResultList()).thenReturn(
+                List.<Object[]>of(new Object[] { 1L, 1L, 2, new BigDecimal("20.00") }));
+        when(entityManager.createQuery(anyString())).thenReturn(bulk);
+        when(bulk.setParameter(anyString(), any())).thenReturn(bulk);
+        when(bulk.executeUpdate()).thenReturn(1);
 
         // Executa o método
-        orderService.removeItemFromOrder(1L, 1L);
+        assertTrue(orderService.removeItemFromOrder(1L, 1L));
+
+        // Nem o pedido nem a coleção de itens são carregados
+        verify(entityManager, never()).find(Order.class, 1L);
+        verify(entityManager, never()).remove(any(OrderItem.class));
+        verify(bulk, times(2)).executeUpdate();
+        verify(bulk).setParameter("removed", new BigDecimal("20.00"));
+        verify(stockReservations).release(1L, Map.of(1L, 2));
+    }
 
-        // Verifica se os métodos foram chamados
-        verify(entityManager, times(1)).find(Order.class, 1L);
-        verify(entityManager, times(1)).remove(any(OrderItem.class));
+    @Test(expected = IllegalArgumentException.class)
+    public void testRemoveItemsFromMissingOrder() {
+        stubOrderStatus(99L, null);
+
+        orderService.removeItemsFromOrder(99L, List.of(1L, 2L));
+    }
 
+    @Test
+    public void testRemoveItemsFromFinalizedOrder() {
+        stubOrderStatus(1L, Status.FINALIZADO);
+
+        try {
+            orderService.removeItemsFromOrder(1L, List.of(1L));
+            fail("Pedido finalizado não deveria perder itens");
+        } catch (OrderNotPendingException expected) {
+            // nenhum comando direto é executado
+        }
+        verify(entityManager, never()).createQuery(anyString());
+        verify(stockReservations, never()).release(anyLong(), any());
+    }
+
+    // status do pedido lido (travado) por removeItemsFromOrder; null = pedido inexistente
+    @SuppressWarnings("unchecked")
+    private void stubOrderStatus(Long orderId, Status status) {
+        TypedQuery<Status> statusQuery = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(Status.class))).thenReturn(statusQuery);
+        when(statusQuery.setParameter("orderId", orderId)).thenReturn(statusQuery);
+        when(statusQuery.setLockMode(LockModeType.PESSIMISTIC_WRITE)).thenReturn(statusQuery);
+        when(statusQuery.getResultList()).thenReturn(status != null ? List.of(status) : Collections.emptyList());
     }
 
     @Test
     public void testUpdateOrderItem() {
-        // Configura os mocks
+        // Configura os mocks: item gravado com produto 1, 2 unidades, subtotal 20.00
+        stubStoredItem(1L, 2, "20.00");
+        when(productRepository.findAllById(anyCollection())).thenReturn(List.of(product));
         when(entityManager.merge(any(OrderItem.class))).thenReturn(orderItem);
+        order.setTotalAmount(new BigDecimal("20.00"));
+        orderItem.setQuantity(3);
+        // preço enviado pelo cliente é ignorado
+        orderItem.setUnitPrice(new BigDecimal("1.00"));
 
         // Executa o método
         orderService.updateOrderItem(1L, orderItem);
 
+        // Preço do cadastro; total ajustado pela diferença de subtotal (30.00 - 20.00)
+        assertEquals(new BigDecimal("10.00"), orderItem.getUnitPrice());
+        assertEquals(new BigDecimal("30.00"), orderItem.getSubtotal());
+        assertEquals(new BigDecimal("30.00"), order.getTotalAmount());
+        // reserva só da unidade a mais
+        verify(stockReservations).reserve(1L, Map.of(1L, 1));
+        verify(stockReservations, never()).release(anyLong(), any());
+
         // Verifica se os métodos foram chamados
         verify(entityManager, times(1)).find(Order.class, 1L);
         verify(entityManager, times(1)).merge(any(OrderItem.class));
+    }
 
+    @Test
+    public void testUpdateOrderItemSwapsProduct() {
+        Product other = new Product();
+        other.setId(2L);
+        other.setName("Produto 2");
+        other.setPrice(new BigDecimal("5.00"));
+        stubStoredItem(1L, 2, "20.00");
+        when(productRepository.findAllById(anyCollection())).thenReturn(List.of(other));
+        order.setTotalAmount(new BigDecimal("20.00"));
+        OrderItem changed = new OrderItem();
+        changed.setId(1L);
+        changed.setProduct(other);
+        changed.setQuantity(6);
+
+        orderService.updateOrderItem(1L, changed);
+
+        assertEquals(new BigDecimal("30.00"), changed.getSubtotal());
+        assertEquals(new BigDecimal("30.00"), order.getTotalAmount());
+        // produto anterior liberado (após o commit) e o novo reservado
+        verify(stockReservations).release(1L, Map.of(1L, 2));
+        verify(stockReservations).reserve(1L, Map.of(2L, 6));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUpdateOrderItemWithInvalidQuantity() {
+        stubStoredItem(1L, 2, "20.00");
+        orderItem.setQuantity(0);
+
+        orderService.updateOrderItem(1L, orderItem);
+    }
+
+    @Test(expected = OrderNotPendingException.class)
+    public void testUpdateOrderItemOfFinalizedOrder() {
+        order.setStatus(Status.FINALIZADO);
+
+        orderService.updateOrderItem(1L, orderItem);
+    }
+
+    // pedido 1 pendente (travado) e a linha gravada do item: produto, quantidade e subtotal
+    @SuppressWarnings("unchecked")
+    private void stubStoredItem(Long productId, int quantity, String subtotal) {
+        TypedQuery<Object[]> storedQuery = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(storedQuery);
+        when(storedQuery.setParameter(anyString(), any())).thenReturn(storedQuery);
+        when(storedQuery.setFlushMode(any())).thenReturn(storedQuery);
+        when(storedQuery.getResultList()).thenReturn(
+                List.<Object[]>of(new Object[] { productId, quantity, new BigDecimal(subtotal) }));
     }
 
     @Test
@@ -309,8 +495,9 @@ public class OrderServiceTest {
         // Cria um mock de Order para poder mockar o método calculateTotal
         Order mockOrder = mock(Order.class);
         when(mockOrder.calculateTotal()).thenReturn(new BigDecimal("20.00"));
+        when(mockOrder.getStatus()).thenReturn(Status.PENDENTE);
 
-        // Configura o entityManager para retornar o mock de Order
+        // Configura o entityManager para retornar o mock de Order, travado
         when(entityManager.find(eq(Order.class), eq(1L))).thenReturn(mockOrder);
 
         // Executa o método
@@ -325,12 +512,22 @@ public class OrderServiceTest {
 
     @Test
     public void testCancelOrder() {
+        when(entityManager.find(eq(Order.class), eq(1L))).thenReturn(order);
+
         // Executa o método
         orderService.cancelOrder(1L);
 
         // Verifica se os métodos foram chamados
         verify(entityManager, times(1)).find(Order.class, 1L);
+        assertEquals(Status.CANCELADO, order.getStatus());
+    }
+
+    @Test(expected = OrderNotPendingException.class)
+    public void testCancelOrderJaFinalizado() {
+        order.setStatus(Status.FINALIZADO);
+        when(entityManager.find(eq(Order.class), eq(1L))).thenReturn(order);
 
+        orderService.cancelOrder(1L);
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -386,6 +583,20 @@ public class OrderServiceTest {
     }
     
     
+    @Test
+    public void testFinalizeOrder_publicaMudancaDeStatus() {
+        when(entityManager.find(eq(Order.class), eq(1L))).thenReturn(order);
+
+        orderService.finalizeOrder(1L);
+
+        // evento vai ao barramento; a entrega SSE ocorre após o commit
+        ArgumentCaptor<OrderStatusChangedEvent> captor = ArgumentCaptor.forClass(OrderStatusChangedEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(captor.capture());
+        assertEquals(order.getId(), captor.getValue().orderId());
+        assertEquals(Status.PENDENTE, captor.getValue().previousStatus());
+        assertEquals(Status.FINALIZADO, captor.getValue().status());
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testFinalizeOrder_orderNaoEncontrado() {
         when(entityManager.find(eq(Order.class), eq(999L))).thenReturn(null);
@@ -0,0 +1,87 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import br.com.springboot.erp.model.dto.OrderDto;
+import br.com.springboot.erp.model.entity.Status;
+import br.com.springboot.erp.model.event.OrderStatusChangedEvent;
+
+/**
+ * Testes unitários do {@link OrderStatusNotificationService}: o snapshot é lido
+ * depois da assinatura, sem perder mudanças confirmadas durante a leitura.
+ */
+public class OrderStatusNotificationServiceTest {
+
+	private ExecutorService sender;
+	private ScheduledExecutorService scheduler;
+	private OrderStatusNotificationService notifications;
+
+	@Before
+	public void setUp() {
+		sender = Executors.newSingleThreadExecutor();
+		scheduler = Executors.newSingleThreadScheduledExecutor();
+		notifications = new OrderStatusNotificationService(16, 0, 0, sender, scheduler);
+	}
+
+	@After
+	public void tearDown() {
+		sender.shutdownNow();
+		scheduler.shutdownNow();
+	}
+
+	@Test
+	public void testTransitionDuringSnapshotReadIsDelivered() throws Exception {
+		OrderDto pending = new OrderDto(1L, "ORD-1", LocalDateTime.now(), Status.PENDENTE, BigDecimal.TEN, 1);
+		OrderStatusChangedEvent finalized = new OrderStatusChangedEvent(1L, "ORD-1", 7L, Status.PENDENTE,
+				Status.FINALIZADO, BigDecimal.TEN, LocalDateTime.now());
+
+		// a finalização confirma entre a leitura do pedido e a volta do snapshot
+		Optional<SseEmitter> emitter = notifications.subscribeToOrder(1L, () -> {
+			notifications.broadcast(finalized);
+			return Optional.of(pending);
+		});
+
+		assertTrue(emitter.isPresent());
+		List<Object> sent = sentPayloads(emitter.get());
+		assertEquals(List.of(pending, finalized), sent);
+	}
+
+	@Test
+	public void testUnknownOrderIsNotSubscribed() {
+		assertFalse(notifications.subscribeToOrder(99L, Optional::empty).isPresent());
+		assertEquals(0, notifications.subscriberCount());
+	}
+
+	// emitter ainda não ligado a uma resposta guarda os envios; só os dados dos eventos interessam
+	@SuppressWarnings("unchecked")
+	private List<Object> sentPayloads(SseEmitter emitter) throws InterruptedException {
+		sender.shutdown();
+		assertTrue(sender.awaitTermination(5, TimeUnit.SECONDS));
+		Set<ResponseBodyEmitter.DataWithMediaType> sent = (Set<ResponseBodyEmitter.DataWithMediaType>) ReflectionTestUtils
+				.getField(emitter, "earlySendAttempts");
+		return sent.stream()
+				.map(ResponseBodyEmitter.DataWithMediaType::getData)
+				.filter(data -> !(data instanceof String))
+				.collect(Collectors.toList());
+	}
+}
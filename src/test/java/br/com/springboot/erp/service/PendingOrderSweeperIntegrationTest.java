@@ -0,0 +1,157 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.Application;
+import br.com.springboot.erp.config.TestConfig;
+import br.com.springboot.erp.model.dto.PendingOrderSweepStatsDto;
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.model.entity.Order;
+import br.com.springboot.erp.model.entity.Status;
+
+/**
+ * Testes de integração do {@link PendingOrderSweeper}: só pedidos pendentes
+ * mais antigos que o limite são cancelados, em lotes pequenos.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class, properties = {
+		"erp.orders.pending-expiry.batch-size=2",
+		"erp.orders.pending-expiry.pause-ms=0",
+		"erp.orders.pending-expiry.interval-ms=600000" })
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+public class PendingOrderSweeperIntegrationTest {
+
+	@Autowired
+	private PendingOrderSweeper sweeper;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private TransactionTemplate tx;
+	private Long customerId;
+	private final List<Long> abandoned = new ArrayList<>();
+	private Long recentId;
+	private Long finalizedId;
+
+	@Before
+	public void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			Customer customer = new Customer();
+			customer.setName("Cliente Varredura");
+			customer.setEmail("varredura@email.com");
+			entityManager.persist(customer);
+			customerId = customer.getId();
+
+			LocalDateTime old = LocalDateTime.now().minusDays(3);
+			for (int i = 0; i < 5; i++) {
+				abandoned.add(order(customer, "ORD-SWEEP-" + i, Status.PENDENTE, old));
+			}
+			recentId = order(customer, "ORD-SWEEP-RECENT", Status.PENDENTE, LocalDateTime.now());
+			finalizedId = order(customer, "ORD-SWEEP-DONE", Status.FINALIZADO, old);
+		});
+	}
+
+	@After
+	public void tearDown() {
+		tx.executeWithoutResult(status -> {
+			entityManager.createQuery("DELETE FROM Order o WHERE o.customer.id = :id")
+					.setParameter("id", customerId).executeUpdate();
+			entityManager.createQuery("DELETE FROM Customer c WHERE c.id = :id").setParameter("id", customerId)
+					.executeUpdate();
+		});
+	}
+
+	@Test
+	public void testCancelsOnlyAbandonedPendingOrdersInBatches() {
+		PendingOrderSweepStatsDto before = sweeper.stats();
+
+		long cancelled = sweeper.sweep();
+
+		assertTrue(cancelled >= 5);
+		for (Long id : abandoned) {
+			assertEquals(Status.CANCELADO, status(id));
+		}
+		assertEquals(Status.PENDENTE, status(recentId));
+		assertEquals(Status.FINALIZADO, status(finalizedId));
+
+		PendingOrderSweepStatsDto after = sweeper.stats();
+		assertEquals(before.runs() + 1, after.runs());
+		// lotes de 2: ao menos 3 lotes para 5 pedidos
+		assertTrue(after.batches() - before.batches() >= 3);
+		assertEquals(cancelled, after.lastRunCancelled());
+	}
+
+	@Test
+	public void testCancelledOrdersGetNewVersion() {
+		Long id = abandoned.get(0);
+		Long versionBefore = version(id);
+
+		sweeper.sweep();
+
+		assertEquals(Long.valueOf(versionBefore + 1), version(id));
+		assertEquals(0, sweeper.sweep());
+	}
+
+	@Test
+	public void testFinalizeAfterSweepIsRejected() {
+		Long id = abandoned.get(0);
+		sweeper.sweep();
+
+		try {
+			orderService.finalizeOrder(id);
+			fail("Pedido cancelado pela varredura não deveria ser finalizado");
+		} catch (OrderNotPendingException expected) {
+			// o pedido continua cancelado
+		}
+		assertEquals(Status.CANCELADO, status(id));
+	}
+
+	private Long order(Customer customer, String number, Status status, LocalDateTime date) {
+		Order order = new Order();
+		order.setCustomer(customer);
+		order.setOrderNumber(number);
+		order.setOrderDate(date);
+		order.setStatus(status);
+		entityManager.persist(order);
+		return order.getId();
+	}
+
+	private Status status(Long id) {
+		return tx.execute(s -> entityManager.createQuery("SELECT o.status FROM Order o WHERE o.id = :id", Status.class)
+				.setParameter("id", id).getSingleResult());
+	}
+
+	private Long version(Long id) {
+		return tx.execute(s -> entityManager.createQuery("SELECT o.version FROM Order o WHERE o.id = :id", Long.class)
+				.setParameter("id", id).getSingleResult());
+	}
+}
@@ -1,13 +1,18 @@
 package br.com.springboot.erp.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,7 +20,9 @@ import static org.mockito.Mockito.when;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -24,7 +31,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import br.com.springboot.erp.model.dto.ProductChangesDto;
 import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.ProductTombstone;
 import br.com.springboot.erp.repository.ProductRepository;
 import br.com.springboot.erp.service.ProductServiceImpl;
 
@@ -50,6 +59,24 @@ public class ProductServiceTest {
 	@Mock
 	private ProductRepository productRepository;
 
+	@Mock
+	private ProductChangeTracker changeTracker;
+
+	@Mock
+	private LowStockAlertService lowStockAlertService;
+
+	@Mock
+	private StockWriteBehindBuffer stockBuffer;
+
+	@Mock
+	private StockLedger stockLedger;
+
+	@Mock
+	private StockReservationService stockReservations;
+
+	@Mock
+	private EntityCountService entityCounts;
+
 	@InjectMocks
 	private ProductServiceImpl productService;
 
@@ -209,13 +236,27 @@ public class ProductServiceTest {
 	@Test
 	public void testDeleteProduct() {
 		// arrange
+		when(productRepository.findSkusByIds(List.of(1L))).thenReturn(Map.of(1L, "SKU001"));
 		doNothing().when(productRepository).deleteById(anyLong());
 
 		// act
-		productService.deleteProduct(1L);
+		boolean deleted = productService.deleteProduct(1L);
 
 		// assert
+		assertTrue(deleted);
 		verify(productRepository, times(1)).deleteById(1L);
+		verify(productRepository, never()).findById(anyLong());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testDeleteProductsAboveLookupLimit() {
+		List<Long> ids = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+		try {
+			productService.deleteProducts(ids);
+		} finally {
+			verify(productRepository, never()).deleteAllByIdInBatch(anyCollection());
+		}
 	}
 
 	@Test
@@ -303,4 +344,47 @@ public class ProductServiceTest {
 		verify(productRepository, times(1)).findById(1L);
 		verify(productRepository, times(1)).save(any(Product.class));
 	}
+
+	@Test
+	public void testFindProductChangesPaginatesBySequence() {
+		// arrange: alterações em 2 e 5, exclusão em 3; sequência estável em 10
+		product1.setChangeSeq(2L);
+		product2.setChangeSeq(5L);
+		ProductTombstone tombstone = new ProductTombstone();
+		tombstone.setProductId(3L);
+		tombstone.setChangeSeq(3L);
+
+		when(changeTracker.stableSequence()).thenReturn(10L);
+		when(productRepository.findChangedBetween(eq(0L), eq(10L), anyInt()))
+				.thenReturn(Arrays.asList(product1, product2));
+		when(productRepository.findTombstonesBetween(eq(0L), eq(10L), anyInt()))
+				.thenReturn(Arrays.asList(tombstone));
+
+		// act: página de 2 itens
+		ProductChangesDto page = productService.findProductChanges(0L, 2);
+
+		// assert: intercalado por sequência e cursor no último item entregue
+		assertEquals(1, page.upserts().size());
+		assertEquals(Long.valueOf(1L), page.upserts().get(0).id());
+		assertEquals(Arrays.asList(3L), page.deletedIds());
+		assertTrue(page.hasMore());
+		assertEquals(3L, page.nextSince());
+	}
+
+	@Test
+	public void testFindProductChangesLastPageAdvancesToStableSequence() {
+		// arrange
+		product2.setChangeSeq(5L);
+		when(changeTracker.stableSequence()).thenReturn(10L);
+		when(productRepository.findChangedBetween(eq(3L), eq(10L), anyInt())).thenReturn(Arrays.asList(product2));
+		when(productRepository.findTombstonesBetween(eq(3L), eq(10L), anyInt())).thenReturn(Arrays.asList());
+
+		// act
+		ProductChangesDto page = productService.findProductChanges(3L, 100);
+
+		// assert: sem mais páginas, o cursor avança até a sequência estável
+		assertEquals(1, page.upserts().size());
+		assertFalse(page.hasMore());
+		assertEquals(10L, page.nextSince());
+	}
 }
@@ -0,0 +1,276 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.Application;
+import br.com.springboot.erp.config.TestConfig;
+import br.com.springboot.erp.controller.ProductController;
+import br.com.springboot.erp.model.dto.BulkStockUpdateRequest;
+import br.com.springboot.erp.model.dto.BulkUpdateResultDto;
+import br.com.springboot.erp.model.dto.ProductBulkFilter;
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.model.entity.Order;
+import br.com.springboot.erp.model.entity.OrderItem;
+import br.com.springboot.erp.model.entity.Product;
+import br.com.springboot.erp.model.entity.StockMovement;
+import br.com.springboot.erp.model.entity.StockMovementReason;
+
+/**
+ * Testes de integração do {@link StockLedger} com o livro de estoque ligado.
+ *
+ * A consolidação periódica fica desligada na prática (intervalo longo) para que
+ * o teste controle quando {@code products.stock} é atualizado.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class, properties = {
+		"erp.stock.ledger.enabled=true",
+		"erp.stock.ledger.group-wait-ms=5",
+		"erp.stock.ledger.snapshot-interval-ms=600000" })
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+public class StockLedgerIntegrationTest {
+
+	@Autowired
+	private StockLedger stockLedger;
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private ProductController productController;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private TransactionTemplate tx;
+	private Long productId;
+
+	@Before
+	public void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		productId = tx.execute(status -> {
+			Product product = new Product();
+			product.setName("Produto Livro");
+			product.setPrice(new BigDecimal("10.00"));
+			product.setStock(100);
+			product.setSku("SKULEDGER");
+			entityManager.persist(product);
+			return product.getId();
+		});
+	}
+
+	@After
+	public void tearDown() {
+		tx.executeWithoutResult(status -> {
+			entityManager.createQuery("DELETE FROM OrderItem i WHERE i.product.id = :id")
+					.setParameter("id", productId).executeUpdate();
+			entityManager.createQuery("DELETE FROM Order o WHERE o.orderNumber LIKE 'ORD-LEDGER-%'").executeUpdate();
+			entityManager.createQuery("DELETE FROM Customer c WHERE c.email = 'livro@email.com'").executeUpdate();
+			entityManager.createQuery("DELETE FROM Product p WHERE p.id = :id").setParameter("id", productId)
+					.executeUpdate();
+		});
+	}
+
+	@Test
+	public void testConcurrentMovementsAreGroupCommitted() throws Exception {
+		long commitsBefore = stockLedger.groupCommits();
+
+		try (ExecutorService clients = Executors.newFixedThreadPool(32)) {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				futures.add(clients.submit(() -> stockLedger.append(productId, -1, StockMovementReason.AJUSTE, null)));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+
+		assertEquals(Integer.valueOf(0), stockLedger.currentStock(productId));
+		assertEquals(100, stockLedger.findMovements(productId, 1000).size());
+		// várias movimentações por transação
+		long commits = stockLedger.groupCommits() - commitsBefore;
+		assertTrue("Esperava menos transações que movimentações: " + commits, commits < 100);
+
+		// products.stock só muda na consolidação
+		assertEquals(Integer.valueOf(100), databaseStock());
+		stockLedger.snapshot();
+		assertEquals(Integer.valueOf(0), databaseStock());
+		assertEquals(Integer.valueOf(0), stockLedger.currentStock(productId));
+	}
+
+	@Test
+	public void testUpdateStockRecordsAdjustment() {
+		productService.updateProductStock(productId, 40);
+
+		List<StockMovement> movements = productService.findStockMovements(productId, 10);
+		assertEquals(1, movements.size());
+		assertEquals(Integer.valueOf(-60), movements.get(0).getDelta());
+		assertEquals(StockMovementReason.AJUSTE, movements.get(0).getReason());
+
+		assertEquals(Integer.valueOf(40), productService.findProductById(productId).get().getStock());
+		assertEquals(Integer.valueOf(100), databaseStock());
+		assertTrue(productService.findProductsWithLowStock().stream()
+				.noneMatch(product -> product.getId().equals(productId)));
+	}
+
+	@Test
+	public void testRecordStockLevelUsesGroupCommit() {
+		long commitsBefore = stockLedger.groupCommits();
+
+		// na transação do serviço: movimentação gravada junto, sem passar pela fila
+		productService.updateProductStock(productId, 60);
+		assertEquals(commitsBefore, stockLedger.groupCommits());
+
+		productService.recordStockLevel(productId, 30);
+		assertEquals(commitsBefore + 1, stockLedger.groupCommits());
+		assertEquals(Integer.valueOf(30), stockLedger.currentStock(productId));
+		assertEquals(2, productService.findStockMovements(productId, 10).size());
+
+		// dentro da transação de quem chamou (ex.: lote): entra nela e é desfeito junto
+		tx.executeWithoutResult(status -> {
+			productService.recordStockLevel(productId, 10);
+			status.setRollbackOnly();
+		});
+		assertEquals(commitsBefore + 1, stockLedger.groupCommits());
+		assertEquals(Integer.valueOf(30), stockLedger.currentStock(productId));
+	}
+
+	@Test
+	public void testStockEndpointUsesGroupCommit() {
+		long commitsBefore = stockLedger.groupCommits();
+
+		assertEquals(HttpStatus.OK, productController.updateStock(productId, 25).getStatusCode());
+
+		assertEquals(commitsBefore + 1, stockLedger.groupCommits());
+		assertEquals(Integer.valueOf(25), stockLedger.currentStock(productId));
+	}
+
+	@Test
+	public void testReadsComputeCurrentStockWithoutFolding() {
+		stockLedger.append(productId, -95, StockMovementReason.AJUSTE, null);
+		long snapshotsBefore = stockLedger.snapshots();
+		Long versionBefore = productService.findProductVersion(productId).get().version();
+
+		assertEquals(Integer.valueOf(5), productService.findProductsByIds(List.of(productId)).get(0).getStock());
+		assertEquals(Integer.valueOf(5), productService.findAllProducts().stream()
+				.filter(product -> product.getId().equals(productId)).findFirst().get().getStock());
+		assertTrue(productService.findProductsWithLowStock().stream()
+				.anyMatch(product -> product.getId().equals(productId) && product.getStock() == 5));
+		assertFalse(productService.isVersionCurrent(productId));
+
+		// nenhuma leitura consolidou: products.stock e a versão seguem como antes
+		assertEquals(snapshotsBefore, stockLedger.snapshots());
+		assertEquals(Integer.valueOf(100), databaseStock());
+		assertEquals(versionBefore, productService.findProductVersion(productId).get().version());
+
+		stockLedger.snapshot();
+		assertTrue(productService.isVersionCurrent(productId));
+		assertEquals(Integer.valueOf(5), databaseStock());
+	}
+
+	@Test
+	public void testBulkStockAdjustmentRecordsMovements() {
+		BulkUpdateResultDto result = productService.adjustStocks(new BulkStockUpdateRequest(-25,
+				new ProductBulkFilter(null, null, null, List.of(productId))));
+
+		assertEquals(1, result.updated());
+		StockMovement adjustment = productService.findStockMovements(productId, 10).get(0);
+		assertEquals(Integer.valueOf(-25), adjustment.getDelta());
+		assertEquals(StockMovementReason.AJUSTE, adjustment.getReason());
+		assertEquals(Integer.valueOf(75), stockLedger.currentStock(productId));
+		assertEquals(Integer.valueOf(100), databaseStock());
+	}
+
+	@Test
+	public void testFinalizeOrderAppendsSaleMovement() {
+		Long orderId = createOrder("ORD-LEDGER-1", 3);
+
+		orderService.finalizeOrder(orderId);
+
+		StockMovement sale = productService.findStockMovements(productId, 10).get(0);
+		assertEquals(Integer.valueOf(-3), sale.getDelta());
+		assertEquals(StockMovementReason.VENDA, sale.getReason());
+		assertEquals(orderId, sale.getOrderId());
+		assertEquals(Integer.valueOf(97), stockLedger.currentStock(productId));
+	}
+
+	@Test
+	public void testFinalizeOrderWithoutStockRecordsNothing() {
+		Long orderId = createOrder("ORD-LEDGER-2", 500);
+
+		try {
+			orderService.finalizeOrder(orderId);
+			fail("Esperava estoque insuficiente");
+		} catch (IllegalStateException expected) {
+			// a transação foi desfeita junto com a movimentação
+		}
+
+		assertTrue(productService.findStockMovements(productId, 10).isEmpty());
+		assertEquals(Integer.valueOf(100), stockLedger.currentStock(productId));
+	}
+
+	private Long createOrder(String number, int quantity) {
+		return tx.execute(status -> {
+			Customer customer = new Customer();
+			customer.setName("Cliente Livro");
+			customer.setEmail("livro@email.com");
+			entityManager.persist(customer);
+
+			Product product = entityManager.find(Product.class, productId);
+			Order order = new Order();
+			order.setCustomer(customer);
+			order.setOrderNumber(number);
+			order.setOrderDate(LocalDateTime.now());
+			entityManager.persist(order);
+
+			OrderItem item = new OrderItem();
+			item.setOrder(order);
+			item.setProduct(product);
+			item.setQuantity(quantity);
+			item.setUnitPrice(product.getPrice());
+			item.updateSubtotal();
+			order.getItems().add(item);
+			entityManager.persist(item);
+			return order.getId();
+		});
+	}
+
+	private Integer databaseStock() {
+		return tx.execute(status -> entityManager
+				.createQuery("SELECT p.stock FROM Product p WHERE p.id = :id", Integer.class)
+				.setParameter("id", productId).getSingleResult());
+	}
+}
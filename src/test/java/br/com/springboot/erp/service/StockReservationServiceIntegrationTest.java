@@ -0,0 +1,184 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.Application;
+import br.com.springboot.erp.config.TestConfig;
+import br.com.springboot.erp.model.dto.StockAvailabilityDto;
+import br.com.springboot.erp.model.entity.Customer;
+import br.com.springboot.erp.model.entity.Order;
+import br.com.springboot.erp.model.entity.OrderItem;
+import br.com.springboot.erp.model.entity.Product;
+
+/**
+ * Testes de integração do {@link StockReservationService}: reserva na criação do
+ * pedido, liberação no cancelamento, conversão na finalização e expiração por TTL.
+ *
+ * Sem {@code @Transactional}: liberações acontecem após o commit.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class, properties = "erp.stock.reservation.ttl-ms=1000")
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+public class StockReservationServiceIntegrationTest {
+
+	@Autowired
+	private StockReservationService reservations;
+
+	@Autowired
+	private OrderService orderService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private TransactionTemplate tx;
+	private Long customerId;
+	private Long productId;
+
+	@Before
+	public void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			Customer customer = new Customer();
+			customer.setName("Cliente Reserva");
+			customer.setEmail("reserva@email.com");
+			entityManager.persist(customer);
+			customerId = customer.getId();
+
+			Product product = new Product();
+			product.setName("Produto Reserva");
+			product.setPrice(new BigDecimal("10.00"));
+			product.setStock(10);
+			product.setSku("SKURESERVA");
+			entityManager.persist(product);
+			productId = product.getId();
+		});
+	}
+
+	@After
+	public void tearDown() {
+		tx.executeWithoutResult(status -> {
+			entityManager.createQuery("DELETE FROM OrderItem i WHERE i.product.id = :id")
+					.setParameter("id", productId).executeUpdate();
+			entityManager.createQuery("DELETE FROM Order o WHERE o.customer.id = :id")
+					.setParameter("id", customerId).executeUpdate();
+			entityManager.createQuery("DELETE FROM Customer c WHERE c.id = :id").setParameter("id", customerId)
+					.executeUpdate();
+			entityManager.createQuery("DELETE FROM Product p WHERE p.id = :id").setParameter("id", productId)
+					.executeUpdate();
+		});
+	}
+
+	@Test
+	public void testCreateOrderReservesAndRejectsOverbooking() {
+		Order first = orderService.createOrder(customerId, items(7));
+
+		StockAvailabilityDto availability = reservations.availability(productId).get();
+		assertEquals(10, availability.onHand());
+		assertEquals(7, availability.reserved());
+		assertEquals(3, availability.available());
+
+		try {
+			orderService.createOrder(customerId, items(4));
+			fail("Esperava disponível insuficiente");
+		} catch (InsufficientStockException expected) {
+			// pedido não criado e nada reservado
+		}
+		assertEquals(7, reservations.reservedQuantity(productId));
+
+		orderService.cancelOrder(first.getId());
+		assertEquals(0, reservations.reservedQuantity(productId));
+		assertEquals(10, reservations.availability(productId).get().available());
+	}
+
+	@Test
+	public void testFinalizeConvertsReservationIntoDecrement() {
+		Order order = orderService.createOrder(customerId, items(4));
+
+		orderService.finalizeOrder(order.getId());
+
+		StockAvailabilityDto availability = reservations.availability(productId).get();
+		assertEquals(6, availability.onHand());
+		assertEquals(0, availability.reserved());
+		assertEquals(6, availability.available());
+	}
+
+	@Test
+	public void testUpdateItemAdjustsReservation() {
+		Order order = orderService.createOrder(customerId, items(4));
+		Long itemId = order.getItems().get(0).getId();
+
+		orderService.updateOrderItem(order.getId(), changedItem(itemId, 6));
+		assertEquals(6, reservations.reservedQuantity(productId));
+
+		try {
+			orderService.updateOrderItem(order.getId(), changedItem(itemId, 11));
+			fail("Esperava disponível insuficiente");
+		} catch (InsufficientStockException expected) {
+			// item e reserva continuam como estavam
+		}
+		assertEquals(6, reservations.reservedQuantity(productId));
+
+		orderService.updateOrderItem(order.getId(), changedItem(itemId, 2));
+		assertEquals(2, reservations.reservedQuantity(productId));
+	}
+
+	@Test
+	public void testReservationExpiresAfterTtl() throws Exception {
+		long expiredBefore = reservations.expiredReservations();
+		orderService.createOrder(customerId, items(10));
+		assertEquals(0, reservations.availability(productId).get().available());
+
+		long deadline = System.currentTimeMillis() + 5000;
+		while (reservations.reservedQuantity(productId) > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(50);
+		}
+
+		assertEquals(0, reservations.reservedQuantity(productId));
+		assertTrue(reservations.expiredReservations() > expiredBefore);
+	}
+
+	private List<OrderItem> items(int quantity) {
+		Product product = tx.execute(status -> entityManager.find(Product.class, productId));
+		OrderItem item = new OrderItem();
+		item.setProduct(product);
+		item.setQuantity(quantity);
+		item.setUnitPrice(new BigDecimal("10.00"));
+		item.updateSubtotal();
+		List<OrderItem> items = new ArrayList<>();
+		items.add(item);
+		return items;
+	}
+
+	// só id e quantidade: o produto gravado é mantido
+	private static OrderItem changedItem(Long itemId, int quantity) {
+		OrderItem item = new OrderItem();
+		item.setId(itemId);
+		item.setQuantity(quantity);
+		return item;
+	}
+}
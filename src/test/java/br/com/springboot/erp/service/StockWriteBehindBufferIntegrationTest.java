@@ -0,0 +1,164 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.math.BigDecimal;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.com.springboot.erp.Application;
+import br.com.springboot.erp.config.TestConfig;
+import br.com.springboot.erp.model.dto.StockBufferStatsDto;
+import br.com.springboot.erp.model.entity.Product;
+
+/**
+ * Testes de integração do {@link StockWriteBehindBuffer} com a escrita adiada ligada.
+ *
+ * O intervalo de gravação é longo para que o teste controle quando o buffer é gravado.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class, properties = {
+		"erp.stock.write-behind.enabled=true",
+		"erp.stock.write-behind.interval-ms=600000" })
+@ActiveProfiles("test")
+@Import(TestConfig.class)
+public class StockWriteBehindBufferIntegrationTest {
+
+	@Autowired
+	private ProductService productService;
+
+	@Autowired
+	private StockWriteBehindBuffer stockBuffer;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	private TransactionTemplate tx;
+	private Long productId;
+
+	@Before
+	public void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		productId = tx.execute(status -> {
+			Product product = new Product();
+			product.setName("Produto WB");
+			product.setPrice(new BigDecimal("10.00"));
+			product.setStock(100);
+			product.setSku("SKUWB");
+			entityManager.persist(product);
+			return product.getId();
+		});
+	}
+
+	@After
+	public void tearDown() {
+		stockBuffer.flushAll();
+		tx.executeWithoutResult(status -> entityManager
+				.createQuery("DELETE FROM Product p WHERE p.sku = 'SKUWB'").executeUpdate());
+	}
+
+	@Test
+	public void testUpdatesAreCoalescedAndVisibleBeforeFlush() {
+		long versionBefore = databaseVersion();
+
+		productService.updateProductStock(productId, 90);
+		productService.updateProductStock(productId, 80);
+		productService.updateProductStock(productId, 70);
+
+		// leitura enxerga o valor pendente; o banco ainda não foi atualizado
+		assertEquals(Integer.valueOf(70), productService.findProductById(productId).get().getStock());
+		assertEquals(Integer.valueOf(100), databaseStock());
+
+		StockBufferStatsDto stats = stockBuffer.stats();
+		assertEquals(1, stats.pendingProducts());
+		assertTrue(stats.coalescedUpdates() >= 2);
+
+		stockBuffer.flushAll();
+
+		// apenas o último valor é gravado, em uma única atualização
+		assertEquals(Integer.valueOf(70), databaseStock());
+		assertEquals(versionBefore + 1, databaseVersion());
+		assertEquals(0, stockBuffer.stats().pendingProducts());
+	}
+
+	@Test
+	public void testWritesThroughJpaFlushBufferFirst() {
+		productService.updateProductStock(productId, 5);
+
+		// a alteração de preço grava a entidade inteira: o estoque pendente precisa ir antes
+		productService.updateProductPrice(productId, new BigDecimal("12.00"));
+
+		assertEquals(Integer.valueOf(5), databaseStock());
+		assertEquals(0, stockBuffer.stats().pendingProducts());
+	}
+
+	@Test
+	public void testFlushJoinsCallerTransaction() {
+		productService.updateProductStock(productId, 5);
+
+		// gravado na transação de quem chamou: o rollback desfaz e o valor volta a pendente
+		tx.executeWithoutResult(status -> {
+			productService.updateProductPrice(productId, new BigDecimal("12.00"));
+			status.setRollbackOnly();
+		});
+
+		assertEquals(Integer.valueOf(100), databaseStock());
+		assertEquals(1, stockBuffer.stats().pendingProducts());
+		assertEquals(Integer.valueOf(5), productService.findProductById(productId).get().getStock());
+
+		stockBuffer.flushAll();
+		assertEquals(Integer.valueOf(5), databaseStock());
+	}
+
+	@Test
+	public void testReadOnlyTransactionDoesNotFlush() {
+		productService.updateProductStock(productId, 5);
+		long versionBefore = databaseVersion();
+
+		TransactionTemplate readOnlyTx = new TransactionTemplate(transactionManager);
+		readOnlyTx.setReadOnly(true);
+		readOnlyTx.executeWithoutResult(status -> stockBuffer.flushAll());
+		assertEquals(Integer.valueOf(100), databaseStock());
+
+		// a consulta de versão grava antes, fora da transação somente leitura
+		assertEquals(Long.valueOf(versionBefore + 1), productService.findProductVersion(productId).get().version());
+		assertEquals(Integer.valueOf(5), databaseStock());
+	}
+
+	@Test
+	public void testLowStockQuerySeesBufferedValue() {
+		productService.updateProductStock(productId, 1);
+
+		assertTrue(productService.findProductsWithLowStock().stream()
+				.anyMatch(product -> product.getId().equals(productId)));
+	}
+
+	private Integer databaseStock() {
+		return tx.execute(status -> entityManager
+				.createQuery("SELECT p.stock FROM Product p WHERE p.id = :id", Integer.class)
+				.setParameter("id", productId).getSingleResult());
+	}
+
+	private long databaseVersion() {
+		return tx.execute(status -> entityManager
+				.createQuery("SELECT p.version FROM Product p WHERE p.id = :id", Long.class)
+				.setParameter("id", productId).getSingleResult());
+	}
+}
@@ -0,0 +1,79 @@
+package br.com.springboot.erp.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+/**
+ * Testes unitários do {@link SubtaskScope}: junção, falha rápida e prazo.
+ */
+public class SubtaskScopeTest {
+
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testJoinWaitsForAllSubtasks() throws Exception {
+		try (SubtaskScope scope = new SubtaskScope(executor)) {
+			Future<Integer> a = scope.fork(() -> 1);
+			Future<Integer> b = scope.fork(() -> {
+				Thread.sleep(50);
+				return 2;
+			});
+
+			scope.join(Duration.ofSeconds(5));
+
+			assertEquals(Integer.valueOf(3), Integer.valueOf(a.get() + b.get()));
+		}
+	}
+
+	@Test
+	public void testFirstFailureCancelsSiblings() throws Exception {
+		CountDownLatch interrupted = new CountDownLatch(1);
+		try (SubtaskScope scope = new SubtaskScope(executor)) {
+			scope.fork(() -> {
+				try {
+					Thread.sleep(10_000);
+				} catch (InterruptedException ex) {
+					interrupted.countDown();
+				}
+				return null;
+			});
+			scope.fork(() -> {
+				throw new IllegalArgumentException("falhou");
+			});
+
+			scope.join(Duration.ofSeconds(5));
+			fail("Deveria repassar a falha da subtarefa");
+		} catch (IllegalArgumentException ex) {
+			assertEquals("falhou", ex.getMessage());
+		}
+		assertTrue("Subtarefa irmã deveria ser interrompida", interrupted.await(2, TimeUnit.SECONDS));
+	}
+
+	@Test(expected = QueryTimeoutException.class)
+	public void testDeadlineExceeded() throws Exception {
+		try (SubtaskScope scope = new SubtaskScope(executor)) {
+			scope.fork(() -> {
+				Thread.sleep(10_000);
+				return null;
+			});
+			scope.join(Duration.ofMillis(50));
+		}
+	}
+}